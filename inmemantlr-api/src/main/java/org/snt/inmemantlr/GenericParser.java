@@ -27,7 +27,9 @@
 package org.snt.inmemantlr;
 
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.ATN;
 import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTreeListener;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.antlr.v4.tool.ast.GrammarRootAST;
@@ -35,29 +37,66 @@ import org.apache.commons.io.FileExistsException;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.snt.inmemantlr.batch.BatchParser;
+import org.snt.inmemantlr.batch.BatchParserPool;
+import org.snt.inmemantlr.batch.BatchResult;
+import org.snt.inmemantlr.batch.ParallelBatchParser;
+import org.snt.inmemantlr.capture.InputCapture;
 import org.snt.inmemantlr.comp.*;
+import org.snt.inmemantlr.dfa.DFACache;
+import org.snt.inmemantlr.dfa.DFACachePolicy;
 import org.snt.inmemantlr.exceptions.*;
+import org.snt.inmemantlr.flow.ParseProcessor;
+import org.snt.inmemantlr.jfr.Phase;
+import org.snt.inmemantlr.jfr.PhaseEvent;
+import org.snt.inmemantlr.jfr.PhaseListener;
+import org.snt.inmemantlr.jfr.PhaseEvents;
+import org.snt.inmemantlr.limits.ResourceGuard;
+import org.snt.inmemantlr.limits.ResourceLimits;
+import org.snt.inmemantlr.limits.ResourceUsage;
 import org.snt.inmemantlr.listener.DefaultListener;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
 import org.snt.inmemantlr.memobjects.GenericParserSerialize;
+import org.snt.inmemantlr.metrics.CompileReport;
+import org.snt.inmemantlr.metrics.Metrics;
+import org.snt.inmemantlr.metrics.NoopMetrics;
+import org.snt.inmemantlr.metrics.PhaseRecorder;
+import org.snt.inmemantlr.memobjects.MemoryATN;
 import org.snt.inmemantlr.memobjects.MemorySource;
 import org.snt.inmemantlr.memobjects.MemoryTuple;
 import org.snt.inmemantlr.memobjects.MemoryTupleSet;
+import org.snt.inmemantlr.memobjects.MemoryWarmUp;
+import org.snt.inmemantlr.profile.DecisionProfiler;
+import org.snt.inmemantlr.profile.RuleProfiler;
+import org.snt.inmemantlr.stream.CancellableCharStream;
+import org.snt.inmemantlr.stream.CancellableTokenStream;
+import org.snt.inmemantlr.stream.CancellationToken;
 import org.snt.inmemantlr.stream.DefaultStreamProvider;
+import org.snt.inmemantlr.stream.PipelinedTokenSource;
 import org.snt.inmemantlr.stream.StreamProvider;
 import org.snt.inmemantlr.tool.InmemantlrErrorListener;
 import org.snt.inmemantlr.tool.InmemantlrErrorListener.Type;
 import org.snt.inmemantlr.tool.InmemantlrTool;
 import org.snt.inmemantlr.tool.ToolCustomizer;
+import org.snt.inmemantlr.tree.ParseTree;
 import org.snt.inmemantlr.utils.FileUtils;
 import org.snt.inmemantlr.utils.Tuple;
+import org.snt.inmemantlr.validation.ValidationResult;
 
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * generic parser
@@ -72,6 +111,17 @@ public class GenericParser {
         LOWER
     }
 
+    /**
+     * JAVAC generates Java code for lexer and parser and compiles it,
+     * INTERPRETER interprets the ATNs of lexer and parser directly which
+     * does neither require code generation nor a Java compiler at runtime.
+     * Grammars with embedded actions or predicates are always compiled.
+     */
+    public enum Backend {
+        JAVAC,
+        INTERPRETER
+    }
+
     private InmemantlrTool antlr = new InmemantlrTool();
     private DefaultListener listener = new DefaultListener();
     private StringCompiler sc = new StringCompiler();
@@ -81,6 +131,24 @@ public class GenericParser {
     private FileProvider fp = new FileProvider();
     private StreamProvider provider = new DefaultStreamProvider();
     private boolean useCached = true;
+    private Backend backend = Backend.JAVAC;
+    private MemoryWarmUp warmUp = new MemoryWarmUp();
+    private DFACache dfaCache = null;
+    private DecisionProfiler profiler = null;
+    private RuleProfiler ruleProfiler = null;
+    private Metrics metrics = NoopMetrics.INSTANCE;
+    private InputCapture capture = null;
+    private ResourceLimits limits = null;
+    private ResourceUsage usage = null;
+    private PhaseRecorder phases = new PhaseRecorder();
+    private int pipelineThreshold = Integer.MAX_VALUE;
+    private Executor pipelineExecutor = null;
+    private volatile boolean initialized = false;
+    private final Object asyncLock = new Object();
+    // asynchronous calls are chained to the call that was queued last
+    private CompletableFuture<?> asyncTail = CompletableFuture
+            .completedFuture(null);
+    private int[] decisionLines = null;
     private String lexerName = "";
     private String parserName = "";
 
@@ -95,10 +163,15 @@ public class GenericParser {
         if (tlc != null) {
             tlc.customize(antlr);
         }
-        Set<GrammarRootAST> ast = antlr.sortGrammarByTokenVocab(gcontent);
-        for (GrammarRootAST gast : ast) {
-            LOGGER.debug("gast {}", gast.getGrammarName());
-            antlr.createPipeline(gast);
+        PhaseListener prev = PhaseEvents.setListener(phases);
+        try {
+            Set<GrammarRootAST> ast = antlr.sortGrammarByTokenVocab(gcontent);
+            for (GrammarRootAST gast : ast) {
+                LOGGER.debug("gast {}", gast.getGrammarName());
+                antlr.createPipeline(gast);
+            }
+        } finally {
+            PhaseEvents.setListener(prev);
         }
     }
 
@@ -106,15 +179,22 @@ public class GenericParser {
      * private constructor used to reconstruct a serialized generic parser
      *
      * @param mset set of memory tuples
+     * @param atns ATNs to interpret
      * @param parserName parser name
      * @param lexerName lexer name
      */
-    private GenericParser(MemoryTupleSet mset, String parserName, String
-            lexerName) {
-        if (mset == null || mset.size() == 0)
-            throw new IllegalArgumentException("mset must not be null or empty");
-
-        sc.load(mset);
+    private GenericParser(MemoryTupleSet mset, Collection<MemoryATN> atns,
+                          String parserName, String lexerName) {
+        if ((mset == null || mset.size() == 0) && (atns == null || atns.isEmpty()))
+            throw new IllegalArgumentException("mset and atns must not be " +
+                    "both null or empty");
+
+        if (mset != null && mset.size() > 0) {
+            sc.load(mset);
+        } else {
+            sc.load(atns);
+            backend = Backend.INTERPRETER;
+        }
         LOGGER.debug("parser ", parserName);
         LOGGER.debug("parser ", lexerName);
         this.parserName = parserName;
@@ -292,6 +372,292 @@ public class GenericParser {
         this.oprov = oprov;
     }
 
+    /**
+     * get the backend that is used for compiling the grammar
+     * @return backend
+     */
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * set the backend that is used for compiling the grammar -- has to be
+     * set before compile() is invoked
+     * @param backend backend
+     */
+    public void setBackend(Backend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * switch lean code generation on or off -- lean code omits the context
+     * accessor methods as well as listeners and visitors which are not
+     * needed by inmemantlr; has to be set before compile() is invoked
+     * @param leanCodeGeneration true to generate lean code, false otherwise
+     */
+    public void setLeanCodeGeneration(boolean leanCodeGeneration) {
+        antlr.setLeanCodeGeneration(leanCodeGeneration);
+    }
+
+    /**
+     * switch shared ATNs on or off -- generated recognizers then share
+     * their deserialized ATN and DFA cache with all other recognizers that
+     * are generated from the same grammar; has to be set before compile()
+     * is invoked and requires inmemantlr to be on the class path of the
+     * Java compiler
+     * @param sharedATN true to share ATNs, false otherwise
+     */
+    public void setSharedATN(boolean sharedATN) {
+        antlr.setSharedATN(sharedATN);
+    }
+
+    /**
+     * observe and bound the DFA caches of lexer and parser with the given
+     * policy -- the policy is enforced after every parse
+     * @param policy eviction policy, null to stop observing the DFA caches
+     */
+    public void setDFACachePolicy(DFACachePolicy policy) {
+        dfaCache = policy == null ? null : new DFACache(policy);
+    }
+
+    /**
+     * get the DFA cache that observes lexer and parser
+     * @return DFA cache, null if no policy is set
+     */
+    public DFACache getDFACache() {
+        return dfaCache;
+    }
+
+    /**
+     * switch the profiling of parser decisions on or off -- if switched
+     * on, the parser is equipped with ANTLR's profiling simulator and the
+     * statistics of all decisions are aggregated over all parses; note that
+     * the profiling simulator takes precedence over the DFA cache counters
+     * @param profiling true to profile decisions, false otherwise
+     */
+    public void setProfiling(boolean profiling) {
+        profiler = profiling ? new DecisionProfiler() : null;
+    }
+
+    /**
+     * get the profiler that aggregates the decision statistics
+     * @return decision profiler, null if profiling is switched off
+     */
+    public DecisionProfiler getDecisionProfiler() {
+        return profiler;
+    }
+
+    /**
+     * switch the sampling of rule invocation stacks on or off -- only the
+     * given fraction of parses is sampled
+     * @param sampleRate fraction of parses that are sampled, 0 to switch
+     *                   sampling off
+     */
+    public void setRuleProfiling(double sampleRate) {
+        ruleProfiler = sampleRate > 0 ? new RuleProfiler(sampleRate) : null;
+    }
+
+    /**
+     * get the profiler that records the rule invocation stacks
+     * @return rule profiler, null if sampling is switched off
+     */
+    public RuleProfiler getRuleProfiler() {
+        return ruleProfiler;
+    }
+
+    /**
+     * set the metrics that compilation, lexing, parsing and tree building
+     * report to
+     * @param metrics metrics, null to switch metrics off
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics != null ? metrics : NoopMetrics.INSTANCE;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * save the inputs of slow lex and parse calls
+     * @param capture input capture, null to stop capturing
+     */
+    public void setInputCapture(InputCapture capture) {
+        this.capture = capture;
+    }
+
+    public InputCapture getInputCapture() {
+        return capture;
+    }
+
+    /**
+     * bound the tokens, rule nesting depth, parse tree nodes and syntax
+     * errors of every parse -- the limits are enforced while lexing and
+     * parsing, and each of them raises its own ResourceLimitException
+     * @param limits resource limits, null to switch off the accounting
+     */
+    public void setResourceLimits(ResourceLimits limits) {
+        this.limits = limits;
+    }
+
+    public ResourceLimits getResourceLimits() {
+        return limits;
+    }
+
+    /**
+     * get the resources used by the last parse (or cancellable lex) call
+     * @return resource usage, null if no limits are set
+     */
+    public ResourceUsage getResourceUsage() {
+        return usage;
+    }
+
+    /**
+     * lex inputs with at least minLength characters on a thread of their
+     * own while they are parsed, instead of lexing them entirely before
+     * parsing starts; lexer errors are still reported in order
+     *
+     * @param minLength minimum input length, Integer.MAX_VALUE switches
+     *                  pipelining off
+     */
+    public void setPipelining(int minLength) {
+        setPipelining(minLength, null);
+    }
+
+    /**
+     * lex inputs with at least minLength characters on a thread of their
+     * own while they are parsed
+     *
+     * @param minLength minimum input length, Integer.MAX_VALUE switches
+     *                  pipelining off
+     * @param executor  executor that runs the lexer, null for a shared pool
+     *                  of daemon threads
+     */
+    public void setPipelining(int minLength, Executor executor) {
+        if (minLength < 0)
+            throw new IllegalArgumentException("minLength must not be " +
+                    "negative");
+        this.pipelineThreshold = minLength;
+        this.pipelineExecutor = executor;
+    }
+
+    public int getPipeliningThreshold() {
+        return pipelineThreshold;
+    }
+
+    private ResourceGuard newGuard() {
+        if (limits == null)
+            return null;
+        ResourceGuard guard = new ResourceGuard(limits);
+        usage = guard.getUsage();
+        return guard;
+    }
+
+    /**
+     * get the name of the grammar that is used for tagging metrics
+     * @return parser name, or lexer name for lexer grammars
+     */
+    public String getGrammarName() {
+        return parserName.isEmpty() ? lexerName : parserName;
+    }
+
+    /**
+     * get the ATN of the active lexer
+     *
+     * @return lexer ATN
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public ATN getLexerATN() throws IllegalWorkflowException {
+        if (lexerName.isEmpty())
+            throw new IllegalWorkflowException("lexerName must not be empty " +
+                    "-- did you already run compile?");
+        return sc.getATN(lexerName);
+    }
+
+    /**
+     * get the ATN of the active parser
+     *
+     * @return parser ATN
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public ATN getParserATN() throws IllegalWorkflowException {
+        if (parserName.isEmpty())
+            throw new IllegalWorkflowException("parserName must not be empty " +
+                    "-- did you already run compile?");
+        return sc.getATN(parserName);
+    }
+
+    /**
+     * get a lexer of the active grammar that is not bound to any input
+     *
+     * @return lexer
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public Lexer getLexerPrototype() throws IllegalWorkflowException {
+        if (lexerName.isEmpty())
+            throw new IllegalWorkflowException("lexerName must not be empty " +
+                    "-- did you already run compile?");
+        return sc.instanciateLexer(CharStreams.fromString(""), lexerName,
+                false);
+    }
+
+    /**
+     * get a parser of the active grammar that is not bound to any input,
+     * e.g., for accessing rule names and vocabulary
+     *
+     * @return parser
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public Parser getParserPrototype() throws IllegalWorkflowException {
+        if (parserName.isEmpty())
+            throw new IllegalWorkflowException("parserName must not be empty " +
+                    "-- did you already run compile?");
+        return sc.instanciateParser(new CommonTokenStream(new
+                ListTokenSource(Collections.emptyList())), parserName);
+    }
+
+    /**
+     * get the report about the phases of compiling or loading this parser
+     * and the footprint of the generated artifacts -- lexer and parser
+     * are initialized first if this has not happened yet
+     *
+     * @return compile report
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public CompileReport getCompileReport() throws IllegalWorkflowException {
+        if (!initialized)
+            initialize();
+
+        List<CompileReport.Artifact> artifacts = new ArrayList<>();
+        for (MemoryTuple mt : getAllCompiledObjects()) {
+            artifacts.add(new CompileReport.Artifact(mt.getClassName(), mt
+                    .getSource().getCharContent(true).length(), mt
+                    .getByteCodeObjects().size(), mt.getByteCodeObjects()
+                    .stream().mapToLong(b -> b.getBytes().length).sum()));
+        }
+
+        List<CompileReport.Recognizer> recognizers = new ArrayList<>();
+        for (String cname : new String[]{lexerName, parserName}) {
+            ATN atn = cname.isEmpty() ? null : sc.getATN(cname);
+            if (atn != null)
+                recognizers.add(new CompileReport.Recognizer(cname, atn
+                        .states.size(), atn.getNumberOfDecisions(), atn
+                        .ruleToStartState.length));
+        }
+
+        return new CompileReport(phases.getTimings(), artifacts, recognizers);
+    }
+
+    /**
+     * set the entry rules -- parser rules that are not reachable from any
+     * of them are pruned from the grammar and cannot be used for parsing;
+     * has to be set before compile() is invoked
+     * @param entryRules names of the entry rules
+     */
+    public void setEntryRules(String... entryRules) {
+        antlr.setEntryRules(Arrays.asList(entryRules));
+    }
+
     /**
      * compile generic parser
      *
@@ -300,6 +666,45 @@ public class GenericParser {
      * @throws RedundantCompilationException objects are already compiled
      */
     public void compile() throws CompilationException {
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        PhaseListener prev = PhaseEvents.setListener(phases);
+        try {
+            compileGrammars();
+        } finally {
+            PhaseEvents.setListener(prev);
+            if (metrics.isEnabled())
+                metrics.record(getGrammarName(), Metrics.Stage.COMPILE, System
+                        .nanoTime() - start);
+        }
+    }
+
+    /**
+     * compile and initialize the generic parser asynchronously in the
+     * common pool
+     *
+     * @return future of this parser that completes once it is ready to parse
+     */
+    public CompletableFuture<GenericParser> compileAsync() {
+        return compileAsync(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * compile and initialize the generic parser asynchronously -- the
+     * future fails with a {@link CompilationException} if the grammar
+     * cannot be compiled
+     *
+     * @param executor executor that runs the compilation
+     * @return future of this parser that completes once it is ready to parse
+     */
+    public CompletableFuture<GenericParser> compileAsync(Executor executor) {
+        return async(executor, null, token -> {
+            compile();
+            initialize();
+            return this;
+        });
+    }
+
+    private void compileGrammars() throws CompilationException {
         LOGGER.debug("compile");
 
         // the antlr objects are already compiled
@@ -319,6 +724,9 @@ public class GenericParser {
             }
         }
 
+        // utility Java files can only be used by generated code
+        antlr.setGenerateCode(backend == Backend.JAVAC || fp.hasItems());
+
         // process all grammar objects
         Tuple<String, String> parserLexer = antlr.process();
 
@@ -330,6 +738,33 @@ public class GenericParser {
         if (lexerName.isEmpty())
             throw new IllegalArgumentException("lexerName must not be empty");
 
+        for (StringCodeGenPipeline p : antlr.getCompilationUnits()) {
+            if (!p.getG().isLexer() && parserName.endsWith(p.getG()
+                    .getRecognizerName()))
+                decisionLines = p.getDecisionLines();
+        }
+
+        for (String rule : antlr.getEntryRules()) {
+            if (antlr.getCompilationUnits().stream()
+                    .map(StringCodeGenPipeline::getG)
+                    .noneMatch(g -> !g.isLexer() && g.getRule(rule) != null))
+                throw new CompilationException("Entry rule " + rule + " not " +
+                        "found");
+        }
+
+        if (!antlr.isGenerateCode()) {
+            List<MemoryATN> atns = new ArrayList<>();
+            for (StringCodeGenPipeline p : antlr.getCompilationUnits()) {
+                if (p.getG().atn == null)
+                    throw new CompilationErrorException("grammar " + p
+                            .getG().name + " could not be analysed");
+                atns.addAll(p.getATNs());
+            }
+            sc.load(atns);
+            return;
+        }
+
+        LOGGER.debug("compile generated code");
 
         Set<CunitProvider> cu = new LinkedHashSet<>();
 
@@ -341,6 +776,142 @@ public class GenericParser {
         sc.compile(cu, oprov);
     }
 
+    /**
+     * initialize lexer and parser ahead of the first parse such that the
+     * first request does not pay for loading the classes and deserializing
+     * the ATNs
+     *
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public void initialize() throws IllegalWorkflowException {
+        if (!antrlObjectsAvailable()) {
+            throw new IllegalWorkflowException("No antlr objects have been compiled or loaded");
+        }
+
+        PhaseListener prev = PhaseEvents.setListener(phases);
+        try {
+            for (String cname : new String[]{lexerName, parserName}) {
+                if (cname.isEmpty())
+                    continue;
+                LOGGER.debug("initialize {}", cname);
+                PhaseEvent ev = PhaseEvents.begin(Phase.INITIALIZATION);
+                if (!sc.initialize(cname))
+                    LOGGER.warn("could not initialize {}", cname);
+                ATN atn = sc.getATN(cname);
+                ev.finish(getGrammarName(), cname, 0, atn != null ? atn
+                        .states.size() : 0);
+            }
+        } finally {
+            PhaseEvents.setListener(prev);
+        }
+        initialized = true;
+    }
+
+    /**
+     * initialize lexer and parser asynchronously in the common pool
+     *
+     * @return future that completes once lexer and parser are initialized
+     */
+    public CompletableFuture<Void> initializeAsync() {
+        return initializeAsync(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * initialize lexer and parser asynchronously
+     *
+     * @param executor executor that runs the initialization
+     * @return future that completes once lexer and parser are initialized
+     */
+    public CompletableFuture<Void> initializeAsync(Executor executor) {
+        CompletableFuture<Void> ret = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                initialize();
+                ret.complete(null);
+            } catch (Throwable e) {
+                ret.completeExceptionally(e);
+                if (e instanceof Error)
+                    throw (Error) e;
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * warm up the DFA caches of lexer and parser by parsing the given
+     * samples starting from the first rule -- the samples are stored
+     * together with the parser and replayed on load
+     *
+     * @param samples sample inputs
+     * @return number of samples that could be parsed without errors
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public int warmUp(Collection<String> samples) throws IllegalWorkflowException {
+        return warmUp(null, samples);
+    }
+
+    /**
+     * warm up the DFA caches of lexer and parser by parsing the given
+     * samples -- the samples are stored together with the parser and
+     * replayed on load
+     *
+     * @param production production to start with
+     * @param samples    sample inputs
+     * @return number of samples that could be parsed without errors
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public int warmUp(String production, Collection<String> samples) throws
+            IllegalWorkflowException {
+        if (!antrlObjectsAvailable()) {
+            throw new IllegalWorkflowException("No antlr objects have been compiled or loaded");
+        }
+
+        MemoryWarmUp corpus = new MemoryWarmUp();
+        samples.forEach(sample -> corpus.add(production, sample));
+        warmUp.addAll(corpus);
+        return replay(corpus);
+    }
+
+    /**
+     * get the samples that were used for warming up the DFA caches
+     *
+     * @return sample corpus
+     */
+    public MemoryWarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * parse all samples of the corpus without notifying the listener
+     *
+     * @param corpus sample corpus
+     * @return number of samples that could be parsed without errors
+     */
+    private int replay(MemoryWarmUp corpus) {
+        DefaultListener l = listener;
+        listener = new DefaultListener();
+        int ok = 0;
+        try {
+            for (int i = 0; i < corpus.size(); i++) {
+                try {
+                    if (parserName.isEmpty()) {
+                        lex(corpus.getSample(i));
+                    } else {
+                        parse(corpus.getSample(i), corpus.getProduction(i),
+                                CaseSensitiveType.NONE);
+                    }
+                    ok++;
+                } catch (IllegalWorkflowException | ParsingException |
+                        IllegalArgumentException e) {
+                    LOGGER.debug("warm-up sample {} failed: {}", i, e.getMessage());
+                }
+            }
+        } finally {
+            listener = l;
+        }
+        return ok;
+    }
+
     /**
      * parse file content an create a context
      *
@@ -449,6 +1020,36 @@ public class GenericParser {
      * @throws IllegalWorkflowException in case no lexername is provided
      */
     public List<Token> lex(String toParse) throws IllegalWorkflowException {
+        return tokenize(toParse, null, null);
+    }
+
+    /**
+     * get the tokens for a string -- lexing is aborted once the token is
+     * cancelled or expired, or once a resource limit is exceeded
+     * @param toParse string to be tokenized
+     * @param cancel cancellation token, null if lexing is unbounded
+     * @return a list of tokens
+     * @throws IllegalWorkflowException in case no lexername is provided
+     * @throws ParsingCancelledException if lexing has been cancelled
+     * @throws ResourceLimitException if a resource limit is exceeded
+     * @throws ParsingException if lexing has been aborted
+     */
+    public List<Token> lex(String toParse, CancellationToken cancel) throws
+            IllegalWorkflowException, ParsingException {
+        ResourceGuard guard = newGuard();
+        try {
+            return tokenize(toParse, cancel, guard);
+        } catch (ParseCancellationException e) {
+            throw aborted(cancel, e);
+        } finally {
+            if (guard != null)
+                guard.release();
+        }
+    }
+
+    private List<Token> tokenize(String toParse, CancellationToken cancel,
+                                 ResourceGuard guard)
+            throws IllegalWorkflowException {
 
         if (lexerName.isEmpty())
             throw new IllegalWorkflowException("lexerName must not be empty " +
@@ -456,20 +1057,66 @@ public class GenericParser {
 
         InmemantlrErrorListener el = new InmemantlrErrorListener();
         listener.reset();
+
+        boolean measure = metrics.isEnabled();
+        long start = measure || capture != null ? System.nanoTime() : 0;
+
+        if (measure) {
+            metrics.count(getGrammarName(), Metrics.Counter.INPUT_SIZE,
+                    toParse.length());
+            metrics.count(getGrammarName(), useCached && sc.hasCachedLexer
+                    (lexerName) ? Metrics.Counter.LEXER_CACHE_HITS : Metrics
+                    .Counter.LEXER_CACHE_MISSES, 1);
+        }
+
         //CodePointCharStream input = CharStreams.fromString(toParse);
         CharStream input = provider.getCharStream(toParse);
 
         Objects.requireNonNull(input, "char stream must not be null");
 
+        if (cancel != null) {
+            cancel.check();
+            input = new CancellableCharStream(input, cancel);
+        }
+
         LOGGER.debug("load lexer {}", lexerName);
 
         Lexer lex = sc.instanciateLexer(input, lexerName, useCached);
-        lex.addErrorListener(el);
-
         Objects.requireNonNull(lex, "lex must not be null");
+        listen(lex, el);
 
-        CommonTokenStream tokens = new CommonTokenStream(lex);
+        if (dfaCache != null)
+            dfaCache.install(lex);
+
+        TokenSource source = lex;
+        if (guard != null) {
+            guard.install(lex);
+            source = guard.wrap(lex);
+        }
+
+        PhaseEvent ev = PhaseEvents.begin(Phase.LEXING);
+        CommonTokenStream tokens = cancel != null ? new
+                CancellableTokenStream(source, cancel) : new
+                CommonTokenStream(source);
         tokens.fill();
+        ev.finish(getGrammarName(), null, toParse.length(), tokens.size());
+
+        if (dfaCache != null)
+            dfaCache.enforce();
+
+        if (measure) {
+            metrics.record(getGrammarName(), Metrics.Stage.LEX, System
+                    .nanoTime() - start);
+            metrics.count(getGrammarName(), Metrics.Counter.TOKENS, tokens
+                    .size());
+            metrics.count(getGrammarName(), Metrics.Counter.SYNTAX_ERRORS, el
+                    .getSyntaxErrors());
+        }
+
+        if (capture != null)
+            capture.capture(this, null, toParse, System.nanoTime() - start,
+                    0, tokens.size());
+
         return tokens.getTokens();
     }
 
@@ -488,6 +1135,172 @@ public class GenericParser {
                                    CaseSensitiveType cs)
             throws
             IllegalWorkflowException, ParsingException {
+        return parse(toParse, production, cs, null);
+    }
+
+    /**
+     * parse string and create a context -- lexing and parsing is aborted
+     * once the token is cancelled or expired; the cached lexer and parser
+     * remain usable afterwards
+     *
+     * @param toParse    string to parse
+     * @param production production name to parseFile
+     * @param cs         case sensitivity
+     * @param cancel     cancellation token, null if the parse is unbounded
+     * @return context
+     * @throws IllegalWorkflowException  if compilation did not take place
+     * @throws ParsingCancelledException if parsing has been cancelled
+     * @throws ResourceLimitException    if a resource limit is exceeded
+     * @throws ParsingException          if an error occurs while parsing
+     */
+    public ParserRuleContext parse(String toParse, String production,
+                                   CaseSensitiveType cs, CancellationToken
+                                           cancel)
+            throws
+            IllegalWorkflowException, ParsingException {
+        ResourceGuard guard = newGuard();
+        try {
+            return doParse(toParse, production, cs, cancel, guard);
+        } catch (ParseCancellationException e) {
+            throw aborted(cancel, e);
+        } finally {
+            if (guard != null)
+                guard.release();
+        }
+    }
+
+    /**
+     * parse string asynchronously, starting from the first rule
+     *
+     * @param toParse  string to parse
+     * @param executor executor that runs the parser
+     * @return future of the context
+     */
+    public CompletableFuture<ParserRuleContext> parseAsync(String toParse,
+            Executor executor) {
+        return parseAsync(toParse, null, CaseSensitiveType.NONE, null,
+                executor);
+    }
+
+    /**
+     * parse string asynchronously -- cancelling the future cancels the
+     * running parse. Asynchronous calls on the same generic parser are
+     * executed one after the other because the cached lexer and the
+     * listener are shared; use {@link #newParallelBatchParser(String)} to
+     * parse in parallel.
+     *
+     * @param toParse    string to parse
+     * @param production production name to parseFile
+     * @param cs         case sensitivity
+     * @param cancel     cancellation token, null if the parse is unbounded
+     * @param executor   executor that runs the parser
+     * @return future of the context that fails with the exceptions of
+     * {@link #parse(String, String, CaseSensitiveType, CancellationToken)}
+     */
+    public CompletableFuture<ParserRuleContext> parseAsync(String toParse,
+            String production, CaseSensitiveType cs, CancellationToken
+            cancel, Executor executor) {
+        return async(executor, cancel, token -> parse(toParse, production,
+                cs, token));
+    }
+
+    /**
+     * parse string asynchronously and return the parse tree -- requires
+     * a {@link DefaultTreeListener} to be set as listener
+     *
+     * @param toParse    string to parse
+     * @param production production name to parseFile
+     * @param cancel     cancellation token, null if the parse is unbounded
+     * @param executor   executor that runs the parser
+     * @return future of the parse tree
+     */
+    public CompletableFuture<ParseTree> parseTreeAsync(String toParse,
+            String production, CancellationToken cancel, Executor executor) {
+        return async(executor, cancel, token -> {
+            if (!(listener instanceof DefaultTreeListener))
+                throw new IllegalWorkflowException("parse trees require a " +
+                        "DefaultTreeListener");
+            parse(toParse, production, CaseSensitiveType.NONE, token);
+            return ((DefaultTreeListener) listener).getParseTree();
+        });
+    }
+
+    private interface AsyncTask<T> {
+        T run(CancellationToken token) throws CompilationException,
+                IllegalWorkflowException, ParsingException;
+    }
+
+    /**
+     * run a task once all asynchronous calls that have been queued before
+     * have finished -- waiting tasks do not occupy a thread of the executor
+     *
+     * @param executor executor that runs the task
+     * @param cancel   cancellation token of the caller, may be null
+     * @param task     task
+     * @return future of the result of the task
+     */
+    private <T> CompletableFuture<T> async(Executor executor,
+                                           CancellationToken cancel,
+                                           AsyncTask<T> task) {
+        Objects.requireNonNull(executor, "executor must not be null");
+        // cancelling the future must not cancel the token of the caller
+        CancellationToken token = cancel != null ? cancel.child() : new
+                CancellationToken();
+        CompletableFuture<T> ret = new CompletableFuture<>();
+        ret.whenComplete((r, e) -> {
+            if (ret.isCancelled())
+                token.cancel();
+        });
+        synchronized (asyncLock) {
+            CompletableFuture<?> next = asyncTail.handleAsync((r, e) -> {
+                run(ret, token, task);
+                return null;
+            }, executor);
+            // the task is never run if the executor rejects it
+            next.whenComplete((r, e) -> {
+                if (e != null)
+                    ret.completeExceptionally(e instanceof
+                            CompletionException ? e.getCause() : e);
+            });
+            asyncTail = next;
+        }
+        return ret;
+    }
+
+    private static <T> void run(CompletableFuture<T> ret, CancellationToken
+            token, AsyncTask<T> task) {
+        if (ret.isDone())
+            return;
+        try {
+            ret.complete(task.run(token));
+        } catch (Throwable e) {
+            // errors, e.g., stack overflows of the interpreter, fail the
+            // future as well
+            ret.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * observe the syntax errors of a lexer -- cached lexers still hold the
+     * error listener of the previous call, which is replaced
+     *
+     * @param lex lexer
+     * @param el  error listener of this call
+     */
+    private static void listen(Lexer lex, InmemantlrErrorListener el) {
+        for (ANTLRErrorListener l : new ArrayList<>(lex.getErrorListeners())) {
+            if (l instanceof InmemantlrErrorListener)
+                lex.removeErrorListener(l);
+        }
+        lex.addErrorListener(el);
+    }
+
+    private ParserRuleContext doParse(String toParse, String production,
+                                      CaseSensitiveType cs,
+                                      CancellationToken cancel,
+                                      ResourceGuard guard)
+            throws
+            IllegalWorkflowException, ParsingException {
         if (!antrlObjectsAvailable()) {
             throw new IllegalWorkflowException("No antlr objects have been compiled or loaded");
         }
@@ -517,74 +1330,517 @@ public class GenericParser {
 
         listener.reset();
 
+        boolean measure = metrics.isEnabled();
+        long start = measure ? System.nanoTime() : 0;
+
+        if (measure) {
+            metrics.count(getGrammarName(), Metrics.Counter.INPUT_SIZE,
+                    toParse.length());
+            metrics.count(getGrammarName(), useCached && sc.hasCachedLexer
+                    (lexerName) ? Metrics.Counter.LEXER_CACHE_HITS : Metrics
+                    .Counter.LEXER_CACHE_MISSES, 1);
+        }
+
+        long captureStart = capture != null ? System.nanoTime() : 0;
+        long lexNanos = 0;
+
         CharStream input = provider.getCharStream(toParse);
 
         Objects.requireNonNull(input, "char stream must not be null");
 
+        if (cancel != null) {
+            cancel.check();
+            input = new CancellableCharStream(input, cancel);
+        }
+
         LOGGER.debug("load lexer {}", lexerName);
 
         Lexer lex = sc.instanciateLexer(input, lexerName, useCached);
-        lex.addErrorListener(el);
         Objects.requireNonNull(lex, "lex must not be null");
+        listen(lex, el);
 
-        CommonTokenStream tokens = new CommonTokenStream(lex);
+        if (dfaCache != null)
+            dfaCache.install(lex);
 
-        tokens.fill();
+        TokenSource source = lex;
+        if (guard != null) {
+            guard.install(lex);
+            source = guard.wrap(lex);
+        }
 
-        LOGGER.debug("load parser {}", parserName);
-        Parser parser = sc.instanciateParser(tokens, parserName);
+        // large inputs are lexed while they are parsed
+        PipelinedTokenSource pipeline = null;
+        if (toParse.length() >= pipelineThreshold) {
+            pipeline = pipelineExecutor != null ? new PipelinedTokenSource
+                    (lex, source, pipelineExecutor, PipelinedTokenSource
+                            .DEFAULT_CAPACITY) : new PipelinedTokenSource
+                    (lex, source);
+            source = pipeline;
+        }
+
+        try {
+            PhaseEvent lexing = PhaseEvents.begin(Phase.LEXING);
+            CommonTokenStream tokens = cancel != null ? new
+                    CancellableTokenStream(source, cancel) : new
+                    CommonTokenStream(source);
+
+            if (pipeline == null) {
+                tokens.fill();
+                lexing.finish(getGrammarName(), null, toParse.length(), tokens
+                        .size());
+
+                if (capture != null)
+                    lexNanos = System.nanoTime() - captureStart;
+
+                if (measure) {
+                    long now = System.nanoTime();
+                    metrics.record(getGrammarName(), Metrics.Stage.LEX, now -
+                            start);
+                    start = now;
+                }
+            }
+
+            LOGGER.debug("load parser {}", parserName);
+            Parser parser = sc.instanciateParser(tokens, parserName);
+
+            Objects.requireNonNull(parser, "Parser must not be null");
+
+            if (dfaCache != null)
+                dfaCache.install(parser);
+
+            if (profiler != null) {
+                profiler.setDecisionLines(decisionLines);
+                profiler.install(parser);
+            }
+
+            ParseTreeListener sample = ruleProfiler != null ? ruleProfiler.sample
+                    (parser) : null;
+
+            // make parser information available to listener
+            listener.setParser(parser);
+
+
+            parser.removeErrorListeners();
+            parser.addErrorListener(el);
+            if (guard != null)
+                guard.install(parser);
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL_EXACT_AMBIG_DETECTION);
+            parser.setBuildParseTree(true);
+            parser.setTokenStream(tokens);
+
+            String[] rules = parser.getRuleNames();
+            String entryPoint;
+
+
+            if (production == null) {
+                entryPoint = rules[0];
+            } else {
+                if (!Arrays.asList(rules).contains(production)) {
+                    throw new IllegalArgumentException("Rule " + production + " not found");
+                }
+                entryPoint = production;
+            }
+
+            PhaseEvent ev = PhaseEvents.begin(Phase.PARSING);
+            ParserRuleContext data = invokeEntryRule(parser, entryPoint);
+            ev.finish(getGrammarName(), entryPoint, tokens.size(), el
+                    .getSyntaxErrors());
+
+            // lexing overlaps parsing and is reported once the lexer has
+            // stopped
+            if (pipeline != null) {
+                pipeline.close();
+                lexNanos = pipeline.getLexNanos();
+                lexing.finish(getGrammarName(), null, toParse.length(),
+                        pipeline.getTokenCount());
+                if (measure)
+                    metrics.record(getGrammarName(), Metrics.Stage.LEX,
+                            lexNanos);
+            }
+
+            // slow inputs are captured regardless of syntax errors
+            if (capture != null)
+                capture.capture(this, entryPoint, toParse, lexNanos, System
+                        .nanoTime() - captureStart - lexNanos, tokens.size());
+
+            if (measure) {
+                long now = System.nanoTime();
+                metrics.record(getGrammarName(), Metrics.Stage.PARSE, now - start);
+                metrics.count(getGrammarName(), Metrics.Counter.TOKENS, tokens
+                        .size());
+                metrics.count(getGrammarName(), Metrics.Counter.SYNTAX_ERRORS, el
+                        .getSyntaxErrors());
+                start = now;
+            }
+
+            if (dfaCache != null)
+                dfaCache.enforce();
+
+            if (profiler != null)
+                profiler.collect(parser);
+
+            if (sample != null)
+                ruleProfiler.collect(parser, sample);
+
+            if (data == null)
+                return null;
+
+            Set<String> msgs = el.getLog().entrySet()
+                    .stream()
+                    .filter(e -> e.getKey() == Type.SYNTAX_ERROR)
+                    .map(Entry::getValue)
+                    .collect(Collectors.toSet());
+
+
+            if (!msgs.isEmpty()) {
+                throw new ParsingException(String.join("", msgs));
+            }
+
+            listener.setMetrics(metrics, getGrammarName());
+            ev = PhaseEvents.begin(Phase.WALKING);
+            ParseTreeWalker.DEFAULT.walk(listener, data);
+            ev.finish(getGrammarName(), listener.getClass().getName(), tokens
+                    .size(), 0);
+
+            if (measure)
+                metrics.record(getGrammarName(), Metrics.Stage.WALK, System
+                        .nanoTime() - start);
+
+            return data;
+        } finally {
+            if (pipeline != null)
+                pipeline.close();
+        }
+    }
+
+    /**
+     * check whether a string is valid for the active grammar -- starts
+     * from the first rule of the parser
+     *
+     * @param toParse string to validate
+     * @return validation result
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public ValidationResult validate(String toParse) throws
+            IllegalWorkflowException {
+        return validate(toParse, null);
+    }
 
+    /**
+     * check whether a string is valid for the active grammar -- no parse
+     * tree is built, no listener is invoked, and lexer and parser stop at
+     * the first error. The parser first tries SLL prediction and only
+     * falls back to full LL prediction if SLL fails.
+     *
+     * @param toParse    string to validate
+     * @param production entry rule, null for the first rule
+     * @return validation result
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public ValidationResult validate(String toParse, String production)
+            throws IllegalWorkflowException {
+        if (!antrlObjectsAvailable()) {
+            throw new IllegalWorkflowException("No antlr objects have been compiled or loaded");
+        }
+
+        if (lexerName.isEmpty() || parserName.isEmpty())
+            throw new IllegalWorkflowException("lexerName and parserName " +
+                    "must not be empty -- did you already run compile?");
+
+        CharStream input = provider.getCharStream(toParse);
+        Objects.requireNonNull(input, "char stream must not be null");
+
+        Lexer lex = sc.instanciateLexer(input, lexerName, useCached);
+        Objects.requireNonNull(lex, "lex must not be null");
+
+        // stop at the first lexer error; the listeners of the cached lexer
+        // are restored afterwards
+        ValidationResult[] lexerError = new ValidationResult[1];
+        List<? extends ANTLRErrorListener> saved = new ArrayList<>(lex
+                .getErrorListeners());
+        lex.removeErrorListeners();
+        lex.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object
+                    offendingSymbol, int line, int charPositionInLine,
+                                    String msg, RecognitionException e) {
+                lexerError[0] = ValidationResult.lexerError(line,
+                        charPositionInLine, lex.getCharIndex(), msg);
+                throw new ParseCancellationException(msg);
+            }
+        });
+
+        if (dfaCache != null)
+            dfaCache.install(lex);
+
+        PhaseEvent ev = PhaseEvents.begin(Phase.PARSING);
+        CommonTokenStream tokens = new CommonTokenStream(lex);
+        Parser parser = sc.instanciateParser(tokens, parserName);
         Objects.requireNonNull(parser, "Parser must not be null");
 
-        // make parser information available to listener
-        listener.setParser(parser);
+        if (dfaCache != null)
+            dfaCache.install(parser);
 
+        String entryPoint = production;
+        if (entryPoint == null) {
+            entryPoint = parser.getRuleNames()[0];
+        } else if (!Arrays.asList(parser.getRuleNames()).contains
+                (entryPoint)) {
+            throw new IllegalArgumentException("Rule " + production + " not found");
+        }
 
         parser.removeErrorListeners();
-        parser.addErrorListener(el);
-        parser.getInterpreter().setPredictionMode(PredictionMode.LL_EXACT_AMBIG_DETECTION);
-        parser.setBuildParseTree(true);
-        parser.setTokenStream(tokens);
+        parser.setBuildParseTree(false);
+        parser.setErrorHandler(new BailErrorStrategy());
+
+        ValidationResult result = ValidationResult.VALID;
+        try {
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            try {
+                invokeEntryRule(parser, entryPoint);
+            } catch (ParseCancellationException e) {
+                if (lexerError[0] != null)
+                    throw e;
+                // the error might be due to the weaker SLL prediction
+                parser.reset();
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                invokeEntryRule(parser, entryPoint);
+            }
+        } catch (ParseCancellationException e) {
+            if (lexerError[0] != null)
+                result = lexerError[0];
+            else if (e.getCause() instanceof RecognitionException)
+                result = ValidationResult.parserError((RecognitionException) e
+                        .getCause(), parser.getVocabulary());
+            else
+                throw e;
+        } finally {
+            lex.removeErrorListeners();
+            saved.forEach(lex::addErrorListener);
+        }
+        ev.finish(getGrammarName(), entryPoint, tokens.size(), result
+                .isValid() ? 0 : 1);
 
-        String[] rules = parser.getRuleNames();
-        String entryPoint;
+        if (dfaCache != null)
+            dfaCache.enforce();
 
+        return result;
+    }
 
-        if (production == null) {
-            entryPoint = rules[0];
-        } else {
-            if (!Arrays.asList(rules).contains(production)) {
-                throw new IllegalArgumentException("Rule " + production + " not found");
+    /**
+     * create a parser for batches of small inputs that reuses its lexer,
+     * token stream, parser and tree listener for every item -- every
+     * worker thread needs its own batch parser
+     *
+     * @param production entry rule, null for the first rule
+     * @return batch parser that builds a parse tree for every item
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public BatchParser newBatchParser(String production) throws
+            IllegalWorkflowException {
+        return newBatchParser(production, new DefaultTreeListener());
+    }
+
+    /**
+     * create a parser for batches of small inputs that reuses its lexer,
+     * token stream, parser and tree listener for every item -- every
+     * worker thread needs its own batch parser
+     *
+     * @param production entry rule, null for the first rule
+     * @param listener   tree listener that is owned by the batch parser,
+     *                   null to only check the items for syntax errors
+     * @return batch parser
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public BatchParser newBatchParser(String production, DefaultTreeListener
+            listener) throws IllegalWorkflowException {
+        if (!antrlObjectsAvailable()) {
+            throw new IllegalWorkflowException("No antlr objects have been compiled or loaded");
+        }
+
+        if (lexerName.isEmpty() || parserName.isEmpty())
+            throw new IllegalWorkflowException("lexerName and parserName " +
+                    "must not be empty -- did you already run compile?");
+
+        // the batch parser owns its instances; the cached lexer is untouched
+        Lexer lex = sc.instanciateLexer(CharStreams.fromString(""),
+                lexerName, false);
+        Objects.requireNonNull(lex, "lex must not be null");
+        Parser parser = sc.instanciateParser(new CommonTokenStream(lex),
+                parserName);
+        Objects.requireNonNull(parser, "Parser must not be null");
+
+        BatchParser bp = new BatchParser(getGrammarName(), lex, parser,
+                production, provider, listener);
+        bp.setMetrics(metrics);
+        return bp;
+    }
+
+    /**
+     * parse many small inputs with a single batch parser -- syntax errors
+     * do not abort the batch but are reported per item
+     *
+     * @param items      inputs to parse
+     * @param production entry rule, null for the first rule
+     * @return one result per input, in the order of the inputs
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public List<BatchResult> parseBatch(Iterable<String> items, String
+            production) throws IllegalWorkflowException {
+        return newBatchParser(production).parseAll(items);
+    }
+
+    /**
+     * create a parser that parses inputs or files in parallel, with one
+     * batch parser per worker that builds a parse tree for every item
+     *
+     * @param production entry rule, null for the first rule
+     * @return parallel batch parser
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public ParallelBatchParser newParallelBatchParser(String production)
+            throws IllegalWorkflowException {
+        return newParallelBatchParser(production, DefaultTreeListener::new);
+    }
+
+    /**
+     * create a parser that parses inputs or files in parallel, with one
+     * batch parser per worker
+     *
+     * @param production entry rule, null for the first rule
+     * @param listeners  creates the tree listener of a worker; may return
+     *                   null to only check the items for syntax errors
+     * @return parallel batch parser
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public ParallelBatchParser newParallelBatchParser(String production,
+            Supplier<? extends DefaultTreeListener> listeners) throws
+            IllegalWorkflowException {
+        return new ParallelBatchParser(batchParsers(production, listeners));
+    }
+
+    /**
+     * create a reactive stage that parses the inputs it receives on an
+     * executor and publishes a result with a parse tree for every input
+     *
+     * @param production  entry rule, null for the first rule
+     * @param executor    executor that runs the parse tasks
+     * @param concurrency maximum number of inputs in flight
+     * @return parse processor
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public ParseProcessor newParseProcessor(String production, Executor
+            executor, int concurrency) throws IllegalWorkflowException {
+        return new ParseProcessor(batchParsers(production,
+                DefaultTreeListener::new), executor, concurrency);
+    }
+
+    /**
+     * create a thread-safe pool of batch parsers -- a parse borrows a batch
+     * parser for a single input, which suits one (virtual) thread per
+     * request
+     *
+     * @param production entry rule, null for the first rule
+     * @param maxIdle    maximum number of idle batch parsers that are kept
+     * @return batch parser pool that builds a parse tree for every input
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public BatchParserPool newBatchParserPool(String production, int maxIdle)
+            throws IllegalWorkflowException {
+        return new BatchParserPool(batchParsers(production,
+                DefaultTreeListener::new), maxIdle);
+    }
+
+    private Supplier<BatchParser> batchParsers(String production, Supplier<?
+            extends DefaultTreeListener> listeners) throws
+            IllegalWorkflowException {
+        // fail early for missing artifacts or an unknown entry rule
+        newBatchParser(production, null);
+        return () -> {
+            try {
+                return newBatchParser(production, listeners.get());
+            } catch (IllegalWorkflowException e) {
+                throw new IllegalStateException(e);
             }
-            entryPoint = production;
+        };
+    }
+
+    /**
+     * parse inputs in parallel in the common pool -- results are returned
+     * in input order
+     *
+     * @param items      inputs to parse
+     * @param production entry rule, null for the first rule
+     * @return one result per input
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public Stream<BatchResult> parseParallel(Stream<String> items, String
+            production) throws IllegalWorkflowException {
+        return newParallelBatchParser(production).parse(items);
+    }
+
+    /**
+     * parse files in parallel in the common pool -- results are returned
+     * in input order
+     *
+     * @param files      files to parse
+     * @param production entry rule, null for the first rule
+     * @return one result per file
+     * @throws IllegalWorkflowException if compilation did not take place
+     */
+    public Stream<BatchResult> parseFiles(Stream<Path> files, String
+            production) throws IllegalWorkflowException {
+        return newParallelBatchParser(production).parseFiles(files);
+    }
+
+    /**
+     * invoke the entry rule of a parser
+     *
+     * @param parser parser
+     * @param entryPoint name of the rule to start with
+     * @return context or null if the rule could not be invoked
+     */
+    private ParserRuleContext invokeEntryRule(Parser parser, String
+            entryPoint) {
+        if (parser instanceof ParserInterpreter) {
+            return ((ParserInterpreter) parser).parse(parser.getRuleIndex
+                    (entryPoint));
         }
 
-        ParserRuleContext data = null;
         try {
             Class<?> pc = parser.getClass();
             Method m = pc.getDeclaredMethod(entryPoint, (Class<?>[]) null);
             Objects.requireNonNull(m, "method should not be null");
-            data = (ParserRuleContext) m.invoke(parser, (Object[]) null);
+            return (ParserRuleContext) m.invoke(parser, (Object[]) null);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof ParseCancellationException)
+                throw (ParseCancellationException) e.getCause();
+            return null;
         } catch (NoSuchMethodException | SecurityException |
-                IllegalAccessException | IllegalArgumentException |
-                InvocationTargetException e) {
+                IllegalAccessException | IllegalArgumentException e) {
             //e.printStackTrace();
             return null;
         }
+    }
 
-        Set<String> msgs = el.getLog().entrySet()
-                .stream()
-                .filter(e -> e.getKey() == Type.SYNTAX_ERROR)
-                .map(Entry::getValue)
-                .collect(Collectors.toSet());
-
-
-        if (!msgs.isEmpty()) {
-            throw new ParsingException(String.join("", msgs));
+    /**
+     * translate the abortion of lexer or parser into a checked exception
+     *
+     * @param cancel cancellation token
+     * @param e      cancellation
+     * @return exception to be thrown
+     */
+    private ParsingException aborted(CancellationToken cancel,
+                                     ParseCancellationException e) {
+        if (e.getCause() instanceof ResourceLimitException) {
+            metrics.count(getGrammarName(), Metrics.Counter
+                    .LIMIT_VIOLATIONS, 1);
+            return (ResourceLimitException) e.getCause();
         }
-
-        ParseTreeWalker.DEFAULT.walk(listener, data);
-        return data;
+        if (cancel == null || !cancel.isCancelled())
+            throw e;
+        metrics.count(getGrammarName(), Metrics.Counter.CANCELLATIONS, 1);
+        return new ParsingCancelledException(String.valueOf(e.getMessage()), e);
     }
 
     /**
@@ -614,8 +1870,18 @@ public class GenericParser {
         return sc.getAllCompiledObjects();
     }
 
+    /**
+     * get all ATNs (lexer, parser) that are interpreted
+     *
+     * @return collection of memory ATNs
+     */
+    public Collection<MemoryATN> getAllInterpretedObjects() {
+        return sc.getAllATNs();
+    }
+
     public boolean antrlObjectsAvailable() {
-        return getAllCompiledObjects().size() > 0;
+        return getAllCompiledObjects().size() > 0 ||
+                !getAllInterpretedObjects().isEmpty();
     }
 
     /**
@@ -642,8 +1908,14 @@ public class GenericParser {
         }
 
 
+        PhaseEvent ev = PhaseEvents.begin(Phase.SERIALIZATION);
+
         try (FileOutputStream fOut = new FileOutputStream(file); ObjectOutput oOut = new ObjectOutputStream(fOut)) {
-            GenericParserSerialize towrite = new GenericParserSerialize(getAllCompiledObjects(), parserName, lexerName);
+            GenericParserSerialize towrite = new GenericParserSerialize
+                    (getAllCompiledObjects(), getAllInterpretedObjects(),
+                            parserName, lexerName);
+            towrite.setWarmUp(warmUp);
+            towrite.setDecisionLines(decisionLines);
             oOut.writeObject(towrite);
         } catch (NotSerializableException e) {
             LOGGER.error("Not serializable:", e.getMessage());
@@ -652,6 +1924,8 @@ public class GenericParser {
         } catch (IOException e) {
             LOGGER.error("IO Error: {}", e.getMessage());
         }
+
+        ev.finish(getGrammarName(), loc.getAbsolutePath(), 0, loc.length());
     }
 
     /**
@@ -708,6 +1982,10 @@ public class GenericParser {
 
         LOGGER.debug("load file {}", loc.getAbsolutePath());
 
+        PhaseRecorder recorder = new PhaseRecorder();
+        PhaseListener prev = PhaseEvents.setListener(recorder);
+        PhaseEvent ev = PhaseEvents.begin(Phase.SERIALIZATION);
+
         try (FileInputStream f_in = new FileInputStream(file); ObjectInputStream o_in = new ObjectInputStream(f_in)) {
             Object toread = o_in.readObject();
 
@@ -717,12 +1995,26 @@ public class GenericParser {
             GenericParserSerialize gin = (GenericParserSerialize) toread;
 
             GenericParser gp = new GenericParser(gin.getMemoryTupleSet(), gin
-                    .getParserName(), gin.getLexerName());
+                    .getATNs(), gin.getParserName(), gin.getLexerName());
 
             if (!gp.antrlObjectsAvailable()) {
                 throw new DeserializationException("there are no antlr objects available in " + file);
             }
 
+            gp.decisionLines = gin.getDecisionLines();
+
+            ev.finish(gp.getGrammarName(), loc.getAbsolutePath(), loc
+                    .length(), 0);
+            // warm-up parses are not part of loading
+            PhaseEvents.setListener(prev);
+            gp.phases = recorder;
+
+            if (!gin.getWarmUp().isEmpty()) {
+                LOGGER.debug("replay {} warm-up samples", gin.getWarmUp().size());
+                gp.warmUp.addAll(gin.getWarmUp());
+                gp.replay(gin.getWarmUp());
+            }
+
             return gp;
         } catch (FileNotFoundException e) {
             throw new DeserializationException(String.format("Problem loading %s", file), e);
@@ -732,6 +2024,8 @@ public class GenericParser {
             throw new DeserializationException("cannot find class", e);
         } catch (IOException e) {
             throw new DeserializationException(e.getMessage(), e);
+        } finally {
+            PhaseEvents.setListener(prev);
         }
     }
 }
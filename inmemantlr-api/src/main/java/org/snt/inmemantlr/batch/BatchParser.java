@@ -0,0 +1,266 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.batch;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.metrics.Metrics;
+import org.snt.inmemantlr.metrics.NoopMetrics;
+import org.snt.inmemantlr.stream.StreamProvider;
+import org.snt.inmemantlr.tool.InmemantlrErrorListener;
+import org.snt.inmemantlr.tool.InmemantlrErrorListener.Type;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * parser for many small inputs -- lexer, token stream, parser, error
+ * listener and tree listener are created once and reset between items
+ * so that the per-item cost is dominated by the recognition itself.
+ *
+ * A batch parser is not thread-safe; use one instance per worker thread.
+ * Instances are created by
+ * {@link org.snt.inmemantlr.GenericParser#newBatchParser(String)}.
+ */
+public class BatchParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchParser.class);
+
+    private final String grammar;
+    private final Lexer lexer;
+    private final CommonTokenStream tokens;
+    private final Parser parser;
+    private final String entryPoint;
+    private final Method entryRule;
+    private final int entryIndex;
+    private final StreamProvider provider;
+    private final DefaultTreeListener listener;
+    private final InmemantlrErrorListener el = new InmemantlrErrorListener();
+    private Metrics metrics = NoopMetrics.INSTANCE;
+    private int count = 0;
+    private boolean defunct = false;
+
+    /**
+     * constructor
+     *
+     * @param grammar    grammar name
+     * @param lexer      lexer instance that is owned by this batch parser
+     * @param parser     parser instance that is owned by this batch parser
+     * @param entryPoint name of the entry rule, null for the first rule
+     * @param provider   provider for character streams
+     * @param listener   tree listener, null if no trees should be built
+     */
+    public BatchParser(String grammar, Lexer lexer, Parser parser, String
+            entryPoint, StreamProvider provider, DefaultTreeListener
+                               listener) {
+        Objects.requireNonNull(lexer, "lexer must not be null");
+        Objects.requireNonNull(parser, "parser must not be null");
+        Objects.requireNonNull(provider, "provider must not be null");
+
+        String[] rules = parser.getRuleNames();
+        if (entryPoint == null) {
+            entryPoint = rules[0];
+        } else if (!Arrays.asList(rules).contains(entryPoint)) {
+            throw new IllegalArgumentException("Rule " + entryPoint + " not found");
+        }
+
+        this.grammar = grammar;
+        this.lexer = lexer;
+        this.parser = parser;
+        this.entryPoint = entryPoint;
+        this.provider = provider;
+        this.listener = listener;
+
+        // the rule method is looked up once instead of once per item
+        if (parser instanceof ParserInterpreter) {
+            this.entryRule = null;
+            this.entryIndex = parser.getRuleIndex(entryPoint);
+        } else {
+            try {
+                this.entryRule = parser.getClass().getDeclaredMethod
+                        (entryPoint, (Class<?>[]) null);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("Rule " + entryPoint +
+                        " not found", e);
+            }
+            this.entryIndex = -1;
+        }
+
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(el);
+
+        tokens = new CommonTokenStream(lexer);
+
+        parser.removeErrorListeners();
+        parser.addErrorListener(el);
+        parser.setBuildParseTree(listener != null);
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.setTokenStream(tokens);
+
+        if (listener != null)
+            listener.setParser(parser);
+    }
+
+    /**
+     * set the metrics the batch parser reports to
+     *
+     * @param metrics metrics
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics == null ? NoopMetrics.INSTANCE : metrics;
+    }
+
+    /**
+     * @return name of the entry rule
+     */
+    public String getEntryPoint() {
+        return entryPoint;
+    }
+
+    /**
+     * @return number of items parsed so far
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * parse a single item -- errors are reported in the result rather
+     * than thrown so that the remaining items of a batch are unaffected
+     *
+     * @param toParse item to parse
+     * @return result, indexed by the number of items parsed before
+     */
+    public BatchResult parse(String toParse) {
+        return parse(count, null, toParse);
+    }
+
+    /**
+     * parse a single item
+     *
+     * @param idx     position of the item within the batch
+     * @param source  origin of the item, null if unknown
+     * @param toParse item to parse
+     * @return result
+     */
+    BatchResult parse(int idx, String source, String toParse) {
+        count++;
+
+        CharStream input = provider.getCharStream(toParse);
+        Objects.requireNonNull(input, "char stream must not be null");
+
+        el.reset();
+        lexer.setInputStream(input);
+        tokens.setTokenSource(lexer);
+        parser.setTokenStream(tokens);
+
+        ParserRuleContext data;
+        try {
+            data = invokeEntryRule();
+        } catch (RuntimeException e) {
+            LOGGER.debug("item {} failed: {}", idx, e.getMessage());
+            // the recognizers may have been left in an inconsistent state
+            defunct = true;
+            return BatchResult.failure(idx, source, new ParsingException
+                    (String.valueOf(e.getMessage()), e));
+        }
+
+        if (metrics.isEnabled()) {
+            metrics.count(grammar, Metrics.Counter.INPUT_SIZE, toParse
+                    .length());
+            metrics.count(grammar, Metrics.Counter.TOKENS, tokens.size());
+            metrics.count(grammar, Metrics.Counter.SYNTAX_ERRORS, el
+                    .getSyntaxErrors());
+        }
+
+        if (el.getSyntaxErrors() > 0)
+            return BatchResult.failure(idx, source, new ParsingException(el
+                    .getLog().get(Type.SYNTAX_ERROR)));
+
+        if (listener == null)
+            return BatchResult.success(idx, source, null);
+
+        listener.reset();
+        ParseTreeWalker.DEFAULT.walk(listener, data);
+        return BatchResult.success(idx, source, listener.getParseTree());
+    }
+
+    /**
+     * check whether an exception has been thrown from within the
+     * recognizers -- pools drop such batch parsers instead of reusing them
+     *
+     * @return true if a parse has been aborted by an exception
+     */
+    public boolean isDefunct() {
+        return defunct;
+    }
+
+    /**
+     * parse all items in order
+     *
+     * @param items items to parse
+     * @return one result per item, in the order of the items
+     */
+    public List<BatchResult> parseAll(Iterable<String> items) {
+        return parseAll(items.iterator());
+    }
+
+    /**
+     * parse all items in order
+     *
+     * @param items items to parse
+     * @return one result per item, in the order of the items
+     */
+    public List<BatchResult> parseAll(Iterator<String> items) {
+        List<BatchResult> results = new ArrayList<>();
+        for (int idx = 0; items.hasNext(); idx++)
+            results.add(parse(idx, null, items.next()));
+        return results;
+    }
+
+    private ParserRuleContext invokeEntryRule() {
+        if (entryRule == null)
+            return ((ParserInterpreter) parser).parse(entryIndex);
+        try {
+            return (ParserRuleContext) entryRule.invoke(parser, (Object[])
+                    null);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.batch;
+
+import org.snt.inmemantlr.exceptions.ParsingException;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * pool of batch parsers for concurrent tasks -- a task borrows a batch
+ * parser for the duration of a single item, so there are at most as many
+ * recognizer instances as items that are parsed at the same time. The pool
+ * is neither bound to threads nor uses locks, so that it also serves one
+ * virtual thread per request.
+ */
+public class BatchParserPool {
+
+    private final Supplier<BatchParser> factory;
+    private final Queue<BatchParser> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger idle = new AtomicInteger();
+    private final int maxIdle;
+
+    /**
+     * constructor
+     *
+     * @param factory creates a new batch parser
+     */
+    public BatchParserPool(Supplier<BatchParser> factory) {
+        this(factory, Integer.MAX_VALUE);
+    }
+
+    /**
+     * constructor
+     *
+     * @param factory creates a new batch parser
+     * @param maxIdle maximum number of idle batch parsers that are kept --
+     *                parsers beyond that are dropped after a burst
+     */
+    public BatchParserPool(Supplier<BatchParser> factory, int maxIdle) {
+        Objects.requireNonNull(factory, "factory must not be null");
+        if (maxIdle <= 0)
+            throw new IllegalArgumentException("maxIdle must be positive");
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * parse a single item with a pooled batch parser -- may be called from
+     * many threads at the same time
+     *
+     * @param toParse item to parse
+     * @return result
+     */
+    public BatchResult parse(String toParse) {
+        return parse(0, null, toParse);
+    }
+
+    /**
+     * parse a single item with a pooled batch parser -- may be called from
+     * many threads at the same time
+     *
+     * @param idx     position of the item
+     * @param source  origin of the item, null if unknown
+     * @param toParse item to parse
+     * @return result
+     */
+    public BatchResult parse(int idx, String source, String toParse) {
+        BatchParser bp = pool.poll();
+        if (bp != null)
+            idle.decrementAndGet();
+        boolean reuse = false;
+        try {
+            if (bp == null) {
+                bp = factory.get();
+                created.incrementAndGet();
+            }
+            BatchResult ret = bp.parse(idx, source, toParse);
+            reuse = !bp.isDefunct();
+            return ret;
+        } catch (RuntimeException | StackOverflowError e) {
+            return BatchResult.failure(idx, source, new ParsingException
+                    (String.valueOf(e.getMessage()), e));
+        } finally {
+            // batch parsers that died mid-parse are dropped
+            if (reuse && idle.incrementAndGet() <= maxIdle)
+                pool.offer(bp);
+            else if (reuse)
+                idle.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of batch parsers that have been created so far
+     */
+    public int getParserCount() {
+        return created.get();
+    }
+
+    /**
+     * @return number of batch parsers that are currently idle
+     */
+    public int getIdleCount() {
+        return idle.get();
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.batch;
+
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.tree.ParseTree;
+
+/**
+ * result for a single item of a batch -- either the parse tree or the
+ * error that occurred while parsing the item
+ */
+public class BatchResult {
+
+    private final int index;
+    private final String source;
+    private final ParseTree tree;
+    private final ParsingException error;
+
+    private BatchResult(int index, String source, ParseTree tree,
+                        ParsingException error) {
+        this.index = index;
+        this.source = source;
+        this.tree = tree;
+        this.error = error;
+    }
+
+    /**
+     * result of an item that has been parsed successfully
+     *
+     * @param index position of the item within the batch
+     * @param tree  parse tree, null if no tree has been built
+     * @return result
+     */
+    public static BatchResult success(int index, ParseTree tree) {
+        return success(index, null, tree);
+    }
+
+    /**
+     * result of an item that has been parsed successfully
+     *
+     * @param index  position of the item within the batch
+     * @param source origin of the item, e.g., a file path
+     * @param tree   parse tree, null if no tree has been built
+     * @return result
+     */
+    public static BatchResult success(int index, String source, ParseTree
+            tree) {
+        return new BatchResult(index, source, tree, null);
+    }
+
+    /**
+     * result of an item that could not be parsed
+     *
+     * @param index position of the item within the batch
+     * @param error the error
+     * @return result
+     */
+    public static BatchResult failure(int index, ParsingException error) {
+        return failure(index, null, error);
+    }
+
+    /**
+     * result of an item that could not be parsed
+     *
+     * @param index  position of the item within the batch
+     * @param source origin of the item, e.g., a file path
+     * @param error  the error
+     * @return result
+     */
+    public static BatchResult failure(int index, String source,
+                                      ParsingException error) {
+        return new BatchResult(index, source, null, error);
+    }
+
+    /**
+     * @return position of the item within the batch
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return origin of the item, null if unknown
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return parse tree, null for failed items
+     */
+    public ParseTree getTree() {
+        return tree;
+    }
+
+    /**
+     * @return error, null for successful items
+     */
+    public ParsingException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return (source != null ? source : String.valueOf(index)) + ": " +
+                (isSuccess() ? "ok" : error.getMessage());
+    }
+}
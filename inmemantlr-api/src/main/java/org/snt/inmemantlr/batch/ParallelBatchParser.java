@@ -0,0 +1,333 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.batch;
+
+import org.snt.inmemantlr.exceptions.ParsingException;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * parses a stream of inputs or files on an executor -- every task borrows
+ * a batch parser from a pool, so there are at most as many recognizer
+ * instances as tasks running at the same time. Results are streamed back
+ * either in input order or in completion order; in both cases at most
+ * window items are in flight or buffered, which bounds the memory needed
+ * for reordering. Errors are reported per item and do not abort the batch.
+ *
+ * Inputs are consumed lazily by the thread that iterates over the results.
+ * Instances are created by
+ * {@link org.snt.inmemantlr.GenericParser#newParallelBatchParser(String)}.
+ */
+public class ParallelBatchParser {
+
+    private final BatchParserPool pool;
+    private Executor executor = ForkJoinPool.commonPool();
+    private int window = 4 * Runtime.getRuntime().availableProcessors();
+    private boolean ordered = true;
+    private Charset charset = StandardCharsets.UTF_8;
+
+    /**
+     * constructor
+     *
+     * @param factory creates a new batch parser for a worker
+     */
+    public ParallelBatchParser(Supplier<BatchParser> factory) {
+        this.pool = new BatchParserPool(factory);
+    }
+
+    /**
+     * set the executor that runs the parse tasks -- the common fork/join
+     * pool by default
+     *
+     * @param executor executor
+     */
+    public void setExecutor(Executor executor) {
+        Objects.requireNonNull(executor, "executor must not be null");
+        this.executor = executor;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * set the maximum number of items that are parsed or wait to be
+     * consumed at the same time -- should be at least the parallelism of
+     * the executor
+     *
+     * @param window maximum number of items in flight
+     */
+    public void setWindow(int window) {
+        if (window <= 0)
+            throw new IllegalArgumentException("window must be positive");
+        this.window = window;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * @param ordered true to return results in input order, false to return
+     *                them in completion order
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * @param charset charset of the files to parse, UTF-8 by default
+     */
+    public void setCharset(Charset charset) {
+        Objects.requireNonNull(charset, "charset must not be null");
+        this.charset = charset;
+    }
+
+    /**
+     * @return number of recognizer instances that have been created so far
+     */
+    public int getParserCount() {
+        return pool.getParserCount();
+    }
+
+    /**
+     * parse inputs
+     *
+     * @param inputs inputs to parse
+     * @return results
+     */
+    public Iterator<BatchResult> parse(Iterator<String> inputs) {
+        return submit(inputs, s -> s, s -> null);
+    }
+
+    /**
+     * parse inputs
+     *
+     * @param inputs inputs to parse
+     * @return results
+     */
+    public Stream<BatchResult> parse(Stream<String> inputs) {
+        return stream(parse(inputs.iterator()));
+    }
+
+    /**
+     * parse files -- files are read by the workers; a file that cannot be
+     * read yields a failed result
+     *
+     * @param files files to parse
+     * @return results, the source of a result is the path of its file
+     */
+    public Iterator<BatchResult> parseFiles(Iterator<Path> files) {
+        return submit(files, p -> new String(Files.readAllBytes(p), charset),
+                Path::toString);
+    }
+
+    /**
+     * parse files -- files are read by the workers; a file that cannot be
+     * read yields a failed result
+     *
+     * @param files files to parse
+     * @return results, the source of a result is the path of its file
+     */
+    public Stream<BatchResult> parseFiles(Stream<Path> files) {
+        return stream(parseFiles(files.iterator()));
+    }
+
+    private interface Reader<T> {
+        String read(T item) throws IOException;
+    }
+
+    private interface Naming<T> {
+        String name(T item);
+    }
+
+    private <T> Iterator<BatchResult> submit(Iterator<T> items, Reader<T>
+            reader, Naming<T> naming) {
+        return ordered ? new OrderedResults<>(items, reader, naming) : new
+                CompletionResults<>(items, reader, naming);
+    }
+
+    private static Stream<BatchResult> stream(Iterator<BatchResult> results) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize
+                (results, Spliterator.NONNULL), false);
+    }
+
+    private <T> BatchResult run(int idx, T item, Reader<T> reader, Naming<T>
+            naming) {
+        String source = naming.name(item);
+        String input;
+        try {
+            input = reader.read(item);
+        } catch (IOException e) {
+            return BatchResult.failure(idx, source, new ParsingException
+                    ("cannot read " + source + ": " + e.getMessage(), e));
+        } catch (Throwable e) {
+            // e.g., an OutOfMemoryError for a huge file
+            return BatchResult.failure(idx, source, new ParsingException
+                    ("cannot read " + source + ": " + e, e));
+        }
+        try {
+            return pool.parse(idx, source, input);
+        } catch (Throwable e) {
+            // a result is delivered for every item
+            return BatchResult.failure(idx, source, new ParsingException
+                    (String.valueOf(e.getMessage()), e));
+        }
+    }
+
+    private static <T> BatchResult rejected(int idx, T item, Naming<T>
+            naming, RejectedExecutionException e) {
+        return BatchResult.failure(idx, naming.name(item), new
+                ParsingException("parse task rejected", e));
+    }
+
+    /**
+     * results in input order -- the head of the window is awaited while the
+     * remaining items are parsed; items are submitted once results are
+     * requested
+     */
+    private class OrderedResults<T> implements Iterator<BatchResult> {
+
+        private final Iterator<T> items;
+        private final Reader<T> reader;
+        private final Naming<T> naming;
+        private final Deque<CompletableFuture<BatchResult>> pending = new
+                ArrayDeque<>();
+        private int next = 0;
+
+        OrderedResults(Iterator<T> items, Reader<T> reader, Naming<T>
+                naming) {
+            this.items = items;
+            this.reader = reader;
+            this.naming = naming;
+        }
+
+        private void fill() {
+            while (pending.size() < window && items.hasNext()) {
+                int idx = next++;
+                T item = items.next();
+                CompletableFuture<BatchResult> f;
+                try {
+                    f = CompletableFuture.supplyAsync(() -> run(idx, item,
+                            reader, naming), executor);
+                } catch (RejectedExecutionException e) {
+                    f = CompletableFuture.completedFuture(rejected(idx, item,
+                            naming, e));
+                }
+                pending.add(f);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public BatchResult next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            CompletableFuture<BatchResult> head = pending.poll();
+            fill();
+            return head.join();
+        }
+    }
+
+    /**
+     * results in completion order -- items are submitted once results are
+     * requested
+     */
+    private class CompletionResults<T> implements Iterator<BatchResult> {
+
+        private final Iterator<T> items;
+        private final Reader<T> reader;
+        private final Naming<T> naming;
+        private final BlockingQueue<BatchResult> done = new
+                LinkedBlockingQueue<>();
+        private int inFlight = 0;
+        private int next = 0;
+
+        CompletionResults(Iterator<T> items, Reader<T> reader, Naming<T>
+                naming) {
+            this.items = items;
+            this.reader = reader;
+            this.naming = naming;
+        }
+
+        private void fill() {
+            while (inFlight < window && items.hasNext()) {
+                int idx = next++;
+                T item = items.next();
+                inFlight++;
+                try {
+                    executor.execute(() -> done.add(run(idx, item, reader,
+                            naming)));
+                } catch (RejectedExecutionException e) {
+                    done.add(rejected(idx, item, naming, e));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return inFlight > 0;
+        }
+
+        @Override
+        public BatchResult next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            BatchResult r;
+            try {
+                r = done.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("interrupted while waiting " +
+                        "for results");
+            }
+            inFlight--;
+            fill();
+            return r;
+        }
+    }
+}
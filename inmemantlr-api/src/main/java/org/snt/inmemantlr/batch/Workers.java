@@ -0,0 +1,66 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.batch;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * executors for running parse tasks with one thread per task. On JDK 21+,
+ * the multi-release jar replaces this class with a variant that uses
+ * virtual threads; this variant uses a cached pool of platform threads.
+ */
+public final class Workers {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private Workers() {
+    }
+
+    /**
+     * @return true if the executors of this class use virtual threads
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+
+    /**
+     * create an executor that runs every task in a thread of its own
+     *
+     * @return executor that must be shut down by the caller
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "inmemantlr-worker-" + THREADS
+                    .incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.capture;
+
+import org.snt.inmemantlr.GenericParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * an input that has been saved by {@link InputCapture}
+ */
+public class CapturedInput {
+
+    private final File file;
+    private final Properties meta;
+    private final String input;
+
+    private CapturedInput(File file, Properties meta, String input) {
+        this.file = file;
+        this.meta = meta;
+        this.input = input;
+    }
+
+    /**
+     * load a single capture
+     *
+     * @param file input or properties file of the capture
+     * @return captured input
+     * @throws IOException if the capture cannot be read
+     */
+    public static CapturedInput load(File file) throws IOException {
+        String name = file.getName();
+        String base = name.substring(0, name.lastIndexOf('.'));
+        File in = new File(file.getParentFile(), base + InputCapture
+                .INPUT_SUFFIX);
+        File meta = new File(file.getParentFile(), base + InputCapture
+                .META_SUFFIX);
+
+        Properties p = new Properties();
+        try (InputStream is = Files.newInputStream(meta.toPath())) {
+            p.load(is);
+        }
+        return new CapturedInput(in, p, new String(Files.readAllBytes(in
+                .toPath()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * load all captures of a directory, slowest first
+     *
+     * @param dir capture directory
+     * @return captured inputs
+     * @throws IOException if a capture cannot be read
+     */
+    public static List<CapturedInput> loadAll(File dir) throws IOException {
+        List<CapturedInput> ret = new ArrayList<>();
+        File[] files = dir.listFiles((d, n) -> n.endsWith(InputCapture
+                .INPUT_SUFFIX));
+        if (files == null)
+            return ret;
+        for (File f : files)
+            ret.add(load(f));
+        ret.sort(Comparator.comparingLong(CapturedInput::getNanos).reversed());
+        return ret;
+    }
+
+    /**
+     * check whether the capture has been taken with the same lexer and
+     * parser as the given one
+     *
+     * @param gp generic parser
+     * @return true if the fingerprints match
+     */
+    public boolean matches(GenericParser gp) {
+        return getFingerprint().equals(InputCapture.fingerprint(gp));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public String getGrammar() {
+        return meta.getProperty("grammar");
+    }
+
+    public String getFingerprint() {
+        return meta.getProperty("fingerprint", "");
+    }
+
+    /**
+     * @return entry rule, null if the input has only been lexed
+     */
+    public String getRule() {
+        return meta.getProperty("rule");
+    }
+
+    public long getLexNanos() {
+        return Long.parseLong(meta.getProperty("lexNanos", "0"));
+    }
+
+    public long getParseNanos() {
+        return Long.parseLong(meta.getProperty("parseNanos", "0"));
+    }
+
+    /**
+     * @return time spent in lexer and parser
+     */
+    public long getNanos() {
+        return getLexNanos() + getParseNanos();
+    }
+
+    public int getTokens() {
+        return Integer.parseInt(meta.getProperty("tokens", "0"));
+    }
+
+    public String getHash() {
+        return meta.getProperty("sha256");
+    }
+
+    public long getTimestamp() {
+        return Long.parseLong(meta.getProperty("timestamp", "0"));
+    }
+
+    @Override
+    public String toString() {
+        return file.getName() + " (" + getGrammar() + ", " + getTokens() +
+                " tokens, " + getNanos() / 1000000 + " ms)";
+    }
+}
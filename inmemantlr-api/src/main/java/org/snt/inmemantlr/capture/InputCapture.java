@@ -0,0 +1,299 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.capture;
+
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * saves inputs of slow lexer and parser calls to a capture directory so that
+ * they can be replayed later -- an input is captured if the call exceeds the
+ * latency or the token threshold. Every capture consists of the input and a
+ * properties file with grammar, entry rule, timings, content hash and a
+ * fingerprint of the lexer and parser ATNs. Captures are rate limited, and
+ * no more captures are written once the directory exceeds its size cap.
+ * Failures to write a capture are logged and never affect the parse.
+ */
+public class InputCapture {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InputCapture.class);
+
+    public static final String INPUT_SUFFIX = ".input";
+    public static final String META_SUFFIX = ".properties";
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final File dir;
+    private final Deque<Long> recent = new ArrayDeque<>();
+    private final Map<GenericParser, String> fingerprints = new WeakHashMap<>();
+
+    private volatile long latencyThreshold = TimeUnit.SECONDS.toNanos(1);
+    private volatile int tokenThreshold = Integer.MAX_VALUE;
+    private volatile int maxPerMinute = 10;
+    private volatile long maxSize = 64L * 1024 * 1024;
+
+    private long size;
+    private long captured;
+    private long rateLimited;
+    private long sizeLimited;
+
+    /**
+     * constructor
+     *
+     * @param dir capture directory -- created if it does not exist
+     * @throws IOException if the directory cannot be created
+     */
+    public InputCapture(File dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir.toPath());
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files)
+                size += f.length();
+        }
+    }
+
+    public File getDirectory() {
+        return dir;
+    }
+
+    /**
+     * capture calls that take at least the given time
+     *
+     * @param threshold latency threshold
+     * @param unit      time unit
+     */
+    public void setLatencyThreshold(long threshold, TimeUnit unit) {
+        this.latencyThreshold = unit.toNanos(threshold);
+    }
+
+    /**
+     * capture calls that yield at least the given number of tokens
+     *
+     * @param tokenThreshold token threshold
+     */
+    public void setTokenThreshold(int tokenThreshold) {
+        this.tokenThreshold = tokenThreshold;
+    }
+
+    /**
+     * limit the number of captures that are written within a minute
+     *
+     * @param maxPerMinute maximum number of captures per minute
+     */
+    public void setRateLimit(int maxPerMinute) {
+        this.maxPerMinute = maxPerMinute;
+    }
+
+    /**
+     * stop capturing once the directory holds the given number of bytes
+     *
+     * @param maxSize size cap in bytes
+     */
+    public void setSizeCap(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * check whether a call is slow enough to be captured
+     *
+     * @param nanos  duration of the call
+     * @param tokens number of tokens
+     * @return true if one of the thresholds is exceeded
+     */
+    public boolean exceeds(long nanos, int tokens) {
+        return nanos >= latencyThreshold || tokens >= tokenThreshold;
+    }
+
+    /**
+     * capture an input if one of the thresholds is exceeded
+     *
+     * @param gp         generic parser that processed the input
+     * @param rule       entry rule, null for lexer calls
+     * @param input      input
+     * @param lexNanos   time spent in the lexer
+     * @param parseNanos time spent in the parser
+     * @param tokens     number of tokens
+     * @return true if the input has been captured
+     */
+    public boolean capture(GenericParser gp, String rule, String input, long
+            lexNanos, long parseNanos, int tokens) {
+        if (!exceeds(lexNanos + parseNanos, tokens))
+            return false;
+
+        byte[] content = input.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(content);
+        String name = gp.getGrammarName() + "-" + hash.substring(0, 16);
+        File in = new File(dir, name + INPUT_SUFFIX);
+        File meta = new File(dir, name + META_SUFFIX);
+
+        synchronized (this) {
+            // the same input has already been captured
+            if (in.exists())
+                return false;
+
+            long now = System.nanoTime();
+            while (!recent.isEmpty() && now - recent.peekFirst() > MINUTE)
+                recent.removeFirst();
+            if (recent.size() >= maxPerMinute) {
+                rateLimited++;
+                return false;
+            }
+            if (size + content.length > maxSize) {
+                sizeLimited++;
+                return false;
+            }
+
+            Properties p = new Properties();
+            p.setProperty("grammar", gp.getGrammarName());
+            p.setProperty("fingerprint", getFingerprint(gp));
+            if (rule != null)
+                p.setProperty("rule", rule);
+            p.setProperty("lexNanos", Long.toString(lexNanos));
+            p.setProperty("parseNanos", Long.toString(parseNanos));
+            p.setProperty("tokens", Integer.toString(tokens));
+            p.setProperty("length", Integer.toString(input.length()));
+            p.setProperty("sha256", hash);
+            p.setProperty("timestamp", Long.toString(System
+                    .currentTimeMillis()));
+
+            try {
+                Files.write(in.toPath(), content, StandardOpenOption
+                        .CREATE_NEW);
+                try (OutputStream os = Files.newOutputStream(meta.toPath())) {
+                    p.store(os, "inmemantlr input capture");
+                }
+            } catch (IOException e) {
+                LOGGER.warn("cannot capture input: {}", e.getMessage());
+                return false;
+            }
+
+            recent.addLast(now);
+            size += in.length() + meta.length();
+            captured++;
+        }
+        LOGGER.debug("captured input {} ({} tokens, {} ns)", name, tokens,
+                lexNanos + parseNanos);
+        return true;
+    }
+
+    /**
+     * @return number of inputs that were captured
+     */
+    public synchronized long getCaptured() {
+        return captured;
+    }
+
+    /**
+     * @return number of inputs that were dropped due to the rate limit
+     */
+    public synchronized long getRateLimited() {
+        return rateLimited;
+    }
+
+    /**
+     * @return number of inputs that were dropped due to the size cap
+     */
+    public synchronized long getSizeLimited() {
+        return sizeLimited;
+    }
+
+    /**
+     * @return number of bytes in the capture directory
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private synchronized String getFingerprint(GenericParser gp) {
+        return fingerprints.computeIfAbsent(gp, InputCapture::fingerprint);
+    }
+
+    /**
+     * compute the fingerprint of a compiled or loaded parser -- the hash of
+     * the serialized lexer and parser ATNs which does not depend on the
+     * backend that created them
+     *
+     * @param gp generic parser
+     * @return fingerprint
+     */
+    public static String fingerprint(GenericParser gp) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            append(sb, gp.getLexerATN());
+        } catch (IllegalWorkflowException e) {
+            // no lexer
+        }
+        try {
+            append(sb, gp.getParserATN());
+        } catch (IllegalWorkflowException e) {
+            // lexer grammar
+        }
+        return sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void append(StringBuilder sb, ATN atn) {
+        if (atn == null)
+            return;
+        for (int i : ATNSerializer.getSerialized(atn).toArray())
+            sb.append(i).append(',');
+        sb.append(';');
+    }
+
+    private static String sha256(byte[] content) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest(content))
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+}
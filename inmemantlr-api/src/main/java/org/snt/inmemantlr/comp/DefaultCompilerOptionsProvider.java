@@ -52,8 +52,9 @@ public class DefaultCompilerOptionsProvider implements CompilerOptionsProvider {
         List<String> optionList = new ArrayList<>();
         //optionList.addAll(cp);
         //String cpstring = cp.stream().map(c -> c + ":").reduce(String::new);
+        // the oldest source level that javac still accepts on JDK 21+
         optionList.add("-source");
-        optionList.add("1.7");
+        optionList.add("1.8");
         return optionList;
     }
 }
@@ -0,0 +1,116 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.comp;
+
+import org.antlr.v4.codegen.CodeGenerator;
+import org.antlr.v4.codegen.Target;
+import org.antlr.v4.codegen.target.JavaTarget;
+import org.antlr.v4.tool.Grammar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.stringtemplate.v4.STGroup;
+import org.stringtemplate.v4.STGroupFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * code generator for the Java target that overlays the ANTLR Java
+ * templates with additional string template groups -- templates that are
+ * defined in an overlay group replace the ones of the Java target
+ */
+public class InmemantlrCodeGenerator extends CodeGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InmemantlrCodeGenerator.class);
+
+    private final List<String> groups;
+    private Target target = null;
+
+    /**
+     * constructor
+     *
+     * @param g      antlr grammar object
+     * @param groups class path resources of the string template groups
+     *               that are overlayed in the given order
+     */
+    public InmemantlrCodeGenerator(Grammar g, String... groups) {
+        super(g.tool, g, "Java");
+        this.groups = new ArrayList<>(Arrays.asList(groups));
+    }
+
+    @Override
+    public Target getTarget() {
+        if (target == null)
+            target = new OverlayJavaTarget(this, groups);
+        return target;
+    }
+
+    /**
+     * Java target that loads the overlay groups on top of the Java
+     * templates
+     */
+    private static class OverlayJavaTarget extends JavaTarget {
+
+        // like the Java templates, the overlays are cached per thread
+        // because string template groups are not thread-safe
+        private static final ThreadLocal<Map<List<String>, STGroup>>
+                overlays = ThreadLocal.withInitial(HashMap::new);
+
+        private final List<String> groups;
+
+        OverlayJavaTarget(CodeGenerator gen, List<String> groups) {
+            super(gen);
+            this.groups = groups;
+        }
+
+        @Override
+        protected STGroup loadTemplates() {
+            STGroup java = super.loadTemplates();
+            Map<List<String>, STGroup> cache = overlays.get();
+
+            STGroup top = cache.get(groups);
+            if (top != null)
+                return top;
+
+            top = java;
+            for (String group : groups) {
+                LOGGER.debug("load template group {}", group);
+                STGroup overlay = new STGroupFile(group);
+                overlay.importTemplates(top);
+                overlay.registerRenderer(String.class, new JavaStringRenderer() {
+                }, true);
+                top = overlay;
+            }
+            cache.put(groups, top);
+            return top;
+        }
+    }
+}
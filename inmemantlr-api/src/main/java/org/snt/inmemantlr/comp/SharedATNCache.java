@@ -0,0 +1,122 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.comp;
+
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNDeserializer;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * cache for deserialized ATNs and their DFA caches -- generated
+ * recognizers that are compiled with the shared ATN templates obtain
+ * their ATN from here such that all classes that are generated from the
+ * same grammar share a single ATN and DFA cache; entries are removed once
+ * the classes that use them are unloaded
+ */
+public final class SharedATNCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedATNCache.class);
+
+    // the serialized ATN strings are kept alive by the generated classes
+    private static final Map<String, Entry> atns = new WeakHashMap<>();
+
+    private SharedATNCache() {
+    }
+
+    /**
+     * get the ATN for the given serialized ATN
+     *
+     * @param serializedATN serialized ATN
+     * @return deserialized ATN
+     */
+    public static ATN getATN(String serializedATN) {
+        return getEntry(serializedATN).getATN();
+    }
+
+    /**
+     * get the DFA cache for the given serialized ATN
+     *
+     * @param serializedATN serialized ATN
+     * @return DFA cache with one DFA per decision
+     */
+    public static DFA[] getDecisionToDFA(String serializedATN) {
+        return getEntry(serializedATN).getDecisionToDFA();
+    }
+
+    /**
+     * get the number of cached ATNs
+     *
+     * @return number of cached ATNs
+     */
+    public static synchronized int size() {
+        return atns.size();
+    }
+
+    private static synchronized Entry getEntry(String serializedATN) {
+        return atns.computeIfAbsent(serializedATN, Entry::new);
+    }
+
+    /**
+     * lazily deserialized ATN
+     */
+    private static class Entry {
+
+        // no reference to the key, otherwise the entry is never removed
+        private final char[] serializedATN;
+        private ATN atn = null;
+        private DFA[] decisionToDFA = null;
+
+        Entry(String serializedATN) {
+            this.serializedATN = serializedATN.toCharArray();
+        }
+
+        synchronized ATN getATN() {
+            if (atn == null) {
+                LOGGER.debug("deserialize ATN");
+                atn = new ATNDeserializer().deserialize(serializedATN);
+            }
+            return atn;
+        }
+
+        synchronized DFA[] getDecisionToDFA() {
+            if (decisionToDFA == null) {
+                ATN a = getATN();
+                decisionToDFA = new DFA[a.getNumberOfDecisions()];
+                for (int i = 0; i < decisionToDFA.length; i++) {
+                    decisionToDFA[i] = new DFA(a.getDecisionState(i), i);
+                }
+            }
+            return decisionToDFA;
+        }
+    }
+}
@@ -28,6 +28,9 @@ package org.snt.inmemantlr.comp;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.snt.inmemantlr.jfr.Phase;
+import org.snt.inmemantlr.jfr.PhaseEvent;
+import org.snt.inmemantlr.jfr.PhaseEvents;
 import org.snt.inmemantlr.memobjects.MemoryByteCode;
 
 import java.util.HashMap;
@@ -54,16 +57,27 @@ class SpecialClassLoader extends ClassLoader {
      * @throws ClassNotFoundException if the class could not be found
      */
     protected Class<?> findClass(String name) throws ClassNotFoundException {
-        MemoryByteCode mbc = m.get(name);
-        if (mbc == null) {
-            mbc = m.get(name.replace(".", "/"));
+        // classes can be requested concurrently, e.g., by an eager
+        // initialization running in the background
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz != null)
+                return clazz;
+
+            MemoryByteCode mbc = m.get(name);
             if (mbc == null) {
-                LOGGER.error("Could not find {}", name);
-                return super.findClass(name);
+                mbc = m.get(name.replace(".", "/"));
+                if (mbc == null) {
+                    LOGGER.error("Could not find {}", name);
+                    return super.findClass(name);
+                }
             }
+            byte[] bseq = mbc.getBytes();
+            PhaseEvent ev = PhaseEvents.begin(Phase.CLASS_DEFINITION);
+            Class<?> defined = defineClass(name, bseq, 0, bseq.length);
+            ev.finish(null, name, bseq.length, 0);
+            return defined;
         }
-        byte[] bseq = mbc.getBytes();
-        return defineClass(name, bseq, 0, bseq.length);
     }
 
     /**
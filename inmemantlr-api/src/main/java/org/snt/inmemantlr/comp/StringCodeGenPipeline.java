@@ -37,23 +37,36 @@ import org.antlr.v4.codegen.model.ParserFile;
 import org.antlr.v4.codegen.model.VisitorFile;
 import org.antlr.v4.parse.ANTLRParser;
 import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.ATNSerializer;
+import org.antlr.v4.runtime.atn.DecisionState;
 import org.antlr.v4.runtime.misc.IntervalSet;
 import org.antlr.v4.tool.ErrorType;
 import org.antlr.v4.tool.Grammar;
 import org.antlr.v4.tool.LexerGrammar;
+import org.antlr.v4.tool.Rule;
 import org.antlr.v4.tool.ast.GrammarAST;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.snt.inmemantlr.grammar.InmemantlrGrammar;
+import org.snt.inmemantlr.jfr.Phase;
+import org.snt.inmemantlr.jfr.PhaseEvent;
+import org.snt.inmemantlr.jfr.PhaseEvents;
+import org.snt.inmemantlr.memobjects.MemoryATN;
 import org.snt.inmemantlr.memobjects.MemorySource;
+import org.snt.inmemantlr.tool.InmemantlrTool;
 import org.stringtemplate.v4.ST;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * extended code gen pipeline for compiling
@@ -68,6 +81,7 @@ public class StringCodeGenPipeline extends CodeGenPipeline implements CunitProvi
 
     private ST parser, lexer, visitor, listener, baseListener, baseVisitor;
     private ST tokenvocab;
+    private Collection<MemorySource> items = null;
 
     /**
      * constructor
@@ -223,8 +237,10 @@ public class StringCodeGenPipeline extends CodeGenPipeline implements CunitProvi
      * compile lexer and parser
      */
     public void process() {
+        items = null;
 
-        CodeGenerator cgen = new CodeGenerator(g);
+        boolean lean = isLean();
+        CodeGenerator cgen = createCodeGenerator(g, lean);
         IntervalSet idTypes = new IntervalSet();
         idTypes.add(ANTLRParser.ID);
         idTypes.add(ANTLRParser.RULE_REF);
@@ -243,13 +259,13 @@ public class StringCodeGenPipeline extends CodeGenPipeline implements CunitProvi
         } else {
             parser = cgen.generateParser();
 
-            if (g.tool.gen_listener) {
+            if (g.tool.gen_listener && !lean) {
                 listener = cgen.generateListener();
                 if (cgen.getTarget().wantsBaseListener()) {
                     baseListener = cgen.generateBaseListener();
                 }
             }
-            if (g.tool.gen_visitor) {
+            if (g.tool.gen_visitor && !lean) {
                 visitor = cgen.generateVisitor();
                 if (cgen.getTarget().wantsBaseVisitor()) {
                     baseVisitor = cgen.generateBaseVisitor();
@@ -258,15 +274,162 @@ public class StringCodeGenPipeline extends CodeGenPipeline implements CunitProvi
 
             LexerGrammar lg;
             if ((lg = g.implicitLexer) != null) {
-                CodeGenerator lgcg = new CodeGenerator(lg);
+                CodeGenerator lgcg = createCodeGenerator(lg, lean);
                 lexer = lgcg.generateLexer();
             }
 
         }
 
+        processTokenVocab();
+    }
+
+    /**
+     * check whether the code for this grammar is generated with the lean
+     * template overlay
+     *
+     * @return true if lean code is generated, false otherwise
+     */
+    public boolean isLean() {
+        return g.tool instanceof InmemantlrTool &&
+                ((InmemantlrTool) g.tool).isLeanCodeGeneration() &&
+                !hasEmbeddedCode();
+    }
+
+    private static CodeGenerator createCodeGenerator(Grammar gr, boolean lean) {
+        List<String> groups = new ArrayList<>();
+        if (lean)
+            groups.add(InmemantlrTool.LEAN_TEMPLATES);
+        if (gr.tool instanceof InmemantlrTool &&
+                ((InmemantlrTool) gr.tool).isSharedATN())
+            groups.add(InmemantlrTool.SHARED_ATN_TEMPLATES);
+
+        if (groups.isEmpty())
+            return new CodeGenerator(gr);
+        return new InmemantlrCodeGenerator(gr, groups.toArray(new String[0]));
+    }
+
+    /**
+     * only compute the token vocab without generating any code
+     */
+    public void processTokenVocab() {
         tokenvocab = getTokenVocabOutput();
     }
 
+    /**
+     * check whether the grammar (or its implicit lexer) contains embedded
+     * actions, predicates or custom super classes -- such grammars cannot be
+     * interpreted and have to be compiled
+     *
+     * @return true if grammar contains embedded code, false otherwise
+     */
+    public boolean hasEmbeddedCode() {
+        if (hasEmbeddedCode(g))
+            return true;
+
+        return g.implicitLexer != null && hasEmbeddedCode(g.implicitLexer);
+    }
+
+    private static boolean hasEmbeddedCode(Grammar gr) {
+        if (gr.getOptionString("superClass") != null ||
+                gr.getOptionString("contextSuperClass") != null)
+            return true;
+
+        IntervalSet codeTypes = new IntervalSet();
+        codeTypes.add(ANTLRParser.ACTION);
+        codeTypes.add(ANTLRParser.SEMPRED);
+
+        // grammar-level named actions such as @header or @members are not
+        // executed by themselves
+        return gr.ast.getNodesWithType(codeTypes).stream()
+                .anyMatch(n -> n.getParent().getType() != ANTLRParser.AT ||
+                        n.getParent().getParent() != gr.ast);
+    }
+
+    /**
+     * get the serialized ATNs of lexer and parser -- the grammar has
+     * to be processed by the tool beforehand
+     *
+     * @return collection of memory ATNs
+     */
+    public Collection<MemoryATN> getATNs() {
+        Collection<MemoryATN> ret = new ArrayList<>();
+        if (g.isLexer()) {
+            ret.add(createATN(g));
+        } else {
+            if (g.implicitLexer != null)
+                ret.add(createATN(g.implicitLexer));
+            ret.add(createATN(g));
+        }
+        return ret;
+    }
+
+    /**
+     * map the decisions of the parser ATN back to the lines of the grammar
+     * they originate from -- the grammar has to be processed by the tool
+     * beforehand
+     *
+     * @return grammar line per decision number, null for lexer grammars
+     */
+    public int[] getDecisionLines() {
+        if (g.isLexer() || g.atn == null)
+            return null;
+
+        Map<Integer, Integer> lines = new HashMap<>();
+        Deque<GrammarAST> todo = new ArrayDeque<>();
+        todo.push(g.ast);
+        while (!todo.isEmpty()) {
+            GrammarAST n = todo.pop();
+            if (n.atnState != null && n.getLine() > 0)
+                lines.putIfAbsent(n.atnState.stateNumber, n.getLine());
+            for (int i = 0; i < n.getChildCount(); i++) {
+                if (n.getChild(i) instanceof GrammarAST)
+                    todo.push((GrammarAST) n.getChild(i));
+            }
+        }
+
+        int[] ret = new int[g.atn.getNumberOfDecisions()];
+        for (int d = 0; d < ret.length; d++) {
+            DecisionState s = g.atn.getDecisionState(d);
+            Integer line = lines.get(s.stateNumber);
+
+            // loop back decisions are not associated with an AST node
+            for (int t = 0; line == null && t < s.getNumberOfTransitions(); t++)
+                line = lines.get(s.transition(t).target.stateNumber);
+
+            if (line == null) {
+                Rule r = g.getRule(s.ruleIndex);
+                line = r != null ? r.ast.getLine() : -1;
+            }
+            ret[d] = line;
+        }
+        return ret;
+    }
+
+    private static MemoryATN createATN(Grammar gr) {
+        Objects.requireNonNull(gr.atn, "atn of grammar " + gr.name + " must " +
+                "not be null");
+
+        String pfx = gr.tool.genPackage != null && !gr.tool.genPackage
+                .isEmpty() ? gr.tool.genPackage + "." : "";
+
+        String[] channels = new String[0];
+        String[] modes = new String[0];
+
+        if (gr.isLexer()) {
+            List<String> cn = new ArrayList<>();
+            cn.add("DEFAULT_TOKEN_CHANNEL");
+            cn.add("HIDDEN");
+            cn.addAll(gr.channelValueToNameList);
+            channels = cn.toArray(new String[0]);
+            modes = ((LexerGrammar) gr).modes.keySet().toArray(new String[0]);
+        }
+
+        return new MemoryATN(pfx + gr.getRecognizerName(), gr.fileName,
+                gr.isLexer(), ATNSerializer.getSerializedAsChars(gr.atn),
+                gr.getTokenLiteralNames(), gr.getTokenSymbolicNames(),
+                gr.getRuleNames(), channels, modes);
+    }
+
     ST getTokenVocabOutput() {
         ST vocabFileST = new ST(CodeGenerator.vocabFilePattern);
         Map<String, Integer> tokens = new LinkedHashMap<>();
@@ -394,30 +557,55 @@ public class StringCodeGenPipeline extends CodeGenPipeline implements CunitProvi
         return o instanceof StringCodeGenPipeline && name.equals(((StringCodeGenPipeline) o).name);
     }
 
+    /**
+     * get the generated sources -- the templates are rendered once after
+     * processing the grammar
+     *
+     * @return generated sources
+     */
     @Override
     public Collection<MemorySource> getItems() {
+        if (items != null)
+            return items;
         Collection<MemorySource> ret = new ArrayList<>();
         if (hasLexer()) {
-            ret.add(new MemorySource(getLexerName(), lexer.render()));
+            ret.add(render(getLexerName(), lexer));
         }
         if (hasBaseListener()) {
-            ret.add(new MemorySource(getBaseListenerName(), baseListener.render()));
+            ret.add(render(getBaseListenerName(), baseListener));
         }
         if (hasBaseVisitor()) {
-            ret.add(new MemorySource(getBaseVisitorName(), baseVisitor.render()));
+            ret.add(render(getBaseVisitorName(), baseVisitor));
         }
         if (hasParser()) {
-            ret.add(new MemorySource(getParserName(), parser.render()));
+            ret.add(render(getParserName(), parser));
         }
         if (hasListener()) {
-            ret.add(new MemorySource(getListenerName(), listener.render()));
+            ret.add(render(getListenerName(), listener));
         }
         if (hasVisitor()) {
-            ret.add(new MemorySource(getVisitorName(), visitor.render()));
+            ret.add(render(getVisitorName(), visitor));
         }
+        // nothing to cache before the grammar has been processed
+        if (!ret.isEmpty())
+            items = Collections.unmodifiableCollection(ret);
         return ret;
     }
 
+    /**
+     * render a template into a memory source
+     *
+     * @param name class name
+     * @param st template to render
+     * @return memory source
+     */
+    private MemorySource render(String name, ST st) {
+        PhaseEvent ev = PhaseEvents.begin(Phase.CODE_GENERATION);
+        String src = st.render();
+        ev.finish(g.name, name, g.rules.size(), src.length());
+        return new MemorySource(name, src);
+    }
+
     @Override
     public boolean hasItems() {
         return !getItems().isEmpty();
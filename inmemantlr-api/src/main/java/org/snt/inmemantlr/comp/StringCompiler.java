@@ -29,10 +29,19 @@ package org.snt.inmemantlr.comp;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.LexerInterpreter;
 import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserInterpreter;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.snt.inmemantlr.exceptions.CompilationErrorException;
+import org.snt.inmemantlr.jfr.Phase;
+import org.snt.inmemantlr.jfr.PhaseEvent;
+import org.snt.inmemantlr.jfr.PhaseEvents;
+import org.snt.inmemantlr.memobjects.MemoryATN;
 import org.snt.inmemantlr.memobjects.MemoryByteCode;
 import org.snt.inmemantlr.memobjects.MemorySource;
 import org.snt.inmemantlr.memobjects.MemoryTupleSet;
@@ -44,6 +53,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * a compiler for strings
@@ -58,7 +68,8 @@ public class StringCompiler {
     private MemoryTupleSet mt = null;
     private Map<String, Lexer> lexer = null;
     private Map<String, Parser> parser = null;
-    private Map<String, Class<?>> classes = new HashMap<>();
+    private Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+    private Map<String, MemoryATN> atns = new LinkedHashMap<>();
 
 
     /**
@@ -66,8 +77,8 @@ public class StringCompiler {
      */
     public StringCompiler() {
         cl = new SpecialClassLoader(getClass().getClassLoader());
-        lexer = new HashMap<>();
-        parser = new HashMap<>();
+        lexer = new ConcurrentHashMap<>();
+        parser = new ConcurrentHashMap<>();
         mt = new MemoryTupleSet();
     }
 
@@ -79,6 +90,18 @@ public class StringCompiler {
         mset.forEach(tup -> tup.getByteCodeObjects().forEach(bc -> cl.addClass(bc)));
     }
 
+    /**
+     * load ATNs that should be interpreted instead of being compiled
+     *
+     * @param matns collection of memory ATNs
+     */
+    public void load(Collection<MemoryATN> matns) {
+        if (matns == null || matns.isEmpty())
+            throw new IllegalArgumentException("matns must not be null or empty");
+
+        matns.forEach(a -> atns.put(a.getClassName(), a));
+    }
+
     private static final Class<?>[] parameters = new Class[]{URL.class};
 
     /**
@@ -98,12 +121,10 @@ public class StringCompiler {
         List<MemorySource> cunit = new ArrayList<>();
         Set<MemorySource> mset = new HashSet<>();
 
-        for (CunitProvider sc : units) {
+        for (CunitProvider sc : units)
             cunit.addAll(sc.getItems());
-            for (MemorySource ms : sc.getItems()) {
-                LOGGER.debug(ms.toString());
-            }
-        }
+        for (MemorySource ms : cunit)
+            LOGGER.debug(ms.toString());
 
         mset.addAll(cunit);
 
@@ -119,14 +140,18 @@ public class StringCompiler {
         JavaCompiler.CompilationTask compile = javac.getTask(out, fileManager,
                 dlistener, optionList, classes, cunit);
 
+        PhaseEvent ev = PhaseEvents.begin(Phase.COMPILATION);
+
         boolean failedCompilation = !compile.call();
 
         if (failedCompilation) {
+            ev.finish(unitNames(cunit), null, sourceSize(cunit), 0);
             throw new CompilationErrorException(out.toString());
         }
 
         // note that for the memory-source -- we just store the class name
         // the corresponding byte code
+        long bytes = 0;
         for (MemorySource ms : mset) {
             Set<MemoryByteCode> mb = fileManager.getByteCodeFromClass(ms.getClassName());
             if (mb.isEmpty())
@@ -134,7 +159,21 @@ public class StringCompiler {
 
             // book keeping of source-bytecode tuples
             mt.addMemoryTuple(ms, mb);
+            bytes += mb.stream().mapToLong(b -> b.getBytes().length).sum();
         }
+
+        ev.finish(unitNames(cunit), null, sourceSize(cunit), bytes);
+    }
+
+    private static String unitNames(List<MemorySource> cunit) {
+        StringJoiner names = new StringJoiner(",");
+        cunit.forEach(ms -> names.add(ms.getClassName()));
+        return names.toString();
+    }
+
+    private static long sourceSize(List<MemorySource> cunit) {
+        return cunit.stream().mapToLong(ms -> ms.getCharContent(true)
+                .length()).sum();
     }
 
     /**
@@ -144,18 +183,17 @@ public class StringCompiler {
      * @return a class
      */
     private Class<?> findClass(String cname) {
-        Class<?> clazz;
+        // no lock for classes that are already known -- the class loader
+        // serializes the definition of new ones
+        Class<?> clazz = classes.get(cname);
+        if (clazz != null)
+            return clazz;
         try {
-            if (classes.containsKey(cname)) {
-                clazz = classes.get(cname);
-            } else {
-                clazz = cl.findClass(cname);
-                classes.put(cname, clazz);
-            }
+            clazz = cl.findClass(cname);
         } catch (ClassNotFoundException e) {
             return null;
         }
-
+        classes.putIfAbsent(cname, clazz);
         return clazz;
     }
 
@@ -178,6 +216,13 @@ public class StringCompiler {
             return elexer;
         }
 
+        if (atns.containsKey(lexerClassName)) {
+            elexer = interpretLexer(input, atns.get(lexerClassName));
+            if (useCached)
+                lexer.put(lexerClassName, elexer);
+            return elexer;
+        }
+
         Class<?> elex = findClass(lexerClassName);
         if (elex == null)
             return null;
@@ -188,7 +233,9 @@ public class StringCompiler {
 
         try {
             elexer = (Lexer) cstr[0].newInstance(input);
-            lexer.put(lexerClassName, elexer);
+            // private instances must not replace the cached one
+            if (useCached)
+                lexer.put(lexerClassName, elexer);
         } catch (InstantiationException | IllegalAccessException
                 | IllegalArgumentException | InvocationTargetException e) {
             return null;
@@ -197,6 +244,16 @@ public class StringCompiler {
         return elexer;
     }
 
+    /**
+     * check whether a lexer instance is cached
+     *
+     * @param lexerClassName class name
+     * @return true if a lexer instance is cached, false otherwise
+     */
+    public boolean hasCachedLexer(String lexerClassName) {
+        return lexer.containsKey(lexerClassName);
+    }
+
     /**
      * instanciate new parser
      *
@@ -206,6 +263,13 @@ public class StringCompiler {
      */
     public Parser instanciateParser(CommonTokenStream tstream, String parserClassName) {
         Parser eparser;
+
+        if (atns.containsKey(parserClassName)) {
+            eparser = interpretParser(tstream, atns.get(parserClassName));
+            parser.put(parserClassName, eparser);
+            return eparser;
+        }
+
         Class<?> elex = findClass(parserClassName);
         Objects.requireNonNull(elex, "Failed to find class " + parserClassName);
         Constructor<?>[] cstr = elex.getConstructors();
@@ -235,6 +299,103 @@ public class StringCompiler {
         return eparser;
     }
 
+    /**
+     * create a lexer interpreter that shares the ATN and the DFA cache with
+     * all other lexers of the same memory ATN
+     *
+     * @param input input char stream
+     * @param matn  memory ATN
+     * @return antlr lexer
+     */
+    private Lexer interpretLexer(CharStream input, MemoryATN matn) {
+        Lexer elexer = new LexerInterpreter(matn.getGrammarFileName(),
+                matn.getVocabulary(), matn.getRuleNames(),
+                matn.getChannelNames(), matn.getModeNames(), matn.getATN(),
+                input);
+        elexer.setInterpreter(new LexerATNSimulator(elexer, matn.getATN(),
+                matn.getDecisionToDFA(), matn.getSharedContextCache()));
+        return elexer;
+    }
+
+    /**
+     * create a parser interpreter that shares the ATN and the DFA cache with
+     * all other parsers of the same memory ATN
+     *
+     * @param tstream token stream
+     * @param matn    memory ATN
+     * @return antlr parser
+     */
+    private Parser interpretParser(CommonTokenStream tstream, MemoryATN matn) {
+        Parser eparser = new ParserInterpreter(matn.getGrammarFileName(),
+                matn.getVocabulary(), matn.getRuleNames(), matn.getATN(),
+                tstream);
+        eparser.setInterpreter(new ParserATNSimulator(eparser, matn.getATN(),
+                matn.getDecisionToDFA(), matn.getSharedContextCache()));
+        return eparser;
+    }
+
+    /**
+     * initialize a recognizer ahead of its first use -- for compiled
+     * recognizers, the class is loaded and its static initializer which
+     * deserializes the ATN is run; for interpreted recognizers, the ATN is
+     * deserialized and the DFA cache is allocated
+     *
+     * @param cname class name of lexer or parser
+     * @return true if the recognizer could be initialized, false otherwise
+     */
+    public boolean initialize(String cname) {
+        if (atns.containsKey(cname)) {
+            MemoryATN matn = atns.get(cname);
+            matn.getDecisionToDFA();
+            matn.getSharedContextCache();
+            return true;
+        }
+
+        Class<?> clazz = findClass(cname);
+        if (clazz == null)
+            return false;
+
+        try {
+            Class.forName(clazz.getName(), true, clazz.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * get the ATN of a lexer or parser -- the class of a compiled
+     * recognizer is loaded and initialized if necessary
+     *
+     * @param cname class name of lexer or parser
+     * @return the ATN or null if it is not available
+     */
+    public ATN getATN(String cname) {
+        if (atns.containsKey(cname))
+            return atns.get(cname).getATN();
+
+        Class<?> clazz = findClass(cname);
+        if (clazz == null)
+            return null;
+
+        try {
+            Object atn = clazz.getField("_ATN").get(null);
+            return atn instanceof ATN ? (ATN) atn : null;
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            LOGGER.debug("cannot access ATN of {}", cname);
+            return null;
+        }
+    }
+
+    /**
+     * get all ATNs that are interpreted
+     *
+     * @return collection of memory ATNs
+     */
+    public Collection<MemoryATN> getAllATNs() {
+        return atns.values();
+    }
+
     /**
      * get all compiled antlr objects (lexer, parser, etc) in source and bytecode format
      *
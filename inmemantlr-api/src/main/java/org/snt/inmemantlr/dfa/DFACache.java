@@ -0,0 +1,300 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.dfa;
+
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * observes and bounds the DFA caches of a lexer and a parser -- the
+ * recognizers are equipped with simulators that count cache hits and
+ * misses, and the policy is enforced after each parse; evicting a
+ * decision replaces its DFA by an empty one which is safe while other
+ * threads are still predicting with the old one. A cache owns its DFA
+ * arrays and prediction context cache, so eviction only affects the
+ * recognizers installed by it and not the static DFA of the generated
+ * classes that other parsers share.
+ */
+public class DFACache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DFACache.class);
+
+    // rough object sizes for estimating the heap usage
+    private static final int STATE_BYTES = 64;
+    private static final int CONFIG_BYTES = 48;
+    private static final int CONTEXT_BYTES = 48;
+
+    private final DFACachePolicy policy;
+
+    private final LongAdder sllHits = new LongAdder();
+    private final LongAdder sllMisses = new LongAdder();
+    private final LongAdder llPredictions = new LongAdder();
+    private final LongAdder lexerHits = new LongAdder();
+    private final LongAdder lexerMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private ATN parserATN = null;
+    private DFA[] parserDFA = new DFA[0];
+    private ATN lexerATN = null;
+    private DFA[] lexerDFA = new DFA[0];
+    private PredictionContextCache contexts = new PredictionContextCache();
+
+    /**
+     * constructor
+     *
+     * @param policy eviction policy
+     */
+    public DFACache(DFACachePolicy policy) {
+        this.policy = policy;
+    }
+
+    public DFACachePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * equip a lexer with a counting simulator that uses the DFA cache of
+     * this instance -- a lexer that has been equipped before gets a new
+     * simulator once the context cache has been cleared
+     *
+     * @param lexer lexer
+     */
+    public synchronized void install(Lexer lexer) {
+        LexerATNSimulator sim = lexer.getInterpreter();
+        if (sim instanceof CountingLexerATNSimulator &&
+                ((CountingLexerATNSimulator) sim).owner == this &&
+                sim.getSharedContextCache() == contexts)
+            return;
+        if (lexerATN != sim.atn) {
+            lexerATN = sim.atn;
+            lexerDFA = newDFA(sim.atn);
+        }
+        lexer.setInterpreter(new CountingLexerATNSimulator(this, lexer,
+                lexerATN, lexerDFA, contexts));
+    }
+
+    /**
+     * equip a parser with a counting simulator that uses the DFA cache of
+     * this instance
+     *
+     * @param parser parser
+     */
+    public synchronized void install(Parser parser) {
+        ParserATNSimulator sim = parser.getInterpreter();
+        if (parserATN != sim.atn) {
+            parserATN = sim.atn;
+            parserDFA = newDFA(sim.atn);
+        }
+        parser.setInterpreter(new CountingParserATNSimulator(this, parser,
+                parserATN, parserDFA, contexts));
+    }
+
+    private static DFA[] newDFA(ATN atn) {
+        DFA[] dfas = new DFA[atn.getNumberOfDecisions()];
+        for (int d = 0; d < dfas.length; d++)
+            dfas[d] = new DFA(atn.getDecisionState(d), d);
+        return dfas;
+    }
+
+    /**
+     * take a snapshot of the DFA caches and the counters
+     *
+     * @return statistics
+     */
+    public synchronized DFAStatistics getStatistics() {
+        long bytes = (long) contexts.size() * CONTEXT_BYTES;
+        for (DFA dfa : parserDFA)
+            bytes += getBytes(dfa);
+        for (DFA dfa : lexerDFA)
+            bytes += getBytes(dfa);
+
+        return new DFAStatistics(getStates(parserDFA), getStates(lexerDFA),
+                contexts.size(), bytes, sllHits.sum(), sllMisses.sum(),
+                llPredictions.sum(), lexerHits.sum(), lexerMisses.sum(),
+                evictions.sum());
+    }
+
+    /**
+     * enforce the policy
+     *
+     * @return number of evicted DFA states
+     */
+    public synchronized int enforce() {
+        if (policy.getAction() == DFACachePolicy.Action.NONE)
+            return 0;
+
+        int[] pstates = getStates(parserDFA);
+        int[] lstates = getStates(lexerDFA);
+        int total = Arrays.stream(pstates).sum() + Arrays.stream(lstates).sum();
+
+        if (total <= policy.getMaxStates())
+            return 0;
+
+        int evicted = 0;
+
+        if (policy.getAction() == DFACachePolicy.Action.CLEAR) {
+            for (int d = 0; d < parserDFA.length; d++)
+                evicted += reset(parserATN, parserDFA, d, pstates[d]);
+            for (int d = 0; d < lexerDFA.length; d++)
+                evicted += reset(lexerATN, lexerDFA, d, lstates[d]);
+            // recognizers that are installed afterwards, including the
+            // cached lexer, use a new context cache
+            contexts = new PredictionContextCache();
+        } else {
+            // decisions of lexer and parser, largest first
+            int target = policy.getMaxStates() / 2;
+            int[] order = IntStream.range(0, pstates.length + lstates.length)
+                    .boxed()
+                    .sorted(Comparator.comparingInt(d -> d < pstates.length ?
+                            -pstates[d] : -lstates[d - pstates.length]))
+                    .mapToInt(Integer::intValue).toArray();
+            for (int d : order) {
+                if (total - evicted <= target)
+                    break;
+                if (d < pstates.length)
+                    evicted += reset(parserATN, parserDFA, d, pstates[d]);
+                else
+                    evicted += reset(lexerATN, lexerDFA, d - pstates.length,
+                            lstates[d - pstates.length]);
+            }
+        }
+
+        LOGGER.debug("evicted {} DFA states ({})", evicted, policy);
+        evictions.add(evicted);
+        return evicted;
+    }
+
+    private static int reset(ATN atn, DFA[] dfas, int d, int states) {
+        if (states == 0)
+            return 0;
+        dfas[d] = new DFA(atn.getDecisionState(d), d);
+        return states;
+    }
+
+    private static int[] getStates(DFA[] dfas) {
+        int[] ret = new int[dfas.length];
+        for (int d = 0; d < dfas.length; d++) {
+            DFA dfa = dfas[d];
+            synchronized (dfa.states) {
+                ret[d] = dfa.states.size();
+            }
+        }
+        return ret;
+    }
+
+    private static long getBytes(DFA dfa) {
+        long bytes = 0;
+        synchronized (dfa.states) {
+            for (DFAState s : dfa.states.keySet()) {
+                bytes += STATE_BYTES;
+                DFAState[] edges = s.edges;
+                if (edges != null)
+                    bytes += 16 + 4L * edges.length;
+                if (s.configs != null)
+                    bytes += (long) s.configs.size() * CONFIG_BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * parser simulator that counts DFA hits and misses
+     */
+    private static class CountingParserATNSimulator extends ParserATNSimulator {
+
+        private final DFACache owner;
+
+        CountingParserATNSimulator(DFACache owner, Parser parser, ATN atn,
+                                   DFA[] decisionToDFA,
+                                   PredictionContextCache contexts) {
+            super(parser, atn, decisionToDFA, contexts);
+            this.owner = owner;
+        }
+
+        @Override
+        protected DFAState getExistingTargetState(DFAState previousD, int t) {
+            DFAState ret = super.getExistingTargetState(previousD, t);
+            if (ret == null)
+                owner.sllMisses.increment();
+            else
+                owner.sllHits.increment();
+            return ret;
+        }
+
+        @Override
+        protected int execATNWithFullContext(DFA dfa, DFAState D,
+                                             ATNConfigSet s0, TokenStream
+                                                     input, int startIndex,
+                                             ParserRuleContext outerContext) {
+            owner.llPredictions.increment();
+            return super.execATNWithFullContext(dfa, D, s0, input,
+                    startIndex, outerContext);
+        }
+    }
+
+    /**
+     * lexer simulator that counts DFA hits and misses
+     */
+    private static class CountingLexerATNSimulator extends LexerATNSimulator {
+
+        private final DFACache owner;
+
+        CountingLexerATNSimulator(DFACache owner, Lexer lexer, ATN atn,
+                                  DFA[] decisionToDFA,
+                                  PredictionContextCache contexts) {
+            super(lexer, atn, decisionToDFA, contexts);
+            this.owner = owner;
+        }
+
+        @Override
+        protected DFAState getExistingTargetState(DFAState s, int t) {
+            DFAState ret = super.getExistingTargetState(s, t);
+            if (ret == null)
+                owner.lexerMisses.increment();
+            else
+                owner.lexerHits.increment();
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.dfa;
+
+/**
+ * policy that bounds the number of DFA states -- once the DFA caches of
+ * lexer and parser cross the threshold, they are either cleared entirely
+ * or trimmed by resetting the decisions with the most states until at
+ * most half of the threshold is left
+ */
+public class DFACachePolicy {
+
+    public enum Action {
+        NONE,
+        CLEAR,
+        TRIM
+    }
+
+    private final Action action;
+    private final int maxStates;
+
+    private DFACachePolicy(Action action, int maxStates) {
+        if (action != Action.NONE && maxStates <= 0)
+            throw new IllegalArgumentException("maxStates must be positive");
+        this.action = action;
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * policy that never evicts DFA states but collects statistics
+     *
+     * @return unbounded policy
+     */
+    public static DFACachePolicy unbounded() {
+        return new DFACachePolicy(Action.NONE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * policy that clears all DFA caches once they exceed maxStates
+     *
+     * @param maxStates maximum number of DFA states
+     * @return clear policy
+     */
+    public static DFACachePolicy clear(int maxStates) {
+        return new DFACachePolicy(Action.CLEAR, maxStates);
+    }
+
+    /**
+     * policy that trims the DFA caches once they exceed maxStates
+     *
+     * @param maxStates maximum number of DFA states
+     * @return trim policy
+     */
+    public static DFACachePolicy trim(int maxStates) {
+        return new DFACachePolicy(Action.TRIM, maxStates);
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public int getMaxStates() {
+        return maxStates;
+    }
+
+    @Override
+    public String toString() {
+        return action + "(" + maxStates + ")";
+    }
+}
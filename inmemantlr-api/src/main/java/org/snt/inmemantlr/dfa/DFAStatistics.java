@@ -0,0 +1,166 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.dfa;
+
+import java.util.Arrays;
+
+/**
+ * snapshot of the DFA caches of lexer and parser together with the
+ * prediction counters
+ */
+public class DFAStatistics {
+
+    private final int[] parserStates;
+    private final int[] lexerStates;
+    private final int contexts;
+    private final long bytes;
+    private final long sllHits;
+    private final long sllMisses;
+    private final long llPredictions;
+    private final long lexerHits;
+    private final long lexerMisses;
+    private final long evictions;
+
+    DFAStatistics(int[] parserStates, int[] lexerStates, int contexts,
+                  long bytes, long sllHits, long sllMisses, long
+                          llPredictions, long lexerHits, long lexerMisses,
+                  long evictions) {
+        this.parserStates = parserStates;
+        this.lexerStates = lexerStates;
+        this.contexts = contexts;
+        this.bytes = bytes;
+        this.sllHits = sllHits;
+        this.sllMisses = sllMisses;
+        this.llPredictions = llPredictions;
+        this.lexerHits = lexerHits;
+        this.lexerMisses = lexerMisses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * get the number of DFA states per parser decision
+     *
+     * @return states indexed by decision number
+     */
+    public int[] getParserStates() {
+        return parserStates.clone();
+    }
+
+    /**
+     * get the number of DFA states per lexer mode
+     *
+     * @return states indexed by mode
+     */
+    public int[] getLexerStates() {
+        return lexerStates.clone();
+    }
+
+    /**
+     * get the total number of DFA states of lexer and parser
+     *
+     * @return number of DFA states
+     */
+    public int getTotalStates() {
+        return Arrays.stream(parserStates).sum() +
+                Arrays.stream(lexerStates).sum();
+    }
+
+    /**
+     * get the number of cached prediction contexts
+     *
+     * @return number of prediction contexts
+     */
+    public int getContexts() {
+        return contexts;
+    }
+
+    /**
+     * get the approximate heap usage of the DFA states and prediction
+     * contexts
+     *
+     * @return approximate number of bytes
+     */
+    public long getApproximateBytes() {
+        return bytes;
+    }
+
+    /**
+     * get the number of DFA transitions that were found in the cache
+     * during SLL prediction
+     *
+     * @return SLL hits
+     */
+    public long getSllHits() {
+        return sllHits;
+    }
+
+    /**
+     * get the number of DFA transitions that had to be computed during
+     * SLL prediction
+     *
+     * @return SLL misses
+     */
+    public long getSllMisses() {
+        return sllMisses;
+    }
+
+    /**
+     * get the number of predictions that fell back to full LL -- they
+     * are never cached
+     *
+     * @return number of LL predictions
+     */
+    public long getLlPredictions() {
+        return llPredictions;
+    }
+
+    public long getLexerHits() {
+        return lexerHits;
+    }
+
+    public long getLexerMisses() {
+        return lexerMisses;
+    }
+
+    /**
+     * get the number of DFA states that were evicted by the policy
+     *
+     * @return evicted DFA states
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        return "states: " + getTotalStates() + ", contexts: " + contexts +
+                ", bytes: ~" + bytes + ", sll hits/misses: " + sllHits + "/" +
+                sllMisses + ", ll: " + llPredictions + ", lexer hits/misses: "
+                + lexerHits + "/" + lexerMisses + ", evictions: " + evictions;
+    }
+}
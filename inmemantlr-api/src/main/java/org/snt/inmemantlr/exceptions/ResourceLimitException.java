@@ -0,0 +1,64 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.exceptions;
+
+import org.snt.inmemantlr.limits.ResourceUsage;
+
+/**
+ * this exception is thrown when lexing or parsing exceeds one of the
+ * configured resource limits
+ */
+public abstract class ResourceLimitException extends ParsingException {
+
+    private static final long serialVersionUID = -2318746591098573410L;
+
+    private final int limit;
+    private final transient ResourceUsage usage;
+
+    /**
+     * constructor
+     *
+     * @param msg   exception message
+     * @param limit limit that has been exceeded
+     * @param usage resources used up to the point of abortion
+     */
+    protected ResourceLimitException(String msg, int limit, ResourceUsage
+            usage) {
+        super(msg + " (limit " + limit + ")");
+        this.limit = limit;
+        this.usage = usage;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public ResourceUsage getUsage() {
+        return usage;
+    }
+}
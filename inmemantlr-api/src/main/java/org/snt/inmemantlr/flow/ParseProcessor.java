@@ -0,0 +1,325 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.flow;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.snt.inmemantlr.batch.BatchParser;
+import org.snt.inmemantlr.batch.BatchParserPool;
+import org.snt.inmemantlr.batch.BatchResult;
+import org.snt.inmemantlr.exceptions.ParsingException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * reactive stage that parses the inputs it receives from upstream and
+ * publishes one result per input downstream, in input order. Syntax errors
+ * are published as failed results; only a failure of the upstream
+ * publisher terminates the stage with an error.
+ *
+ * Inputs are requested from upstream only if the downstream subscriber has
+ * signalled demand for them, and at most concurrency inputs are parsed or
+ * wait to be published at the same time. Memory therefore stays bounded
+ * when the subscriber slows down. The stage supports a single subscriber;
+ * on JDK 9+, org.reactivestreams.FlowAdapters turns it into a
+ * java.util.concurrent.Flow.Processor.
+ */
+public class ParseProcessor implements Processor<String, BatchResult> {
+
+    private static final Subscription NOOP = new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final BatchParserPool pool;
+    private final Executor executor;
+    private final int concurrency;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Map<Integer, BatchResult> done = new HashMap<>();
+
+    private Subscription upstream;
+    private Subscriber<? super BatchResult> downstream;
+    private boolean subscribed = false;
+    // downstream demand that has not been served yet
+    private long demand = 0;
+    // inputs requested from upstream whose results are not published yet
+    private long inFlight = 0;
+    private int received = 0;
+    private int emitted = 0;
+    private boolean completed = false;
+    private Throwable error = null;
+    private boolean cancelUpstream = false;
+    private boolean cancelled = false;
+    private boolean terminated = false;
+
+    /**
+     * constructor
+     *
+     * @param factory     creates a new batch parser for a worker
+     * @param executor    executor that runs the parse tasks
+     * @param concurrency maximum number of inputs in flight
+     */
+    public ParseProcessor(Supplier<BatchParser> factory, Executor executor,
+                          int concurrency) {
+        Objects.requireNonNull(executor, "executor must not be null");
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        this.pool = new BatchParserPool(factory);
+        this.executor = executor;
+        this.concurrency = concurrency;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return number of recognizer instances that have been created so far
+     */
+    public int getParserCount() {
+        return pool.getParserCount();
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        Objects.requireNonNull(s, "subscription must not be null");
+        lock.lock();
+        try {
+            if (upstream != null || cancelled) {
+                s.cancel();
+                return;
+            }
+            upstream = s;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(String item) {
+        Objects.requireNonNull(item, "item must not be null");
+        int idx;
+        lock.lock();
+        try {
+            idx = received++;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            executor.execute(() -> complete(idx, pool.parse(idx, null, item)));
+        } catch (RejectedExecutionException e) {
+            complete(idx, BatchResult.failure(idx, new ParsingException
+                    ("parse task rejected", e)));
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        Objects.requireNonNull(t, "throwable must not be null");
+        lock.lock();
+        try {
+            if (!completed) {
+                completed = true;
+                error = t;
+            }
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        lock.lock();
+        try {
+            completed = true;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super BatchResult> s) {
+        Objects.requireNonNull(s, "subscriber must not be null");
+        lock.lock();
+        try {
+            if (downstream != null) {
+                s.onSubscribe(NOOP);
+                s.onError(new IllegalStateException("only a single " +
+                        "subscriber is supported"));
+                return;
+            }
+            downstream = s;
+        } finally {
+            lock.unlock();
+        }
+        s.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                ParseProcessor.this.request(n);
+            }
+
+            @Override
+            public void cancel() {
+                ParseProcessor.this.cancel();
+            }
+        });
+        lock.lock();
+        try {
+            subscribed = true;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    private void request(long n) {
+        lock.lock();
+        try {
+            if (n <= 0) {
+                if (error == null)
+                    error = new IllegalArgumentException("non-positive " +
+                            "request: " + n);
+                completed = true;
+                cancelUpstream = true;
+            } else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    private void cancel() {
+        Subscription up;
+        lock.lock();
+        try {
+            cancelled = true;
+            done.clear();
+            up = upstream;
+        } finally {
+            lock.unlock();
+        }
+        if (up != null)
+            up.cancel();
+    }
+
+    private void complete(int idx, BatchResult result) {
+        lock.lock();
+        try {
+            if (cancelled || terminated)
+                return;
+            done.put(idx, result);
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    /**
+     * publish the results that are ready and demanded, request more inputs
+     * and signal termination -- only one thread drains at a time, signals
+     * that arrive meanwhile make it loop once more
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0)
+            return;
+        do {
+            for (; ; ) {
+                Subscriber<? super BatchResult> d = null;
+                Subscription up = null;
+                BatchResult next = null;
+                Throwable failure = null;
+                boolean complete = false;
+                long more = 0;
+
+                lock.lock();
+                try {
+                    if (subscribed && !cancelled && !terminated) {
+                        d = downstream;
+                        up = upstream;
+                        if (error != null) {
+                            terminated = true;
+                            failure = error;
+                            done.clear();
+                        } else if (demand > 0 && done.containsKey(emitted)) {
+                            next = done.remove(emitted++);
+                            demand--;
+                            inFlight--;
+                        } else if (completed && emitted == received) {
+                            terminated = true;
+                            complete = true;
+                        } else if (up != null && !completed) {
+                            // never request more than is demanded downstream
+                            more = Math.min(demand, concurrency) - inFlight;
+                            if (more > 0)
+                                inFlight += more;
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                if (next != null) {
+                    d.onNext(next);
+                } else if (failure != null) {
+                    if (cancelUpstream && up != null)
+                        up.cancel();
+                    d.onError(failure);
+                    break;
+                } else if (complete) {
+                    d.onComplete();
+                    break;
+                } else if (more > 0) {
+                    up.request(more);
+                    break;
+                } else {
+                    break;
+                }
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+}
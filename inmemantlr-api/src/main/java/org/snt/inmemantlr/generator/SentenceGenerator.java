@@ -0,0 +1,492 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.generator;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.LexerInterpreter;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.VocabularyImpl;
+import org.antlr.v4.runtime.atn.*;
+import org.antlr.v4.runtime.misc.IntervalSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * generates random sentences of a compiled grammar by walking the ATNs of
+ * parser and lexer -- the generation is deterministic for a given seed.
+ * Alternatives are chosen randomly (weighted by rule weights) until the
+ * target length or the maximum nesting depth is reached; from then on, the
+ * shortest completion of every rule is taken. Token types for which no
+ * text can be found that the lexer maps back to the same type (e.g. keywords
+ * shadowed by an identifier rule) are never emitted. Semantic predicates
+ * and lexer modes are ignored, so grammars that depend on them may yield
+ * invalid sentences.
+ */
+public class SentenceGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SentenceGenerator.class);
+
+    // cost of a path: tokens/characters are weighted higher than
+    // epsilon steps so that the shortest completion always terminates
+    private static final long TOKEN = 1L << 20;
+    private static final long STEP = 1L;
+    private static final long INF = Long.MAX_VALUE / 4;
+
+    // characters are picked from the printable ASCII range if possible
+    private static final IntervalSet PRINTABLE = IntervalSet.of(0x20, 0x7e);
+
+    static {
+        PRINTABLE.setReadonly(true);
+    }
+
+    private static final int MAX_LEXEME_LENGTH = 12;
+    private static final int LEXEME_ATTEMPTS = 10;
+    private static final int LEXEME_VARIANTS = 8;
+
+    private final ATN patn;
+    private final ATN latn;
+    private final String[] ruleNames;
+    private final long[] pcost;
+    private final long[] lcost;
+    private final IntervalSet producible = new IntervalSet();
+    private final Lexer lexer;
+    private final Map<Integer, List<Integer>> lexerRules = new HashMap<>();
+    private final Map<Integer, List<String>> lexemes = new HashMap<>();
+    private final double[] weights;
+    private final Random random;
+
+    private int targetLength = 50;
+    private int maxDepth = 20;
+    private double loopBias = 8.0;
+    private String separator = " ";
+
+    /**
+     * constructor
+     *
+     * @param gp   compiled generic parser
+     * @param seed random seed
+     * @throws IllegalWorkflowException if the parser is not compiled yet
+     */
+    public SentenceGenerator(GenericParser gp, long seed) throws
+            IllegalWorkflowException {
+        Parser prototype = gp.getParserPrototype();
+        if (prototype == null)
+            throw new IllegalWorkflowException("parser cannot be instantiated");
+        this.ruleNames = prototype.getRuleNames();
+        this.patn = gp.getParserATN();
+        this.latn = gp.getLexerATN();
+        if (patn == null || latn == null)
+            throw new IllegalWorkflowException("ATNs are not available");
+        this.lexer = newLexer(gp.getLexerPrototype(), latn);
+        this.weights = new double[ruleNames.length];
+        Arrays.fill(weights, 1.0);
+        this.random = new Random(seed);
+
+        for (int r = 0; r < latn.ruleToTokenType.length; r++) {
+            int type = latn.ruleToTokenType[r];
+            if (type > 0)
+                lexerRules.computeIfAbsent(type, t -> new ArrayList<>()).add(r);
+        }
+
+        this.lcost = costs(latn, null);
+        producible.add(Token.EOF);
+        for (int type : lexerRules.keySet()) {
+            lexeme(type);
+            if (!lexemes.get(type).isEmpty())
+                producible.add(type);
+        }
+        LOGGER.debug("{} of {} token types can be produced", producible.size()
+                - 1, lexerRules.size());
+        this.pcost = costs(patn, producible);
+    }
+
+    /**
+     * set the number of tokens after which the generator takes the
+     * shortest completion
+     *
+     * @param targetLength number of tokens
+     */
+    public void setTargetLength(int targetLength) {
+        this.targetLength = targetLength;
+    }
+
+    /**
+     * set the nesting depth of rule invocations after which the generator
+     * takes the shortest completion
+     *
+     * @param maxDepth maximum depth
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * set the weight of a rule -- alternatives that start with an
+     * invocation of the rule are chosen proportionally more often
+     *
+     * @param rule   parser rule name
+     * @param weight weight, 1 by default, 0 to avoid the rule
+     */
+    public void setRuleWeight(String rule, double weight) {
+        int idx = Arrays.asList(ruleNames).indexOf(rule);
+        if (idx < 0)
+            throw new IllegalArgumentException("Rule " + rule + " not found");
+        weights[idx] = weight;
+    }
+
+    /**
+     * set the factor by which staying in a loop is preferred over leaving it
+     * as long as the target length is not reached
+     *
+     * @param loopBias factor, 8 by default
+     */
+    public void setLoopBias(double loopBias) {
+        this.loopBias = loopBias;
+    }
+
+    /**
+     * set the string that is put between two tokens
+     *
+     * @param separator token separator, a blank by default
+     */
+    public void setSeparator(String separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * generate a sentence starting from the first parser rule
+     *
+     * @return sentence
+     */
+    public String generate() {
+        return generate(ruleNames[0]);
+    }
+
+    /**
+     * generate a sentence
+     *
+     * @param rule entry rule
+     * @return sentence
+     */
+    public String generate(String rule) {
+        int idx = Arrays.asList(ruleNames).indexOf(rule);
+        if (idx < 0)
+            throw new IllegalArgumentException("Rule " + rule + " not found");
+
+        List<Integer> tokens = new ArrayList<>();
+        walkRule(idx, 0, tokens);
+
+        StringBuilder sb = new StringBuilder();
+        for (int type : tokens) {
+            if (sb.length() > 0)
+                sb.append(separator);
+            sb.append(lexeme(type));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * generate several sentences
+     *
+     * @param rule  entry rule
+     * @param count number of sentences
+     * @return sentences
+     */
+    public List<String> generate(String rule, int count) {
+        List<String> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            ret.add(generate(rule));
+        return ret;
+    }
+
+    private void walkRule(int rule, int depth, List<Integer> tokens) {
+        ATNState s = patn.ruleToStartState[rule];
+        while (!(s instanceof RuleStopState)) {
+            boolean shortest = tokens.size() >= targetLength || depth >=
+                    maxDepth;
+            Transition t = choose(s, pcost, producible, shortest, loopBias);
+            if (t instanceof RuleTransition) {
+                walkRule(((RuleTransition) t).ruleIndex, depth + 1, tokens);
+                s = ((RuleTransition) t).followState;
+                continue;
+            }
+            if (!t.isEpsilon()) {
+                int type = pick(labels(t, patn.maxTokenType, producible));
+                if (type > 0)
+                    tokens.add(type);
+            }
+            s = t.target;
+        }
+    }
+
+    private Transition choose(ATNState s, long[] cost, IntervalSet
+            alphabet, boolean shortest, double bias) {
+        int n = s.getNumberOfTransitions();
+        if (n == 1)
+            return s.transition(0);
+
+        if (shortest) {
+            Transition best = null;
+            long min = INF;
+            for (int i = 0; i < n; i++) {
+                long c = cost(s.transition(i), cost, alphabet);
+                if (c < min) {
+                    min = c;
+                    best = s.transition(i);
+                }
+            }
+            return best != null ? best : s.transition(0);
+        }
+
+        boolean loop = s instanceof StarLoopEntryState || s instanceof
+                PlusLoopbackState;
+        double[] w = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            Transition t = s.transition(i);
+            if (cost(t, cost, alphabet) >= INF)
+                continue;
+            w[i] = 1.0;
+            // rule weights only apply to the parser
+            int r = alphabet != null ? leadingRule(t) : -1;
+            if (r >= 0)
+                w[i] = weights[r];
+            if (loop && !(t.target instanceof LoopEndState))
+                w[i] *= bias;
+            sum += w[i];
+        }
+        if (sum <= 0)
+            return choose(s, cost, alphabet, true, bias);
+
+        double x = random.nextDouble() * sum;
+        for (int i = 0; i < n; i++) {
+            x -= w[i];
+            if (w[i] > 0 && x < 0)
+                return s.transition(i);
+        }
+        return s.transition(n - 1);
+    }
+
+    /**
+     * find the rule that is invoked first on the (unique) epsilon path that
+     * starts with the given transition
+     */
+    private static int leadingRule(Transition t) {
+        for (int i = 0; i < 8; i++) {
+            if (t instanceof RuleTransition)
+                return ((RuleTransition) t).ruleIndex;
+            if (!t.isEpsilon() || t.target.getNumberOfTransitions() != 1)
+                return -1;
+            t = t.target.transition(0);
+        }
+        return -1;
+    }
+
+    /**
+     * get the symbols that match a transition
+     */
+    private static IntervalSet labels(Transition t, int max, IntervalSet
+            alphabet) {
+        IntervalSet set;
+        if (t instanceof NotSetTransition) {
+            set = IntervalSet.of(0, max).subtract(t.label());
+        } else if (t instanceof WildcardTransition) {
+            set = IntervalSet.of(0, max);
+        } else {
+            set = t.label();
+        }
+        if (set == null)
+            return new IntervalSet();
+        IntervalSet ret = set.and(alphabet);
+        return ret.isNil() && max == Lexer.MAX_CHAR_VALUE ? set : ret;
+    }
+
+    /**
+     * pick a random symbol from a set
+     */
+    private int pick(IntervalSet set) {
+        if (set.isNil())
+            return Token.INVALID_TYPE;
+        int idx = random.nextInt(set.size());
+        for (org.antlr.v4.runtime.misc.Interval i : set.getIntervals()) {
+            int len = i.b - i.a + 1;
+            if (idx < len)
+                return i.a + idx;
+            idx -= len;
+        }
+        return set.getMinElement();
+    }
+
+    /**
+     * get a text for a token type -- generated texts are lexed again and
+     * only kept if they yield exactly this token
+     */
+    private String lexeme(int type) {
+        List<String> known = lexemes.computeIfAbsent(type, t -> new
+                ArrayList<>());
+        if (known.size() >= LEXEME_VARIANTS)
+            return known.get(random.nextInt(known.size()));
+
+        List<Integer> rules = lexerRules.getOrDefault(type, Collections
+                .emptyList());
+        if (rules.isEmpty())
+            return known.isEmpty() ? "" : known.get(0);
+
+        String text = "";
+        for (int i = 0; i < LEXEME_ATTEMPTS; i++) {
+            StringBuilder sb = new StringBuilder();
+            walkLexerRule(rules.get(random.nextInt(rules.size())), 0, sb);
+            text = sb.toString();
+            if (lexesAs(text, type)) {
+                known.add(text);
+                return text;
+            }
+        }
+        LOGGER.debug("no valid lexeme found for token type {}", type);
+        return known.isEmpty() ? text : known.get(random.nextInt(known.size()));
+    }
+
+    private void walkLexerRule(int rule, int depth, StringBuilder sb) {
+        ATNState s = latn.ruleToStartState[rule];
+        while (!(s instanceof RuleStopState)) {
+            boolean shortest = sb.length() >= MAX_LEXEME_LENGTH || depth >=
+                    maxDepth;
+            Transition t = choose(s, lcost, null, shortest, 1.0);
+            if (t instanceof RuleTransition) {
+                walkLexerRule(((RuleTransition) t).ruleIndex, depth + 1, sb);
+                s = ((RuleTransition) t).followState;
+                continue;
+            }
+            if (!t.isEpsilon())
+                sb.appendCodePoint(pick(labels(t, Lexer.MAX_CHAR_VALUE,
+                        PRINTABLE)));
+            s = t.target;
+        }
+    }
+
+    private boolean lexesAs(String text, int type) {
+        if (text.isEmpty())
+            return false;
+        lexer.setInputStream(CharStreams.fromString(text));
+        try {
+            List<? extends Token> tokens = lexer.getAllTokens();
+            return tokens.size() == 1 && tokens.get(0).getType() == type &&
+                    tokens.get(0).getStopIndex() == text.length() - 1;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * create a lexer that is not shared with the generic parser -- the
+     * generated lexer class is preferred as it evaluates semantic predicates
+     */
+    private static Lexer newLexer(Lexer prototype, ATN atn) {
+        Lexer ret = null;
+        if (!(prototype instanceof LexerInterpreter)) {
+            try {
+                ret = prototype.getClass().getConstructor(CharStream.class)
+                        .newInstance(CharStreams.fromString(""));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOGGER.debug("cannot instantiate {}: {}", prototype.getClass(),
+                        e.getMessage());
+            }
+        }
+        if (ret == null) {
+            String[] names = new String[atn.ruleToStartState.length];
+            Arrays.fill(names, "");
+            String[] modes = new String[atn.modeToStartState.size()];
+            Arrays.fill(modes, "");
+            ret = new LexerInterpreter("", VocabularyImpl.EMPTY_VOCABULARY,
+                    Arrays.asList(names), Collections.emptyList(), Arrays
+                    .asList(modes), atn, CharStreams.fromString(""));
+        }
+        ret.removeErrorListeners();
+        return ret;
+    }
+
+    private static long cost(Transition t, long[] cost, IntervalSet
+            alphabet) {
+        if (t instanceof RuleTransition) {
+            long start = cost[t.target.stateNumber];
+            long follow = cost[((RuleTransition) t).followState.stateNumber];
+            return start >= INF || follow >= INF ? INF : start + follow + STEP;
+        }
+        long c = cost[t.target.stateNumber];
+        if (c >= INF)
+            return INF;
+        if (alphabet != null && !t.isEpsilon() && labels(t, alphabet
+                .getMaxElement(), alphabet).isNil())
+            return INF;
+        return c + STEP + (t.isEpsilon() ? 0 : TOKEN);
+    }
+
+    /**
+     * compute the cost of the shortest path from every state to the stop
+     * state of its rule -- transitions that match none of the symbols
+     * in the alphabet (if given) cannot be taken
+     */
+    private static long[] costs(ATN atn, IntervalSet alphabet) {
+        long[] cost = new long[atn.states.size()];
+        Arrays.fill(cost, INF);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (ATNState s : atn.states) {
+                if (s == null)
+                    continue;
+                long c = INF;
+                if (s instanceof RuleStopState) {
+                    c = 0;
+                } else {
+                    for (int i = 0; i < s.getNumberOfTransitions(); i++)
+                        c = Math.min(c, cost(s.transition(i), cost,
+                                alphabet));
+                }
+                if (c < cost[s.stateNumber]) {
+                    cost[s.stateNumber] = c;
+                    changed = true;
+                }
+            }
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.jfr;
+
+/**
+ * phases of inmemantlr that are reported as flight recorder events
+ */
+public enum Phase {
+    /** parsing the grammar text into an AST */
+    GRAMMAR_PARSING,
+    /** semantic analysis and ATN construction done by the ANTLR tool */
+    ANALYSIS,
+    /** rendering the lexer/parser templates */
+    CODE_GENERATION,
+    /** compiling the generated sources with javac */
+    COMPILATION,
+    /** defining a generated class in the class loader */
+    CLASS_DEFINITION,
+    /** loading and initializing a recognizer class */
+    INITIALIZATION,
+    /** tokenizing an input */
+    LEXING,
+    /** parsing a token stream */
+    PARSING,
+    /** walking the parse tree with the listener */
+    WALKING,
+    /** storing or loading a generic parser */
+    SERIALIZATION
+}
@@ -0,0 +1,107 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.jfr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * entry point for emitting flight recorder events -- events are only
+ * created if the runtime is Java 11+ and provides jdk.jfr; it can be
+ * switched off with the system property inmemantlr.jfr=false.
+ * Independently of jdk.jfr, the phases of the current thread can be timed
+ * by a phase listener.
+ */
+public final class PhaseEvents {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhaseEvents.class);
+
+    private static final PhaseEventFactory FACTORY = load();
+
+    private static final ThreadLocal<PhaseListener> LISTENER = new
+            ThreadLocal<>();
+
+    private PhaseEvents() {
+    }
+
+    private static PhaseEventFactory load() {
+        if (!Boolean.parseBoolean(System.getProperty("inmemantlr.jfr", "true")))
+            return null;
+        try {
+            Class.forName("jdk.jfr.Event", false, PhaseEvents.class
+                    .getClassLoader());
+            // the event types are compiled for Java 11+
+            return Class.forName("org.snt.inmemantlr.jfr.JfrEvents")
+                    .asSubclass(PhaseEventFactory.class)
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.debug("jdk.jfr not available -- no events are emitted");
+            return null;
+        }
+    }
+
+    /**
+     * check whether flight recorder events can be emitted
+     *
+     * @return true if jdk.jfr is available and events are enabled
+     */
+    public static boolean isSupported() {
+        return FACTORY != null;
+    }
+
+    /**
+     * start a phase
+     *
+     * @param phase phase to start
+     * @return the started event or a no-op if events are not supported
+     */
+    public static PhaseEvent begin(Phase phase) {
+        PhaseEvent event = FACTORY != null ? FACTORY.begin(phase) :
+                PhaseEvent.NOOP;
+        PhaseListener listener = LISTENER.get();
+        if (listener == null)
+            return event;
+        return new TimedPhaseEvent(phase, listener, event);
+    }
+
+    /**
+     * set the listener that is notified about the phases that are finished
+     * by the current thread
+     *
+     * @param listener listener or null to remove the listener
+     * @return the previous listener or null
+     */
+    public static PhaseListener setListener(PhaseListener listener) {
+        PhaseListener prev = LISTENER.get();
+        if (listener == null)
+            LISTENER.remove();
+        else
+            LISTENER.set(listener);
+        return prev;
+    }
+}
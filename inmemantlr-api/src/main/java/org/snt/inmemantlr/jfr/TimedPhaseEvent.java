@@ -0,0 +1,72 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.jfr;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * phase event that measures wall and cpu time for a phase listener and
+ * forwards to the flight recorder event
+ */
+final class TimedPhaseEvent implements PhaseEvent {
+
+    private static final ThreadMXBean THREADS = ManagementFactory
+            .getThreadMXBean();
+
+    private final Phase phase;
+    private final PhaseListener listener;
+    private final PhaseEvent event;
+    private final long wall;
+    private final long cpu;
+
+    TimedPhaseEvent(Phase phase, PhaseListener listener, PhaseEvent event) {
+        this.phase = phase;
+        this.listener = listener;
+        this.event = event;
+        this.cpu = cpuTime();
+        this.wall = System.nanoTime();
+    }
+
+    private static long cpuTime() {
+        if (!THREADS.isCurrentThreadCpuTimeSupported() || !THREADS
+                .isThreadCpuTimeEnabled())
+            return -1;
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    @Override
+    public void finish(String grammar, String subject, long inputSize, long
+            outputSize) {
+        long wallNanos = System.nanoTime() - wall;
+        long cpuNanos = cpu < 0 ? -1 : cpuTime() - cpu;
+        event.finish(grammar, subject, inputSize, outputSize);
+        listener.finished(phase, grammar, subject, wallNanos, cpuNanos,
+                inputSize, outputSize);
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.limits;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.snt.inmemantlr.exceptions.DepthLimitException;
+import org.snt.inmemantlr.exceptions.ResourceLimitException;
+import org.snt.inmemantlr.exceptions.SyntaxErrorLimitException;
+import org.snt.inmemantlr.exceptions.TokenLimitException;
+import org.snt.inmemantlr.exceptions.TreeNodeLimitException;
+
+/**
+ * enforces resource limits for a single call while lexer and parser are
+ * running -- tokens are counted as they are pulled from the lexer, rule
+ * invocations and terminals as the parser creates them, and syntax errors
+ * as they are reported. Once a limit is exceeded, the call is aborted with
+ * a {@link ParseCancellationException} that carries the corresponding
+ * {@link ResourceLimitException} as its cause.
+ */
+public class ResourceGuard extends BaseErrorListener implements
+        ParseTreeListener {
+
+    private final ResourceLimits limits;
+    private final ResourceUsage usage = new ResourceUsage();
+    private Lexer lexer = null;
+
+    /**
+     * constructor
+     *
+     * @param limits limits to enforce
+     */
+    public ResourceGuard(ResourceLimits limits) {
+        this.limits = limits;
+    }
+
+    public ResourceUsage getUsage() {
+        return usage;
+    }
+
+    /**
+     * count the tokens of a token source
+     *
+     * @param source token source
+     * @return token source that enforces the token limit
+     */
+    public TokenSource wrap(TokenSource source) {
+        return new TokenSource() {
+            @Override
+            public Token nextToken() {
+                if (++usage.tokens > limits.getMaxTokens())
+                    abort(new TokenLimitException(limits.getMaxTokens(),
+                            usage));
+                return source.nextToken();
+            }
+
+            @Override
+            public int getLine() {
+                return source.getLine();
+            }
+
+            @Override
+            public int getCharPositionInLine() {
+                return source.getCharPositionInLine();
+            }
+
+            @Override
+            public CharStream getInputStream() {
+                return source.getInputStream();
+            }
+
+            @Override
+            public String getSourceName() {
+                return source.getSourceName();
+            }
+
+            @Override
+            public void setTokenFactory(TokenFactory<?> factory) {
+                source.setTokenFactory(factory);
+            }
+
+            @Override
+            public TokenFactory<?> getTokenFactory() {
+                return source.getTokenFactory();
+            }
+        };
+    }
+
+    /**
+     * observe the syntax errors of a lexer -- as lexers are cached, the
+     * guard has to be released once the call is done
+     *
+     * @param lexer lexer
+     */
+    public void install(Lexer lexer) {
+        this.lexer = lexer;
+        lexer.addErrorListener(this);
+    }
+
+    /**
+     * stop observing the lexer
+     */
+    public void release() {
+        if (lexer != null)
+            lexer.removeErrorListener(this);
+        lexer = null;
+    }
+
+    /**
+     * observe rule invocations, terminals and syntax errors of a parser
+     *
+     * @param parser parser
+     */
+    public void install(Parser parser) {
+        parser.addParseListener(this);
+        parser.addErrorListener(this);
+    }
+
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object
+            offendingSymbol, int line, int charPositionInLine, String msg,
+                            RecognitionException e) {
+        if (++usage.syntaxErrors > limits.getMaxSyntaxErrors())
+            abort(new SyntaxErrorLimitException(limits.getMaxSyntaxErrors(),
+                    usage));
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        if (++usage.depth > usage.maxDepth)
+            usage.maxDepth = usage.depth;
+        if (usage.depth > limits.getMaxDepth())
+            abort(new DepthLimitException(limits.getMaxDepth(), usage));
+        node();
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        usage.depth--;
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+        node();
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        node();
+    }
+
+    private void node() {
+        if (++usage.treeNodes > limits.getMaxTreeNodes())
+            abort(new TreeNodeLimitException(limits.getMaxTreeNodes(),
+                    usage));
+    }
+
+    private static void abort(ResourceLimitException e) {
+        throw new ParseCancellationException(e.getMessage(), e);
+    }
+}
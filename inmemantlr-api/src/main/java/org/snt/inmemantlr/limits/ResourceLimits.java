@@ -0,0 +1,102 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.limits;
+
+/**
+ * per-call limits for lexing and parsing -- every limit is unbounded by
+ * default
+ */
+public class ResourceLimits {
+
+    private int maxTokens = Integer.MAX_VALUE;
+    private int maxDepth = Integer.MAX_VALUE;
+    private int maxTreeNodes = Integer.MAX_VALUE;
+    private int maxSyntaxErrors = Integer.MAX_VALUE;
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * set the maximum number of tokens (including hidden ones) the lexer
+     * may produce
+     *
+     * @param maxTokens maximum number of tokens
+     */
+    public void setMaxTokens(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * set the maximum nesting depth of rule invocations
+     *
+     * @param maxDepth maximum depth
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxTreeNodes() {
+        return maxTreeNodes;
+    }
+
+    /**
+     * set the maximum number of parse tree nodes, i.e., rule contexts and
+     * terminals
+     *
+     * @param maxTreeNodes maximum number of nodes
+     */
+    public void setMaxTreeNodes(int maxTreeNodes) {
+        this.maxTreeNodes = maxTreeNodes;
+    }
+
+    public int getMaxSyntaxErrors() {
+        return maxSyntaxErrors;
+    }
+
+    /**
+     * set the maximum number of lexer and parser errors after which the
+     * call gives up
+     *
+     * @param maxSyntaxErrors maximum number of syntax errors
+     */
+    public void setMaxSyntaxErrors(int maxSyntaxErrors) {
+        this.maxSyntaxErrors = maxSyntaxErrors;
+    }
+
+    @Override
+    public String toString() {
+        return "tokens <= " + maxTokens + ", depth <= " + maxDepth + ", " +
+                "tree nodes <= " + maxTreeNodes + ", syntax errors <= " +
+                maxSyntaxErrors;
+    }
+}
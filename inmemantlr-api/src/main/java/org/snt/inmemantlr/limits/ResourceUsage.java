@@ -0,0 +1,66 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.limits;
+
+/**
+ * resources that have been used by a single call -- the counts are taken
+ * up to the point where a limit has been exceeded
+ */
+public class ResourceUsage {
+
+    int tokens = 0;
+    int depth = 0;
+    int maxDepth = 0;
+    int treeNodes = 0;
+    int syntaxErrors = 0;
+
+    public int getTokens() {
+        return tokens;
+    }
+
+    /**
+     * @return maximum nesting depth of rule invocations
+     */
+    public int getDepth() {
+        return maxDepth;
+    }
+
+    public int getTreeNodes() {
+        return treeNodes;
+    }
+
+    public int getSyntaxErrors() {
+        return syntaxErrors;
+    }
+
+    @Override
+    public String toString() {
+        return "tokens: " + tokens + ", depth: " + maxDepth + ", tree nodes: "
+                + treeNodes + ", syntax errors: " + syntaxErrors;
+    }
+}
@@ -31,6 +31,8 @@ import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ParseTreeListener;
 import org.antlr.v4.runtime.tree.TerminalNode;
+import org.snt.inmemantlr.metrics.Metrics;
+import org.snt.inmemantlr.metrics.NoopMetrics;
 
 import java.io.Serializable;
 import java.util.HashMap;
@@ -44,6 +46,8 @@ public class DefaultListener implements ParseTreeListener, Serializable {
     private static final long serialVersionUID = 7449676975470436260L;
 
     protected Parser parser;
+    protected transient Metrics metrics = NoopMetrics.INSTANCE;
+    protected String grammar = "";
 
     private final Map<Integer, String> ruleNameMap = new HashMap<>();
 
@@ -75,6 +79,17 @@ public class DefaultListener implements ParseTreeListener, Serializable {
         parser.getRuleIndexMap().forEach((name, id) -> ruleNameMap.put(id, name));
     }
 
+    /**
+     * set the metrics the listener reports to
+     *
+     * @param metrics metrics
+     * @param grammar grammar name
+     */
+    public void setMetrics(Metrics metrics, String grammar) {
+        this.metrics = metrics;
+        this.grammar = grammar;
+    }
+
     public void reset() {
     }
 
@@ -32,6 +32,7 @@ import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.snt.inmemantlr.metrics.Metrics;
 import org.snt.inmemantlr.tree.ParseTree;
 import org.snt.inmemantlr.tree.ParseTreeNode;
 
@@ -125,6 +126,10 @@ public class DefaultTreeListener extends DefaultListener {
         if (filter.test(rule)) {
             nodeptr = nodeptr.getParent();
         }
+        // the walk is finished once the outermost rule is left
+        if (ctx.getParent() == null && metrics != null && metrics.isEnabled())
+            metrics.count(grammar, Metrics.Counter.TREE_NODES, parseTree
+                    .getNodes().size());
     }
 
     @Override
@@ -27,6 +27,8 @@
 package org.snt.inmemantlr.memobjects;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * an object that is used for serializing a generic
@@ -37,6 +39,9 @@ public class GenericParserSerialize implements Serializable {
     private static final long serialVersionUID = -8824622790097111310L;
 
     private MemoryTupleSet mset;
+    private ArrayList<MemoryATN> atns = new ArrayList<>();
+    private MemoryWarmUp warmUp = null;
+    private int[] decisionLines = null;
     private String parserName;
     private String lexerName;
 
@@ -56,10 +61,64 @@ public class GenericParserSerialize implements Serializable {
         this.lexerName = lexerName;
     }
 
+    /**
+     * constructor
+     *
+     * @param mset       set of source/byte code tuples
+     * @param atns       ATNs that are interpreted
+     * @param parserName parser name
+     * @param lexerName  lexer name
+     */
+    public GenericParserSerialize(MemoryTupleSet mset, Collection<MemoryATN>
+            atns, String parserName, String lexerName) {
+        if ((mset == null || mset.size() == 0) && (atns == null || atns.isEmpty()))
+            throw new IllegalArgumentException("mset and atns must not be both" +
+                    " null or empty");
+
+        this.mset = mset;
+        if (atns != null)
+            this.atns.addAll(atns);
+        this.parserName = parserName;
+        this.lexerName = lexerName;
+    }
+
+    /**
+     * set the sample corpus that is replayed on load in order to warm up
+     * the DFA caches
+     *
+     * @param warmUp sample corpus
+     */
+    public void setWarmUp(MemoryWarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public MemoryWarmUp getWarmUp() {
+        // artifacts that were stored by older versions do not carry samples
+        return warmUp != null ? warmUp : new MemoryWarmUp();
+    }
+
+    /**
+     * set the grammar lines of the parser decisions
+     *
+     * @param decisionLines grammar line per decision number
+     */
+    public void setDecisionLines(int[] decisionLines) {
+        this.decisionLines = decisionLines;
+    }
+
+    public int[] getDecisionLines() {
+        return decisionLines;
+    }
+
     public MemoryTupleSet getMemoryTupleSet() {
         return mset;
     }
 
+    public Collection<MemoryATN> getATNs() {
+        // artifacts that were stored by older versions do not carry ATNs
+        return atns != null ? atns : new ArrayList<>();
+    }
+
     public String getParserName() {
         return parserName;
     }
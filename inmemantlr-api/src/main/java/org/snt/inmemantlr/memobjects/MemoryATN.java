@@ -0,0 +1,197 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.memobjects;
+
+import org.antlr.v4.runtime.Vocabulary;
+import org.antlr.v4.runtime.VocabularyImpl;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNDeserializer;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * a representation of a serialized ATN in memory together with the
+ * recognizer meta-data (vocabulary, rule, channel and mode names) that is
+ * required to interpret it without generating and compiling Java code
+ */
+public class MemoryATN implements Serializable {
+
+    private static final long serialVersionUID = -3829138529587313263L;
+
+    private final String cname;
+    private final String grammarFileName;
+    private final boolean lexer;
+    private final char[] serializedATN;
+    private final String[] literalNames;
+    private final String[] symbolicNames;
+    private final String[] ruleNames;
+    private final String[] channelNames;
+    private final String[] modeNames;
+
+    // the deserialized ATN and the DFA cache are shared by all
+    // recognizers that are created from this object
+    private transient ATN atn;
+    private transient DFA[] decisionToDFA;
+    private transient PredictionContextCache sharedContextCache;
+
+    /**
+     * constructor
+     *
+     * @param cname           class name of the recognizer
+     * @param grammarFileName name of the grammar file
+     * @param lexer           true if the ATN belongs to a lexer, false otherwise
+     * @param serializedATN   serialized ATN
+     * @param literalNames    literal token names
+     * @param symbolicNames   symbolic token names
+     * @param ruleNames       rule names
+     * @param channelNames    channel names (lexer only)
+     * @param modeNames       mode names (lexer only)
+     */
+    public MemoryATN(String cname, String grammarFileName, boolean lexer,
+                     char[] serializedATN, String[] literalNames,
+                     String[] symbolicNames, String[] ruleNames,
+                     String[] channelNames, String[] modeNames) {
+        if (serializedATN == null || serializedATN.length == 0)
+            throw new IllegalArgumentException("serialized ATN must not be " +
+                    "null or empty");
+
+        this.cname = cname;
+        this.grammarFileName = grammarFileName;
+        this.lexer = lexer;
+        this.serializedATN = serializedATN;
+        this.literalNames = literalNames;
+        this.symbolicNames = symbolicNames;
+        this.ruleNames = ruleNames;
+        this.channelNames = channelNames;
+        this.modeNames = modeNames;
+    }
+
+    /**
+     * return the class name of this object
+     *
+     * @return the class name
+     */
+    public String getClassName() {
+        return cname;
+    }
+
+    public String getGrammarFileName() {
+        return grammarFileName;
+    }
+
+    /**
+     * check if this object represents a lexer
+     *
+     * @return true, if this object is a lexer, false otherwise
+     */
+    public boolean isLexer() {
+        return lexer;
+    }
+
+    public char[] getSerializedATN() {
+        return serializedATN;
+    }
+
+    public Vocabulary getVocabulary() {
+        return new VocabularyImpl(literalNames, symbolicNames);
+    }
+
+    public List<String> getRuleNames() {
+        return Arrays.asList(ruleNames);
+    }
+
+    public List<String> getChannelNames() {
+        return Arrays.asList(channelNames);
+    }
+
+    public List<String> getModeNames() {
+        return Arrays.asList(modeNames);
+    }
+
+    /**
+     * get the deserialized ATN -- the ATN is deserialized only once
+     *
+     * @return the ATN
+     */
+    public synchronized ATN getATN() {
+        if (atn == null)
+            atn = new ATNDeserializer().deserialize(serializedATN);
+        return atn;
+    }
+
+    /**
+     * get the DFA cache that is shared by all recognizers of this ATN
+     *
+     * @return decision DFAs
+     */
+    public synchronized DFA[] getDecisionToDFA() {
+        if (decisionToDFA == null) {
+            ATN a = getATN();
+            decisionToDFA = new DFA[a.getNumberOfDecisions()];
+            for (int i = 0; i < decisionToDFA.length; i++) {
+                decisionToDFA[i] = new DFA(a.getDecisionState(i), i);
+            }
+        }
+        return decisionToDFA;
+    }
+
+    /**
+     * get the prediction context cache that is shared by all recognizers
+     * of this ATN
+     *
+     * @return prediction context cache
+     */
+    public synchronized PredictionContextCache getSharedContextCache() {
+        if (sharedContextCache == null)
+            sharedContextCache = new PredictionContextCache();
+        return sharedContextCache;
+    }
+
+    @Override
+    public int hashCode() {
+        return cname.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MemoryATN))
+            return false;
+
+        MemoryATN ma = (MemoryATN) o;
+        return ma.cname.equals(cname);
+    }
+
+    @Override
+    public String toString() {
+        return cname;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.memobjects;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * sample corpus that is used for warming up the DFA caches of lexer
+ * and parser -- every sample is stored together with the production
+ * it was parsed with
+ */
+public class MemoryWarmUp implements Serializable {
+
+    private static final long serialVersionUID = 4301850946170295781L;
+
+    private ArrayList<String> productions = new ArrayList<>();
+    private ArrayList<String> samples = new ArrayList<>();
+
+    /**
+     * add a sample
+     *
+     * @param production production to start with, null for the first rule
+     * @param sample     sample input
+     */
+    public void add(String production, String sample) {
+        productions.add(production);
+        samples.add(sample);
+    }
+
+    /**
+     * add all samples of another corpus
+     *
+     * @param other corpus to add
+     */
+    public void addAll(MemoryWarmUp other) {
+        productions.addAll(other.productions);
+        samples.addAll(other.samples);
+    }
+
+    /**
+     * get the production of the i-th sample
+     *
+     * @param i index
+     * @return production, null for the first rule
+     */
+    public String getProduction(int i) {
+        return productions.get(i);
+    }
+
+    /**
+     * get the i-th sample
+     *
+     * @param i index
+     * @return sample input
+     */
+    public String getSample(int i) {
+        return samples.get(i);
+    }
+
+    public List<String> getSamples() {
+        return samples;
+    }
+
+    public int size() {
+        return samples.size();
+    }
+
+    public boolean isEmpty() {
+        return samples.isEmpty();
+    }
+}
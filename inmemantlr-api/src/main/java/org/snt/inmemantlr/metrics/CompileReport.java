@@ -0,0 +1,220 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.metrics;
+
+import org.snt.inmemantlr.jfr.Phase;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * breakdown of the time spent for compiling (or loading) a generic parser
+ * and the footprint of the resulting artifacts
+ */
+public class CompileReport {
+
+    /**
+     * the metaspace consumed by a loaded class is estimated as a multiple
+     * of its class file size
+     */
+    public static final int METASPACE_FACTOR = 2;
+
+    private final List<PhaseTiming> phases;
+    private final List<Artifact> artifacts;
+    private final List<Recognizer> recognizers;
+
+    /**
+     * constructor
+     *
+     * @param phases      recorded phases
+     * @param artifacts   generated classes
+     * @param recognizers lexer and parser ATNs
+     */
+    public CompileReport(List<PhaseTiming> phases, List<Artifact> artifacts,
+                         List<Recognizer> recognizers) {
+        this.phases = Collections.unmodifiableList(phases);
+        this.artifacts = Collections.unmodifiableList(artifacts);
+        this.recognizers = Collections.unmodifiableList(recognizers);
+    }
+
+    public List<PhaseTiming> getPhases() {
+        return phases;
+    }
+
+    public List<Artifact> getArtifacts() {
+        return artifacts;
+    }
+
+    public List<Recognizer> getRecognizers() {
+        return recognizers;
+    }
+
+    /**
+     * get the total wall clock time per phase
+     *
+     * @return wall clock nanoseconds per phase
+     */
+    public Map<Phase, Long> getWallNanos() {
+        Map<Phase, Long> ret = new EnumMap<>(Phase.class);
+        phases.forEach(p -> ret.merge(p.getPhase(), p.getWallNanos(),
+                Long::sum));
+        return ret;
+    }
+
+    /**
+     * get the total cpu time per phase
+     *
+     * @return cpu nanoseconds per phase, -1 if not measurable
+     */
+    public Map<Phase, Long> getCpuNanos() {
+        Map<Phase, Long> ret = new EnumMap<>(Phase.class);
+        phases.forEach(p -> ret.merge(p.getPhase(), p.getCpuNanos(), (a, b)
+                -> a < 0 || b < 0 ? -1 : a + b));
+        return ret;
+    }
+
+    public long getSourceSize() {
+        return artifacts.stream().mapToLong(Artifact::getSourceSize).sum();
+    }
+
+    public int getClassCount() {
+        return artifacts.stream().mapToInt(Artifact::getClassCount).sum();
+    }
+
+    public long getBytecodeSize() {
+        return artifacts.stream().mapToLong(Artifact::getBytecodeSize).sum();
+    }
+
+    /**
+     * rough estimate of the metaspace that is needed for the generated
+     * classes -- interpreted grammars do not have classes and live on the
+     * heap
+     *
+     * @return estimated metaspace in bytes
+     */
+    public long getMetaspaceEstimate() {
+        return METASPACE_FACTOR * getBytecodeSize();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("phase\tgrammar\tsubject\twall(ms)\tcpu(ms)\tinput\toutput\n");
+        phases.forEach(p -> sb.append(p).append("\n"));
+        sb.append("\nclass\tsource\tclasses\tbytecode\n");
+        artifacts.forEach(a -> sb.append(a).append("\n"));
+        sb.append("\nrecognizer\tstates\tdecisions\trules\n");
+        recognizers.forEach(r -> sb.append(r).append("\n"));
+        sb.append(String.format(Locale.ROOT, "%ntotal: %d chars of source, " +
+                        "%d classes, %d bytes of bytecode, ~%d bytes of " +
+                        "metaspace%n", getSourceSize(), getClassCount(),
+                getBytecodeSize(), getMetaspaceEstimate()));
+        return sb.toString();
+    }
+
+    /**
+     * a generated compilation unit
+     */
+    public static class Artifact {
+        private final String className;
+        private final long sourceSize;
+        private final int classCount;
+        private final long bytecodeSize;
+
+        public Artifact(String className, long sourceSize, int classCount,
+                        long bytecodeSize) {
+            this.className = className;
+            this.sourceSize = sourceSize;
+            this.classCount = classCount;
+            this.bytecodeSize = bytecodeSize;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public long getSourceSize() {
+            return sourceSize;
+        }
+
+        public int getClassCount() {
+            return classCount;
+        }
+
+        public long getBytecodeSize() {
+            return bytecodeSize;
+        }
+
+        @Override
+        public String toString() {
+            return className + "\t" + sourceSize + "\t" + classCount + "\t" +
+                    bytecodeSize;
+        }
+    }
+
+    /**
+     * the ATN of a lexer or parser
+     */
+    public static class Recognizer {
+        private final String name;
+        private final int states;
+        private final int decisions;
+        private final int rules;
+
+        public Recognizer(String name, int states, int decisions, int rules) {
+            this.name = name;
+            this.states = states;
+            this.decisions = decisions;
+            this.rules = rules;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getStates() {
+            return states;
+        }
+
+        public int getDecisions() {
+            return decisions;
+        }
+
+        public int getRules() {
+            return rules;
+        }
+
+        @Override
+        public String toString() {
+            return name + "\t" + states + "\t" + decisions + "\t" + rules;
+        }
+    }
+}
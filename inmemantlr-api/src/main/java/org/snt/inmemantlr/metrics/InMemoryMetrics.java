@@ -0,0 +1,146 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * metrics implementation that keeps latency histograms and counters per
+ * grammar in memory
+ */
+public class InMemoryMetrics implements Metrics {
+
+    private final Map<String, GrammarMetrics> grammars = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void record(String grammar, Stage stage, long nanos) {
+        get(grammar).histograms.get(stage).record(nanos);
+    }
+
+    @Override
+    public void count(String grammar, Counter counter, long value) {
+        get(grammar).counters.get(counter).add(value);
+    }
+
+    /**
+     * get the names of all grammars for which metrics were collected
+     *
+     * @return grammar names
+     */
+    public Set<String> getGrammars() {
+        return Collections.unmodifiableSet(grammars.keySet());
+    }
+
+    /**
+     * get the latency histogram of a stage
+     *
+     * @param grammar grammar name
+     * @param stage   stage
+     * @return histogram with latencies in nanoseconds
+     */
+    public Histogram getHistogram(String grammar, Stage stage) {
+        return get(grammar).histograms.get(stage);
+    }
+
+    /**
+     * get the value of a counter
+     *
+     * @param grammar grammar name
+     * @param counter counter
+     * @return accumulated value
+     */
+    public long getCount(String grammar, Counter counter) {
+        return get(grammar).counters.get(counter).sum();
+    }
+
+    /**
+     * get the hit rate of the lexer cache
+     *
+     * @param grammar grammar name
+     * @return hit rate between 0 and 1
+     */
+    public double getLexerCacheHitRate(String grammar) {
+        long hits = getCount(grammar, Counter.LEXER_CACHE_HITS);
+        long total = hits + getCount(grammar, Counter.LEXER_CACHE_MISSES);
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * discard all metrics
+     */
+    public void reset() {
+        grammars.clear();
+    }
+
+    private GrammarMetrics get(String grammar) {
+        GrammarMetrics m = grammars.get(grammar);
+        if (m != null)
+            return m;
+        return grammars.computeIfAbsent(grammar, g -> new GrammarMetrics());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        grammars.forEach((g, m) -> {
+            sb.append(g).append("\n");
+            m.histograms.forEach((s, h) -> {
+                if (h.getCount() > 0)
+                    sb.append("  ").append(s).append(": ").append(h).append("\n");
+            });
+            m.counters.forEach((c, v) -> sb.append("  ").append(c).append(": ")
+                    .append(v.sum()).append("\n"));
+        });
+        return sb.toString();
+    }
+
+    /**
+     * metrics of a single grammar
+     */
+    private static class GrammarMetrics {
+        private final Map<Stage, Histogram> histograms = new EnumMap<>(Stage.class);
+        private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+        GrammarMetrics() {
+            for (Stage s : Stage.values())
+                histograms.put(s, new Histogram());
+            for (Counter c : Counter.values())
+                counters.put(c, new LongAdder());
+        }
+    }
+}
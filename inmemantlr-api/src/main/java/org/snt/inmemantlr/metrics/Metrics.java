@@ -0,0 +1,87 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.metrics;
+
+/**
+ * interface for collecting metrics of compilation, lexing, parsing and
+ * tree processing -- all metrics are tagged with the grammar name;
+ * implementations have to be thread-safe
+ */
+public interface Metrics {
+
+    /**
+     * stages whose latency is recorded
+     */
+    enum Stage {
+        COMPILE,
+        LEX,
+        PARSE,
+        WALK,
+        PROCESS
+    }
+
+    /**
+     * quantities that are counted
+     */
+    enum Counter {
+        INPUT_SIZE,
+        TOKENS,
+        TREE_NODES,
+        SYNTAX_ERRORS,
+        LEXER_CACHE_HITS,
+        LEXER_CACHE_MISSES,
+        CANCELLATIONS,
+        LIMIT_VIOLATIONS
+    }
+
+    /**
+     * check whether metrics are collected -- callers skip measuring
+     * entirely if not
+     *
+     * @return true if metrics are collected, false otherwise
+     */
+    boolean isEnabled();
+
+    /**
+     * record the latency of a stage
+     *
+     * @param grammar grammar name
+     * @param stage   stage
+     * @param nanos   latency in nanoseconds
+     */
+    void record(String grammar, Stage stage, long nanos);
+
+    /**
+     * count a quantity
+     *
+     * @param grammar grammar name
+     * @param counter counter
+     * @param value   value to add
+     */
+    void count(String grammar, Counter counter, long value);
+}
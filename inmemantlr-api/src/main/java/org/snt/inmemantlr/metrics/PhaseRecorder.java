@@ -0,0 +1,66 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.metrics;
+
+import org.snt.inmemantlr.jfr.Phase;
+import org.snt.inmemantlr.jfr.PhaseListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * phase listener that keeps all finished phases
+ */
+public class PhaseRecorder implements PhaseListener {
+
+    private final List<PhaseTiming> timings = new ArrayList<>();
+
+    @Override
+    public synchronized void finished(Phase phase, String grammar, String
+            subject, long wallNanos, long cpuNanos, long inputSize, long
+                                              outputSize) {
+        timings.add(new PhaseTiming(phase, grammar, subject, wallNanos,
+                cpuNanos, inputSize, outputSize));
+    }
+
+    /**
+     * get a copy of the recorded phases
+     *
+     * @return phases in the order in which they have been finished
+     */
+    public synchronized List<PhaseTiming> getTimings() {
+        return new ArrayList<>(timings);
+    }
+
+    /**
+     * discard all recorded phases
+     */
+    public synchronized void reset() {
+        timings.clear();
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.metrics;
+
+import org.snt.inmemantlr.jfr.Phase;
+
+import java.util.Locale;
+
+/**
+ * time spent in a single phase
+ */
+public class PhaseTiming {
+
+    private final Phase phase;
+    private final String grammar;
+    private final String subject;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long inputSize;
+    private final long outputSize;
+
+    /**
+     * constructor
+     *
+     * @param phase      the phase
+     * @param grammar    grammar name
+     * @param subject    the processed object, e.g., a class or file name
+     * @param wallNanos  elapsed wall clock time
+     * @param cpuNanos   cpu time or -1 if unknown
+     * @param inputSize  size of the input of the phase
+     * @param outputSize size of the output of the phase
+     */
+    public PhaseTiming(Phase phase, String grammar, String subject, long
+            wallNanos, long cpuNanos, long inputSize, long outputSize) {
+        this.phase = phase;
+        this.grammar = grammar;
+        this.subject = subject;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public String getGrammar() {
+        return grammar;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public long getInputSize() {
+        return inputSize;
+    }
+
+    public long getOutputSize() {
+        return outputSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s\t%s\t%s\t%.3f\t%.3f\t%d\t%d",
+                phase, grammar, subject, wallNanos / 1e6, cpuNanos < 0 ? -1.0
+                        : cpuNanos / 1e6, inputSize, outputSize);
+    }
+}
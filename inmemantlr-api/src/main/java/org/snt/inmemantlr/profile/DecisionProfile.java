@@ -0,0 +1,193 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.profile;
+
+import org.antlr.v4.runtime.atn.DecisionInfo;
+
+import java.util.Locale;
+
+/**
+ * prediction statistics of a single parser decision aggregated over
+ * many parses
+ */
+public class DecisionProfile {
+
+    private final int decision;
+    private final String rule;
+    private final int line;
+
+    private long invocations = 0;
+    private long timeInPrediction = 0;
+    private long sllTotalLook = 0;
+    private long sllMaxLook = 0;
+    private long llTotalLook = 0;
+    private long llMaxLook = 0;
+    private long llFallbacks = 0;
+    private long sllATNTransitions = 0;
+    private long sllDFATransitions = 0;
+    private long llATNTransitions = 0;
+    private long llDFATransitions = 0;
+    private long ambiguities = 0;
+    private long contextSensitivities = 0;
+    private long errors = 0;
+
+    /**
+     * constructor
+     *
+     * @param decision decision number
+     * @param rule     name of the rule that contains the decision
+     * @param line     grammar line of the decision, -1 if unknown
+     */
+    public DecisionProfile(int decision, String rule, int line) {
+        this.decision = decision;
+        this.rule = rule;
+        this.line = line;
+    }
+
+    /**
+     * add the statistics of a single parse
+     *
+     * @param info decision info of a profiling simulator
+     */
+    void add(DecisionInfo info) {
+        invocations += info.invocations;
+        timeInPrediction += info.timeInPrediction;
+        sllTotalLook += info.SLL_TotalLook;
+        sllMaxLook = Math.max(sllMaxLook, info.SLL_MaxLook);
+        llTotalLook += info.LL_TotalLook;
+        llMaxLook = Math.max(llMaxLook, info.LL_MaxLook);
+        llFallbacks += info.LL_Fallback;
+        sllATNTransitions += info.SLL_ATNTransitions;
+        sllDFATransitions += info.SLL_DFATransitions;
+        llATNTransitions += info.LL_ATNTransitions;
+        llDFATransitions += info.LL_DFATransitions;
+        ambiguities += info.ambiguities.size();
+        contextSensitivities += info.contextSensitivities.size();
+        errors += info.errors.size();
+    }
+
+    public int getDecision() {
+        return decision;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * get the time spent in prediction
+     *
+     * @return time in nanoseconds
+     */
+    public long getTimeInPrediction() {
+        return timeInPrediction;
+    }
+
+    public long getSllTotalLook() {
+        return sllTotalLook;
+    }
+
+    public long getSllMaxLook() {
+        return sllMaxLook;
+    }
+
+    public long getLlTotalLook() {
+        return llTotalLook;
+    }
+
+    public long getLlMaxLook() {
+        return llMaxLook;
+    }
+
+    public long getLlFallbacks() {
+        return llFallbacks;
+    }
+
+    public long getSllATNTransitions() {
+        return sllATNTransitions;
+    }
+
+    public long getSllDFATransitions() {
+        return sllDFATransitions;
+    }
+
+    public long getLlATNTransitions() {
+        return llATNTransitions;
+    }
+
+    public long getLlDFATransitions() {
+        return llDFATransitions;
+    }
+
+    public long getAmbiguities() {
+        return ambiguities;
+    }
+
+    public long getContextSensitivities() {
+        return contextSensitivities;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * get the average SLL lookahead depth per invocation
+     *
+     * @return average SLL lookahead depth
+     */
+    public double getSllAverageLook() {
+        return invocations == 0 ? 0 : (double) sllTotalLook / invocations;
+    }
+
+    /**
+     * get the average LL lookahead depth per fallback
+     *
+     * @return average LL lookahead depth
+     */
+    public double getLlAverageLook() {
+        return llFallbacks == 0 ? 0 : (double) llTotalLook / llFallbacks;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d\t%s\t%d\t%d\t%.3f\t%.2f\t%d\t%.2f\t%d\t%d\t%d" +
+                        "\t%d", decision, rule, line, invocations,
+                timeInPrediction / 1e6, getSllAverageLook(), sllMaxLook,
+                getLlAverageLook(), llMaxLook, llFallbacks, ambiguities,
+                contextSensitivities);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.profile;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.ProfilingATNSimulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * aggregates the decision statistics of ANTLR's profiling simulator
+ * over many parses
+ */
+public class DecisionProfiler {
+
+    /**
+     * header of the report, columns are separated by tabs
+     */
+    public static final String HEADER = "decision\trule\tline\tinvocations" +
+            "\ttime(ms)\tsll-avg\tsll-max\tll-avg\tll-max\tll-fallbacks" +
+            "\tambiguities\tcontext-sensitivities";
+
+    private int[] lines = null;
+    private DecisionProfile[] decisions = null;
+    private long parses = 0;
+
+    /**
+     * set the grammar lines of the decisions
+     *
+     * @param lines grammar line per decision number, null if unknown
+     */
+    public synchronized void setDecisionLines(int[] lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * equip the parser with a profiling simulator
+     *
+     * @param parser parser
+     */
+    public void install(Parser parser) {
+        parser.setProfile(true);
+    }
+
+    /**
+     * add the statistics of the last parse of the given parser
+     *
+     * @param parser parser that was equipped with a profiling simulator
+     */
+    public synchronized void collect(Parser parser) {
+        ParserATNSimulator sim = parser.getInterpreter();
+        if (!(sim instanceof ProfilingATNSimulator))
+            return;
+
+        DecisionInfo[] infos = ((ProfilingATNSimulator) sim).getDecisionInfo();
+
+        if (decisions == null)
+            decisions = createProfiles(parser.getATN(), parser.getRuleNames());
+
+        for (int d = 0; d < infos.length && d < decisions.length; d++)
+            decisions[d].add(infos[d]);
+
+        parses++;
+    }
+
+    private DecisionProfile[] createProfiles(ATN atn, String[] rules) {
+        DecisionProfile[] ret = new DecisionProfile[atn.getNumberOfDecisions()];
+        for (int d = 0; d < ret.length; d++) {
+            int ruleIndex = atn.getDecisionState(d).ruleIndex;
+            String rule = ruleIndex >= 0 && ruleIndex < rules.length ?
+                    rules[ruleIndex] : "";
+            int line = lines != null && d < lines.length ? lines[d] : -1;
+            ret[d] = new DecisionProfile(d, rule, line);
+        }
+        return ret;
+    }
+
+    /**
+     * get the number of profiled parses
+     *
+     * @return number of parses
+     */
+    public synchronized long getParses() {
+        return parses;
+    }
+
+    /**
+     * get the aggregated statistics of all decisions that were invoked
+     *
+     * @param order order of the profiles
+     * @return decision profiles
+     */
+    public synchronized List<DecisionProfile> getDecisions(
+            Comparator<DecisionProfile> order) {
+        if (decisions == null)
+            return new ArrayList<>();
+
+        return Arrays.stream(decisions)
+                .filter(p -> p.getInvocations() > 0)
+                .sorted(order)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * get the aggregated statistics of all decisions that were invoked,
+     * most expensive decision first
+     *
+     * @return decision profiles
+     */
+    public List<DecisionProfile> getDecisions() {
+        return getDecisions(Comparator.comparingLong
+                (DecisionProfile::getTimeInPrediction).reversed());
+    }
+
+    /**
+     * get a tab-separated report of all decisions that were invoked, most
+     * expensive decision first
+     *
+     * @return report
+     */
+    public String getReport() {
+        StringBuilder sb = new StringBuilder(HEADER).append("\n");
+        getDecisions().forEach(p -> sb.append(p).append("\n"));
+        return sb.toString();
+    }
+
+    /**
+     * discard all statistics
+     */
+    public synchronized void reset() {
+        decisions = null;
+        parses = 0;
+    }
+}
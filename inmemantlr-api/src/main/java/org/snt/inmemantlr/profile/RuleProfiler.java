@@ -0,0 +1,255 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.profile;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * sampling profiler that records the time spent in the grammar rules
+ * per rule invocation stack -- only a fraction of the parses is sampled
+ * such that the profiler can be left on; the stacks are exported in the
+ * collapsed format that is understood by flame graph tools
+ */
+public class RuleProfiler {
+
+    private final double sampleRate;
+    private final Node root = new Node();
+    private String grammar = "";
+    private String[] rules = new String[0];
+    private long samples = 0;
+
+    /**
+     * constructor
+     *
+     * @param sampleRate fraction of parses that are sampled between 0 and 1
+     */
+    public RuleProfiler(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1)
+            throw new IllegalArgumentException("sample rate must be between 0" +
+                    " and 1");
+        this.sampleRate = sampleRate;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * decide whether the next parse is sampled and, if so, attach a
+     * sampling listener to the parser
+     *
+     * @param parser parser
+     * @return sampling listener, null if the parse is not sampled
+     */
+    public ParseTreeListener sample(Parser parser) {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)
+            return null;
+
+        Sampler s = new Sampler();
+        parser.addParseListener(s);
+        return s;
+    }
+
+    /**
+     * add the rule stacks that were recorded while parsing
+     *
+     * @param parser   parser
+     * @param listener sampling listener returned by sample()
+     */
+    public void collect(Parser parser, ParseTreeListener listener) {
+        if (!(listener instanceof Sampler))
+            return;
+
+        parser.removeParseListener(listener);
+
+        synchronized (this) {
+            if (rules.length == 0) {
+                grammar = parser.getGrammarFileName();
+                rules = parser.getRuleNames();
+            }
+            root.merge(((Sampler) listener).root);
+            samples++;
+        }
+    }
+
+    /**
+     * get the number of sampled parses
+     *
+     * @return number of sampled parses
+     */
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    /**
+     * write the rule stacks in collapsed format -- every line contains the
+     * stack (grammar and rule names separated by semicolons) followed by
+     * the self time in microseconds
+     *
+     * @param out writer
+     * @throws IOException if the stacks cannot be written
+     */
+    public synchronized void writeCollapsed(Writer out) throws IOException {
+        String pfx = grammar.isEmpty() ? "" : grammar + ";";
+        for (Map.Entry<Integer, Node> e : root.children.entrySet())
+            write(out, pfx, e.getKey(), e.getValue());
+    }
+
+    /**
+     * get the rule stacks in collapsed format
+     *
+     * @return collapsed stacks
+     */
+    public String getCollapsedStacks() {
+        StringWriter sw = new StringWriter();
+        try {
+            writeCollapsed(sw);
+        } catch (IOException e) {
+            // cannot happen for string writers
+            throw new IllegalStateException(e);
+        }
+        return sw.toString();
+    }
+
+    /**
+     * get the self time of every rule summed up over all stacks
+     *
+     * @return self time in nanoseconds per rule name
+     */
+    public synchronized Map<String, Long> getSelfTimes() {
+        Map<String, Long> ret = new HashMap<>();
+        sum(ret, root);
+        return ret;
+    }
+
+    /**
+     * discard all recorded stacks
+     */
+    public synchronized void reset() {
+        root.children.clear();
+        samples = 0;
+    }
+
+    private void sum(Map<String, Long> ret, Node n) {
+        n.children.forEach((rule, c) -> {
+            ret.merge(getRuleName(rule), c.self, Long::sum);
+            sum(ret, c);
+        });
+    }
+
+    private void write(Writer out, String pfx, int rule, Node n) throws
+            IOException {
+        String stack = pfx + getRuleName(rule);
+        long micros = n.self / 1000;
+        if (micros > 0)
+            out.write(stack + " " + micros + "\n");
+        for (Map.Entry<Integer, Node> e : n.children.entrySet())
+            write(out, stack + ";", e.getKey(), e.getValue());
+    }
+
+    private String getRuleName(int rule) {
+        return rule >= 0 && rule < rules.length ? rules[rule] : String
+                .valueOf(rule);
+    }
+
+    /**
+     * node of the rule invocation tree
+     */
+    private static class Node {
+        private final Map<Integer, Node> children = new HashMap<>();
+        private long self = 0;
+
+        Node child(int rule) {
+            return children.computeIfAbsent(rule, r -> new Node());
+        }
+
+        void merge(Node other) {
+            self += other.self;
+            other.children.forEach((rule, c) -> child(rule).merge(c));
+        }
+    }
+
+    /**
+     * parse listener that records the rule invocation tree of one parse
+     */
+    private static class Sampler implements ParseTreeListener {
+
+        private final Node root = new Node();
+        private Node[] nodes = new Node[64];
+        private long[] starts = new long[64];
+        private long[] children = new long[64];
+        private int depth = 0;
+
+        Sampler() {
+            nodes[0] = root;
+        }
+
+        @Override
+        public void enterEveryRule(ParserRuleContext ctx) {
+            if (depth + 1 == nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                starts = Arrays.copyOf(starts, starts.length * 2);
+                children = Arrays.copyOf(children, children.length * 2);
+            }
+            nodes[depth + 1] = nodes[depth].child(ctx.getRuleIndex());
+            depth++;
+            children[depth] = 0;
+            starts[depth] = System.nanoTime();
+        }
+
+        @Override
+        public void exitEveryRule(ParserRuleContext ctx) {
+            if (depth == 0)
+                return;
+            long elapsed = System.nanoTime() - starts[depth];
+            nodes[depth].self += elapsed - children[depth];
+            depth--;
+            children[depth] += elapsed;
+        }
+
+        @Override
+        public void visitTerminal(TerminalNode node) {
+        }
+
+        @Override
+        public void visitErrorNode(ErrorNode node) {
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.stream;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * char stream that checks a cancellation token every
+ * {@value #CHECK_INTERVAL} characters consumed by the lexer
+ */
+public class CancellableCharStream implements CharStream {
+
+    public static final int CHECK_INTERVAL = 1024;
+
+    private final CharStream delegate;
+    private final CancellationToken token;
+    private int consumed = 0;
+
+    /**
+     * constructor
+     *
+     * @param delegate char stream
+     * @param token    cancellation token
+     */
+    public CancellableCharStream(CharStream delegate, CancellationToken
+            token) {
+        this.delegate = delegate;
+        this.token = token;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        return delegate.getText(interval);
+    }
+
+    @Override
+    public void consume() {
+        if (++consumed % CHECK_INTERVAL == 0)
+            token.check();
+        delegate.consume();
+    }
+
+    @Override
+    public int LA(int i) {
+        return delegate.LA(i);
+    }
+
+    @Override
+    public int mark() {
+        return delegate.mark();
+    }
+
+    @Override
+    public void release(int marker) {
+        delegate.release(marker);
+    }
+
+    @Override
+    public int index() {
+        return delegate.index();
+    }
+
+    @Override
+    public void seek(int index) {
+        delegate.seek(index);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public String getSourceName() {
+        return delegate.getSourceName();
+    }
+}
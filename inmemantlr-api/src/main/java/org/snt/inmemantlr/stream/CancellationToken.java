@@ -0,0 +1,127 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.stream;
+
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cooperative cancellation of lexing and parsing -- a token is either
+ * cancelled explicitly or expires at its deadline. The streams that are
+ * used by lexer and parser check the token while consuming input, which
+ * includes the lookahead of the prediction and the error recovery.
+ */
+public class CancellationToken {
+
+    private final long deadline;
+    private final boolean bounded;
+    private final CancellationToken parent;
+    private volatile boolean cancelled = false;
+
+    /**
+     * constructor for a token that is only cancelled explicitly
+     */
+    public CancellationToken() {
+        this(0, false, null);
+    }
+
+    private CancellationToken(long deadline, boolean bounded,
+                              CancellationToken parent) {
+        this.deadline = deadline;
+        this.bounded = bounded;
+        this.parent = parent;
+    }
+
+    /**
+     * create a token that expires after the given time
+     *
+     * @param timeout timeout
+     * @param unit    time unit
+     * @return cancellation token
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        return withDeadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * create a token that expires at the given deadline
+     *
+     * @param deadline deadline in terms of {@link System#nanoTime()}
+     * @return cancellation token
+     */
+    public static CancellationToken withDeadline(long deadline) {
+        return new CancellationToken(deadline, true, null);
+    }
+
+    /**
+     * create a token that is cancelled together with this token but that
+     * can also be cancelled on its own without affecting this token
+     *
+     * @return child token
+     */
+    public CancellationToken child() {
+        return new CancellationToken(0, false, this);
+    }
+
+    /**
+     * cancel all operations that use this token
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * check whether the token has been cancelled or is expired
+     *
+     * @return true if cancelled or expired, false otherwise
+     */
+    public boolean isCancelled() {
+        if (cancelled)
+            return true;
+        if (isExpired() || parent != null && parent.isCancelled())
+            cancelled = true;
+        return cancelled;
+    }
+
+    private boolean isExpired() {
+        return bounded && System.nanoTime() - deadline >= 0 || parent !=
+                null && parent.isExpired();
+    }
+
+    /**
+     * abort the current operation if the token has been cancelled
+     *
+     * @throws ParseCancellationException if cancelled or expired
+     */
+    public void check() {
+        if (isCancelled())
+            throw new ParseCancellationException(isExpired() ? "deadline " +
+                    "exceeded" : "cancelled");
+    }
+}
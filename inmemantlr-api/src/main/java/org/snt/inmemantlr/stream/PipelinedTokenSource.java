@@ -0,0 +1,357 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.stream;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * token source that runs the lexer on a thread of its own -- the lexer
+ * publishes chunks of tokens into a bounded buffer while the parser,
+ * usually through a CommonTokenStream, consumes them on the calling thread.
+ * Lexer errors are recorded along with the tokens and reported to the
+ * original lexer error listeners on the consuming thread, in the order
+ * in which they occurred; exceptions thrown by the lexer are rethrown at
+ * the position where they occurred. The position and the input stream
+ * are answered from the consumed tokens rather than from the lexer that
+ * is still running. A source must be closed once parsing has finished.
+ */
+public class PipelinedTokenSource implements TokenSource, AutoCloseable {
+
+    /**
+     * number of tokens that are handed over at once
+     */
+    public static final int CHUNK_SIZE = 256;
+
+    /**
+     * default number of chunks that can be buffered
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private static final Executor LEXERS = Executors.newCachedThreadPool
+            (r -> {
+                Thread t = new Thread(r, "inmemantlr-lexer-" + THREADS
+                        .incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+    private final Lexer lexer;
+    private final TokenSource source;
+    private final CharStream input;
+    private final String sourceName;
+    private final TokenFactory<?> factory;
+    private final List<? extends ANTLRErrorListener> listeners;
+    private final BlockingQueue<Object[]> queue;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean closed = false;
+    private boolean direct = false;
+
+    // producer side
+    private List<Object> pending = new ArrayList<>(CHUNK_SIZE);
+    private long lexNanos = 0L;
+    private int tokenCount = 0;
+
+    // consumer side
+    private Object[] chunk = null;
+    private int pos = 0;
+    private Token eof = null;
+    private Token last = null;
+
+    /**
+     * a lexer error that is reported on the consuming thread
+     */
+    private static final class LexerError {
+        private final Object offendingSymbol;
+        private final int line;
+        private final int charPositionInLine;
+        private final String msg;
+        private final RecognitionException e;
+
+        private LexerError(Object offendingSymbol, int line, int
+                charPositionInLine, String msg, RecognitionException e) {
+            this.offendingSymbol = offendingSymbol;
+            this.line = line;
+            this.charPositionInLine = charPositionInLine;
+            this.msg = msg;
+            this.e = e;
+        }
+    }
+
+    /**
+     * an exception that has been thrown by the lexer
+     */
+    private static final class Failure {
+        private final Throwable cause;
+
+        private Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * constructor -- lexes on a shared pool of daemon threads
+     *
+     * @param lexer  lexer whose error listeners are served in order
+     * @param source token source that is backed by the lexer
+     */
+    public PipelinedTokenSource(Lexer lexer, TokenSource source) {
+        this(lexer, source, LEXERS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * constructor
+     *
+     * @param lexer    lexer whose error listeners are served in order
+     * @param source   token source that is backed by the lexer
+     * @param executor executor that runs the lexer
+     * @param capacity number of token chunks that can be buffered
+     */
+    public PipelinedTokenSource(Lexer lexer, TokenSource source, Executor
+            executor, int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.lexer = lexer;
+        this.source = source;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.input = source.getInputStream();
+        this.sourceName = source.getSourceName();
+        this.factory = source.getTokenFactory();
+        this.listeners = new ArrayList<>(lexer.getErrorListeners());
+
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object
+                    offendingSymbol, int line, int charPositionInLine,
+                                    String msg, RecognitionException e) {
+                pending.add(new LexerError(offendingSymbol, line,
+                        charPositionInLine, msg, e));
+            }
+        });
+
+        try {
+            executor.execute(this::produce);
+        } catch (RejectedExecutionException e) {
+            // lex on the consuming thread instead
+            restore();
+            direct = true;
+            finished.countDown();
+        }
+    }
+
+    private void produce() {
+        long begin = System.nanoTime();
+        try {
+            for (; ; ) {
+                Token t = source.nextToken();
+                tokenCount++;
+                pending.add(t);
+                if (t.getType() == Token.EOF)
+                    break;
+                if (pending.size() >= CHUNK_SIZE && !publish())
+                    return;
+            }
+        } catch (RuntimeException | Error e) {
+            pending.add(new Failure(e));
+        } finally {
+            lexNanos = System.nanoTime() - begin;
+            publish();
+            finished.countDown();
+        }
+    }
+
+    private boolean publish() {
+        Object[] items = pending.toArray();
+        pending = new ArrayList<>(CHUNK_SIZE);
+        try {
+            // give up once nobody consumes anymore
+            while (!closed) {
+                if (queue.offer(items, 10, TimeUnit.MILLISECONDS))
+                    return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    @Override
+    public Token nextToken() {
+        if (direct) {
+            long begin = System.nanoTime();
+            try {
+                last = source.nextToken();
+                tokenCount++;
+                return last;
+            } finally {
+                lexNanos += System.nanoTime() - begin;
+            }
+        }
+        for (; ; ) {
+            if (chunk == null || pos == chunk.length) {
+                if (eof != null)
+                    return eof;
+                chunk = take();
+                pos = 0;
+            }
+            Object item = chunk[pos++];
+            if (item instanceof Token) {
+                Token t = (Token) item;
+                if (t.getType() == Token.EOF)
+                    eof = t;
+                last = t;
+                return t;
+            } else if (item instanceof LexerError) {
+                LexerError err = (LexerError) item;
+                for (ANTLRErrorListener l : listeners)
+                    l.syntaxError(lexer, err.offendingSymbol, err.line, err
+                            .charPositionInLine, err.msg, err.e);
+            } else {
+                Throwable cause = ((Failure) item).cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw (RuntimeException) cause;
+            }
+        }
+    }
+
+    private Object[] take() {
+        if (closed)
+            throw new IllegalStateException("token source has been closed");
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParseCancellationException(e);
+        }
+    }
+
+    /**
+     * stop the lexer thread if it is still running, wait until it has
+     * finished and hand the error listeners back to the lexer
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        queue.clear();
+        boolean interrupted = false;
+        for (; ; ) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (!direct)
+            restore();
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void restore() {
+        lexer.removeErrorListeners();
+        listeners.forEach(lexer::addErrorListener);
+    }
+
+    /**
+     * @return true if the lexer runs on a thread of its own
+     */
+    public boolean isPipelined() {
+        return !direct;
+    }
+
+    /**
+     * time the lexer has spent on the input -- final once the source has
+     * been closed
+     *
+     * @return lexing time in nanoseconds
+     */
+    public long getLexNanos() {
+        return lexNanos;
+    }
+
+    /**
+     * number of tokens the lexer has produced -- final once the source
+     * has been closed
+     *
+     * @return number of tokens
+     */
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    @Override
+    public int getLine() {
+        return last != null ? last.getLine() : 1;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        if (last == null)
+            return 0;
+        return last.getCharPositionInLine() + Math.max(0, last
+                .getStopIndex() - last.getStartIndex() + 1);
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return input;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    /**
+     * not supported -- the lexer may already be producing tokens
+     *
+     * @param factory token factory
+     */
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        throw new UnsupportedOperationException("the token factory cannot" +
+                " be changed while the lexer is running");
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return factory;
+    }
+}
@@ -55,6 +55,7 @@ public class InmemantlrErrorListener extends BaseErrorListener {
     }
 
     Map<Type,String> log = new HashMap<>();
+    private int syntaxErrors = 0;
 
     @Override
     public void syntaxError(Recognizer<?, ?> recognizer,
@@ -64,6 +65,7 @@ public class InmemantlrErrorListener extends BaseErrorListener {
                             String msg,
                             RecognitionException e)
     {
+        syntaxErrors++;
         log.put(Type.SYNTAX_ERROR, "(line " + line + ",char " +
                 charPositionInLine + "): " + msg);
     }
@@ -109,4 +111,21 @@ public class InmemantlrErrorListener extends BaseErrorListener {
         return log;
     }
 
+    /**
+     * get the number of syntax errors that were reported
+     *
+     * @return number of syntax errors
+     */
+    public int getSyntaxErrors() {
+        return syntaxErrors;
+    }
+
+    /**
+     * forget all reported errors so that the listener can be reused
+     */
+    public void reset() {
+        log.clear();
+        syntaxErrors = 0;
+    }
+
 }
@@ -48,12 +48,20 @@ import org.slf4j.LoggerFactory;
 import org.snt.inmemantlr.comp.StringCodeGenPipeline;
 import org.snt.inmemantlr.grammar.InmemantlrGrammar;
 import org.snt.inmemantlr.grammar.InmemantlrLexerGrammar;
+import org.snt.inmemantlr.jfr.Phase;
+import org.snt.inmemantlr.jfr.PhaseEvent;
+import org.snt.inmemantlr.jfr.PhaseEvents;
 import org.snt.inmemantlr.utils.Tuple;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -80,10 +88,111 @@ public class InmemantlrTool extends org.antlr.v4.Tool {
     private String parserName = "";
     private String lexerName = "";
 
+    /**
+     * class path resource of the lean template overlay
+     */
+    public static final String LEAN_TEMPLATES =
+            "org/snt/inmemantlr/templates/Lean.stg";
+
+    /**
+     * class path resource of the shared ATN template overlay
+     */
+    public static final String SHARED_ATN_TEMPLATES =
+            "org/snt/inmemantlr/templates/SharedATN.stg";
+
+    private boolean generateCode = true;
+    private boolean leanCodeGeneration = false;
+    private boolean sharedATN = false;
+    private Set<String> entryRules = new LinkedHashSet<>();
+
     public InmemantlrTool() {
         gen_dependencies = true;
     }
 
+    /**
+     * switch Java code generation on or off -- if switched off, grammars
+     * are only analysed such that their ATNs can be interpreted
+     *
+     * @param generateCode true to generate Java code, false otherwise
+     */
+    public void setGenerateCode(boolean generateCode) {
+        this.generateCode = generateCode;
+    }
+
+    /**
+     * check whether Java code is generated for the grammars -- note that
+     * code generation is switched on automatically by process() for grammars
+     * with embedded code
+     *
+     * @return true if Java code is generated, false otherwise
+     */
+    public boolean isGenerateCode() {
+        return generateCode;
+    }
+
+    /**
+     * switch lean code generation on or off -- if switched on, the Java
+     * code is generated with the lean template overlay which omits the
+     * context accessor methods as well as listeners and visitors; grammars
+     * with embedded code are always generated with the standard templates
+     *
+     * @param leanCodeGeneration true to generate lean code, false otherwise
+     */
+    public void setLeanCodeGeneration(boolean leanCodeGeneration) {
+        this.leanCodeGeneration = leanCodeGeneration;
+    }
+
+    /**
+     * check whether lean code generation is switched on
+     *
+     * @return true if lean code is generated, false otherwise
+     */
+    public boolean isLeanCodeGeneration() {
+        return leanCodeGeneration;
+    }
+
+    /**
+     * switch shared ATNs on or off -- if switched on, the generated
+     * recognizers take their ATN and DFA cache from the SharedATNCache
+     * instead of deserializing it in their static initializer; note that
+     * the generated code then depends on the inmemantlr classes which have
+     * to be available on the class path of the Java compiler
+     *
+     * @param sharedATN true to share ATNs, false otherwise
+     */
+    public void setSharedATN(boolean sharedATN) {
+        this.sharedATN = sharedATN;
+    }
+
+    /**
+     * check whether shared ATNs are switched on
+     *
+     * @return true if ATNs are shared, false otherwise
+     */
+    public boolean isSharedATN() {
+        return sharedATN;
+    }
+
+    /**
+     * set the entry rules -- if set, parser rules that are not reachable
+     * from any of the entry rules are removed from the grammars before
+     * semantic analysis and code generation
+     *
+     * @param entryRules names of the entry rules
+     */
+    public void setEntryRules(Collection<String> entryRules) {
+        this.entryRules = new LinkedHashSet<>(entryRules);
+    }
+
+    /**
+     * get the entry rules
+     *
+     * @return names of the entry rules, empty if all rules are kept
+     */
+    public Set<String> getEntryRules() {
+        return Collections.unmodifiableSet(entryRules);
+    }
+
     /**
      * process a grammar
      *
@@ -119,14 +228,22 @@ public class InmemantlrTool extends org.antlr.v4.Tool {
         Graph<String> g = new Graph<>();
         List<GrammarRootAST> roots = new ArrayList<>();
         for (String gc : gcs) {
+            PhaseEvent ev = PhaseEvents.begin(Phase.GRAMMAR_PARSING);
             GrammarAST t = parseGrammarFromString(gc);
-            if (t instanceof GrammarASTErrorNode)
+            if (t instanceof GrammarASTErrorNode) {
+                ev.finish(null, null, gc.length(), 0);
                 continue;
+            }
 
-            if (((GrammarRootAST) t).hasErrors)
+            GrammarRootAST root = (GrammarRootAST) t;
+            GrammarAST rules = (GrammarAST) root.getFirstChildWithType
+                    (ANTLRParser.RULES);
+            ev.finish(root.getGrammarName(), null, gc.length(), rules != null ?
+                    rules.getChildCount() : 0);
+
+            if (root.hasErrors)
                 continue;
 
-            GrammarRootAST root = (GrammarRootAST) t;
             roots.add(root);
             root.fileName = root.getGrammarName();
 
@@ -286,8 +403,15 @@ public class InmemantlrTool extends org.antlr.v4.Tool {
             }
 
             if (!isImported(g.name)) {
+                PhaseEvent ev = PhaseEvents.begin(Phase.ANALYSIS);
                 process(p.getG());
-                p.process();
+                ev.finish(g.name, null, g.rules.size(), g.atn != null ? g
+                        .atn.states.size() : 0);
+                if (generateCode) {
+                    p.process();
+                } else {
+                    p.processTokenVocab();
+                }
                 setParserLexer(p.getG());
 
                 if (p.hasTokenVocab()) {
@@ -297,6 +421,14 @@ public class InmemantlrTool extends org.antlr.v4.Tool {
             }
         }
 
+        // actions and predicates can only be executed by generated code
+        if (!generateCode && getCompilationUnits().stream()
+                .anyMatch(StringCodeGenPipeline::hasEmbeddedCode)) {
+            LOGGER.debug("embedded code found -- fall back to code generation");
+            generateCode = true;
+            getCompilationUnits().forEach(StringCodeGenPipeline::process);
+        }
+
         return new Tuple<>(parserName, lexerName);
     }
 
@@ -364,6 +496,7 @@ public class InmemantlrTool extends org.antlr.v4.Tool {
      */
     public void processNonCombinedGrammar(Grammar g, boolean gencode) {
         if ( g.ast==null || g.ast.hasErrors ) return;
+        if ( !g.isLexer() && !entryRules.isEmpty() ) pruneRules(g);
         if ( internalOption_PrintGrammarTree ) System.out.println(g.ast.toStringTree());
 
         boolean ruleFail = checkForRuleIssues(g);
@@ -407,5 +540,55 @@ public class InmemantlrTool extends org.antlr.v4.Tool {
         }
     }
 
+    /**
+     * remove all parser rules from the grammar ast that are not reachable
+     * from the entry rules -- lexer rules are kept because removing them
+     * would change the way the input is tokenized
+     *
+     * @param g grammar to prune
+     */
+    private void pruneRules(Grammar g) {
+        GrammarAST rules = (GrammarAST) g.ast.getFirstChildWithType
+                (ANTLRParser.RULES);
+
+        if (rules == null)
+            return;
+
+        Map<String, GrammarAST> prules = new LinkedHashMap<>();
+        for (int i = 0; i < rules.getChildCount(); i++) {
+            GrammarAST rule = (GrammarAST) rules.getChild(i);
+            if (rule.getChildCount() > 0 &&
+                    rule.getChild(0).getType() == ANTLRParser.RULE_REF)
+                prules.put(rule.getChild(0).getText(), rule);
+        }
+
+        Deque<String> todo = entryRules.stream()
+                .filter(prules::containsKey)
+                .collect(toCollection(ArrayDeque::new));
 
+        // none of the entry rules is defined in this grammar
+        if (todo.isEmpty())
+            return;
+
+        Set<String> reachable = new HashSet<>();
+        while (!todo.isEmpty()) {
+            String name = todo.pop();
+            if (!reachable.add(name))
+                continue;
+            prules.get(name).getNodesWithType(ANTLRParser.RULE_REF).stream()
+                    .map(GrammarAST::getText)
+                    .filter(prules::containsKey)
+                    .forEach(todo::push);
+        }
+
+        for (int i = rules.getChildCount() - 1; i >= 0; i--) {
+            GrammarAST rule = (GrammarAST) rules.getChild(i);
+            if (rule.getChildCount() > 0 &&
+                    rule.getChild(0).getType() == ANTLRParser.RULE_REF &&
+                    !reachable.contains(rule.getChild(0).getText())) {
+                LOGGER.debug("prune rule {}", rule.getChild(0).getText());
+                rules.deleteChild(i);
+            }
+        }
+    }
 }
@@ -27,6 +27,8 @@
 package org.snt.inmemantlr.tree;
 
 import org.snt.inmemantlr.exceptions.ParseTreeProcessorException;
+import org.snt.inmemantlr.metrics.Metrics;
+import org.snt.inmemantlr.metrics.NoopMetrics;
 
 import java.util.ArrayDeque;
 import java.util.HashMap;
@@ -46,6 +48,8 @@ public abstract class ParseTreeProcessor<R, T> {
     protected Queue<ParseTreeNode> active;
 
     private Map<ParseTreeNode, Integer> nmap;
+    private Metrics metrics = NoopMetrics.INSTANCE;
+    private String grammar = "";
 
     /**
      * constructor
@@ -59,6 +63,17 @@ public abstract class ParseTreeProcessor<R, T> {
         active = new ArrayDeque<>();
     }
 
+    /**
+     * set the metrics the processor reports to
+     *
+     * @param metrics metrics
+     * @param grammar grammar name
+     */
+    public void setMetrics(Metrics metrics, String grammar) {
+        this.metrics = metrics;
+        this.grammar = grammar;
+    }
+
     /**
      * process the abstract syntax tree
      *
@@ -68,6 +83,8 @@ public abstract class ParseTreeProcessor<R, T> {
      */
     public R process() throws ParseTreeProcessorException {
 
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+
         // sort nodes topologically first
         this.parseTree.topoSort();
 
@@ -94,7 +111,13 @@ public abstract class ParseTreeProcessor<R, T> {
             }
         }
 
-        return getResult();
+        R result = getResult();
+
+        if (metrics.isEnabled())
+            metrics.record(grammar, Metrics.Stage.PROCESS, System.nanoTime()
+                    - start);
+
+        return result;
     }
 
     /**
@@ -0,0 +1,157 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.validation;
+
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.Vocabulary;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * result of validating an input -- for invalid inputs, the position of the
+ * first syntax error and the tokens that would have been expected there
+ */
+public class ValidationResult {
+
+    public static final ValidationResult VALID = new ValidationResult(true,
+            0, -1, -1, "", Collections.emptySet(), "");
+
+    private final boolean valid;
+    private final int line;
+    private final int charPositionInLine;
+    private final int offset;
+    private final String offendingText;
+    private final Set<String> expected;
+    private final String message;
+
+    private ValidationResult(boolean valid, int line, int
+            charPositionInLine, int offset, String offendingText,
+                             Set<String> expected, String message) {
+        this.valid = valid;
+        this.line = line;
+        this.charPositionInLine = charPositionInLine;
+        this.offset = offset;
+        this.offendingText = offendingText;
+        this.expected = expected;
+        this.message = message;
+    }
+
+    /**
+     * result for an error of the lexer
+     *
+     * @param line               line of the error
+     * @param charPositionInLine position within the line
+     * @param offset             character offset of the error
+     * @param message            lexer message
+     * @return invalid result
+     */
+    public static ValidationResult lexerError(int line, int
+            charPositionInLine, int offset, String message) {
+        return new ValidationResult(false, line, charPositionInLine, offset,
+                "", Collections.emptySet(), message);
+    }
+
+    /**
+     * result for an error of the parser
+     *
+     * @param e          recognition exception
+     * @param vocabulary vocabulary of the parser
+     * @return invalid result
+     */
+    public static ValidationResult parserError(RecognitionException e,
+                                               Vocabulary vocabulary) {
+        Token t = e.getOffendingToken();
+        Set<String> expected = new LinkedHashSet<>();
+        IntervalSet set = null;
+        try {
+            set = e.getExpectedTokens();
+        } catch (RuntimeException ex) {
+            // no state information available
+        }
+        if (set != null) {
+            for (int type : set.toList())
+                expected.add(vocabulary.getDisplayName(type));
+        }
+        String text = t == null ? "" : t.getType() == Token.EOF ? "<EOF>" : t
+                .getText();
+        return new ValidationResult(false, t == null ? 0 : t.getLine(), t ==
+                null ? -1 : t.getCharPositionInLine(), t == null ? -1 : t
+                .getStartIndex(), text, Collections.unmodifiableSet
+                (expected), e.getClass().getSimpleName() + " at '" + text +
+                "'");
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getCharPositionInLine() {
+        return charPositionInLine;
+    }
+
+    /**
+     * @return character offset of the error, -1 for valid inputs
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return text of the offending token, empty for lexer errors
+     */
+    public String getOffendingText() {
+        return offendingText;
+    }
+
+    /**
+     * @return display names of the expected tokens, empty for lexer errors
+     */
+    public Set<String> getExpected() {
+        return expected;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        if (valid)
+            return "valid";
+        return "(line " + line + ",char " + charPositionInLine + "): " +
+                message + (expected.isEmpty() ? "" : " expecting " + expected);
+    }
+}
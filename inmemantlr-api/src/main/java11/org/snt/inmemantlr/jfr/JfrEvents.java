@@ -0,0 +1,186 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * jdk.jfr event types -- this class is compiled for Java 11+ and only
+ * loaded reflectively by PhaseEvents if jdk.jfr is available, so the
+ * Java 8 classes do not depend on jdk.jfr
+ */
+final class JfrEvents implements PhaseEventFactory {
+
+    JfrEvents() {
+    }
+
+    @Override
+    public PhaseEvent begin(Phase phase) {
+        InmemantlrEvent e;
+        switch (phase) {
+            case GRAMMAR_PARSING:
+                e = new GrammarParsingEvent();
+                break;
+            case ANALYSIS:
+                e = new AnalysisEvent();
+                break;
+            case CODE_GENERATION:
+                e = new CodeGenerationEvent();
+                break;
+            case COMPILATION:
+                e = new CompilationEvent();
+                break;
+            case CLASS_DEFINITION:
+                e = new ClassDefinitionEvent();
+                break;
+            case INITIALIZATION:
+                e = new InitializationEvent();
+                break;
+            case LEXING:
+                e = new LexingEvent();
+                break;
+            case PARSING:
+                e = new ParsingEvent();
+                break;
+            case WALKING:
+                e = new WalkingEvent();
+                break;
+            default:
+                e = new SerializationEvent();
+                break;
+        }
+        if (!e.isEnabled())
+            return PhaseEvent.NOOP;
+        e.begin();
+        return e;
+    }
+
+    @Category("Inmemantlr")
+    @StackTrace(false)
+    abstract static class InmemantlrEvent extends Event implements
+            PhaseEvent {
+
+        @Label("Grammar")
+        String grammar;
+
+        @Label("Subject")
+        String subject;
+
+        @Label("Input Size")
+        long inputSize;
+
+        @Label("Output Size")
+        long outputSize;
+
+        @Override
+        public void finish(String grammar, String subject, long inputSize,
+                           long outputSize) {
+            end();
+            if (shouldCommit()) {
+                this.grammar = grammar;
+                this.subject = subject;
+                this.inputSize = inputSize;
+                this.outputSize = outputSize;
+                commit();
+            }
+        }
+    }
+
+    @Name("org.snt.inmemantlr.GrammarParsing")
+    @Label("Grammar Parsing")
+    @Description("Parsing of a grammar into an AST; input: characters, " +
+            "output: rules")
+    static final class GrammarParsingEvent extends InmemantlrEvent {
+    }
+
+    @Name("org.snt.inmemantlr.Analysis")
+    @Label("Grammar Analysis")
+    @Description("Semantic analysis and ATN construction; input: rules, " +
+            "output: ATN states")
+    static final class AnalysisEvent extends InmemantlrEvent {
+    }
+
+    @Name("org.snt.inmemantlr.CodeGeneration")
+    @Label("Code Generation")
+    @Description("Template rendering; input: rules, output: characters of " +
+            "generated source")
+    static final class CodeGenerationEvent extends InmemantlrEvent {
+    }
+
+    @Name("org.snt.inmemantlr.Compilation")
+    @Label("Java Compilation")
+    @Description("Compilation of the generated sources; input: characters " +
+            "of source, output: bytes of bytecode")
+    static final class CompilationEvent extends InmemantlrEvent {
+    }
+
+    @Name("org.snt.inmemantlr.ClassDefinition")
+    @Label("Class Definition")
+    @Description("Definition of a generated class; input: bytes of bytecode")
+    static final class ClassDefinitionEvent extends InmemantlrEvent {
+    }
+
+    @Name("org.snt.inmemantlr.Initialization")
+    @Label("Recognizer Initialization")
+    @Description("Loading and initialization of a lexer or parser; output: " +
+            "ATN states")
+    static final class InitializationEvent extends InmemantlrEvent {
+    }
+
+    @Name("org.snt.inmemantlr.Lexing")
+    @Label("Lexing")
+    @Description("Tokenization of an input; input: characters, output: " +
+            "tokens")
+    static final class LexingEvent extends InmemantlrEvent {
+    }
+
+    @Name("org.snt.inmemantlr.Parsing")
+    @Label("Parsing")
+    @Description("Parsing of a token stream; input: tokens, output: syntax " +
+            "errors")
+    static final class ParsingEvent extends InmemantlrEvent {
+    }
+
+    @Name("org.snt.inmemantlr.Walking")
+    @Label("Listener Walk")
+    @Description("Parse tree walk with the listener; input: tokens")
+    static final class WalkingEvent extends InmemantlrEvent {
+    }
+
+    @Name("org.snt.inmemantlr.Serialization")
+    @Label("Serialization")
+    @Description("Storing or loading a generic parser; input: bytes read, " +
+            "output: bytes written")
+    static final class SerializationEvent extends InmemantlrEvent {
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+import org.snt.inmemantlr.exceptions.ParsingCancelledException;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.listener.DefaultListener;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.metrics.InMemoryMetrics;
+import org.snt.inmemantlr.metrics.Metrics;
+import org.snt.inmemantlr.stream.CancellationToken;
+import org.snt.inmemantlr.tree.ParseTree;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestAsync {
+
+    private String getGrammar() throws IOException {
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            return FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    private static Throwable cause(CompletableFuture<?> f) {
+        return assertThrows(CompletionException.class, f::join).getCause();
+    }
+
+    @Test
+    public void testCompileAndParse() throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            GenericParser gp = new GenericParser(getGrammar());
+            DefaultTreeListener listener = new DefaultTreeListener();
+            gp.setListener(listener);
+
+            ParserRuleContext ctx = gp.compileAsync(pool).thenCompose(p -> p
+                    .parseAsync("PRINT a+b", pool)).join();
+            Assertions.assertNotNull(ctx);
+            Assertions.assertEquals("s", gp.getParserPrototype()
+                    .getRuleNames()[ctx.getRuleIndex()]);
+
+            ParseTree tree = gp.parseTreeAsync("PRINT a+b PRINT c+d", "s",
+                    null, pool).join();
+            Assertions.assertTrue(tree.getNodes().size() > 1);
+
+            Assertions.assertTrue(cause(gp.parseAsync("PRINT +", pool))
+                    instanceof ParsingException);
+
+            gp.setListener(new DefaultListener());
+            Assertions.assertTrue(cause(gp.parseTreeAsync("PRINT a+b", null,
+                    null, pool)) instanceof IllegalWorkflowException);
+
+            GenericParser broken = new GenericParser("grammar X; x : ;;");
+            Assertions.assertTrue(cause(broken.compileAsync(pool)) instanceof
+                    CompilationException);
+        } catch (IllegalWorkflowException e) {
+            Assertions.fail(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testQueueing() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        gp.compileAsync(Runnable::run).join();
+
+        // queued calls do not occupy a thread while they wait
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        CompletableFuture<ParserRuleContext> first = gp.parseAsync("PRINT a+b",
+                tasks::add);
+        CompletableFuture<ParserRuleContext> second = gp.parseAsync("PRINT " +
+                "c+d", tasks::add);
+        Assertions.assertEquals(1, tasks.size());
+        tasks.poll().run();
+        Assertions.assertNotNull(first.join());
+        Assertions.assertEquals(1, tasks.size());
+        tasks.poll().run();
+        Assertions.assertNotNull(second.join());
+
+        // errors fail the future and do not block later calls
+        gp.setStreamProvider(s -> {
+            throw new StackOverflowError();
+        });
+        Assertions.assertTrue(cause(gp.parseAsync("PRINT a+b", Runnable::run))
+                instanceof StackOverflowError);
+        Assertions.assertTrue(cause(gp.parseAsync("PRINT a+b", r -> {
+            throw new RejectedExecutionException();
+        })) instanceof RejectedExecutionException);
+
+        gp.setStreamProvider(CharStreams::fromString);
+        Assertions.assertNotNull(gp.parseAsync("PRINT a+b", Runnable::run)
+                .join());
+    }
+
+    @Test
+    public void testCancellation() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        gp.setMetrics(metrics);
+        gp.compileAsync(Runnable::run).join();
+
+        // a future that is cancelled before it runs is skipped
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        CompletableFuture<ParserRuleContext> f = gp.parseAsync("PRINT a+b",
+                tasks::add);
+        Assertions.assertTrue(f.cancel(true));
+        tasks.poll().run();
+        Assertions.assertEquals(0, metrics.getCount(gp.getGrammarName(),
+                Metrics.Counter.TOKENS));
+
+        // cancelling the future aborts the running parse but not the token
+        // of the caller
+        CancellationToken caller = new CancellationToken();
+        AtomicReference<CompletableFuture<?>> running = new
+                AtomicReference<>();
+        gp.setStreamProvider(s -> {
+            running.get().cancel(true);
+            return CharStreams.fromString(s);
+        });
+        running.set(gp.parseAsync("PRINT a+b", "s", GenericParser
+                .CaseSensitiveType.NONE, caller, tasks::add));
+        tasks.poll().run();
+        Assertions.assertTrue(running.get().isCancelled());
+        Assertions.assertEquals(1, metrics.getCount(gp.getGrammarName(),
+                Metrics.Counter.CANCELLATIONS));
+        Assertions.assertFalse(caller.isCancelled());
+
+        // cancelling the token of the caller fails the future
+        gp.setStreamProvider(CharStreams::fromString);
+        caller.cancel();
+        Assertions.assertTrue(cause(gp.parseAsync("PRINT a+b", "s",
+                GenericParser.CaseSensitiveType.NONE, caller, Runnable::run))
+                instanceof ParsingCancelledException);
+
+        CancellationToken child = caller.child();
+        Assertions.assertTrue(child.isCancelled());
+        CancellationToken parent = new CancellationToken();
+        child = parent.child();
+        child.cancel();
+        Assertions.assertFalse(parent.isCancelled());
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.batch.BatchParser;
+import org.snt.inmemantlr.batch.BatchResult;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.tree.ParseTree;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestBatch {
+
+    private static final List<String> ITEMS = Arrays.asList("PRINT a+b",
+            "PRINT +", "PRINT c+d", "PRINT e*f PRINT g", "");
+
+    private String getGrammar() throws IOException {
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            return FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    private String dot(ParseTree tree) {
+        // node ids differ between trees
+        return tree.toDot().replaceAll("\\bn\\d+\\b", "n");
+    }
+
+    private void batch(GenericParser.Backend backend) throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        gp.setBackend(backend);
+        DefaultTreeListener listener = new DefaultTreeListener();
+        gp.setListener(listener);
+        assertDoesNotThrow(gp::compile);
+
+        List<BatchResult> results = assertDoesNotThrow(() -> gp.parseBatch
+                (ITEMS, null));
+        Assertions.assertEquals(ITEMS.size(), results.size());
+
+        for (int i = 0; i < ITEMS.size(); i++) {
+            BatchResult r = results.get(i);
+            Assertions.assertEquals(i, r.getIndex());
+            String item = ITEMS.get(i);
+            try {
+                gp.parse(item);
+            } catch (Exception e) {
+                // errors are reported per item and do not abort the batch
+                Assertions.assertFalse(r.isSuccess());
+                Assertions.assertNotNull(r.getError());
+                Assertions.assertNull(r.getTree());
+                continue;
+            }
+            Assertions.assertTrue(r.isSuccess(), item);
+            Assertions.assertEquals(dot(listener.getParseTree()), dot(r
+                    .getTree()));
+        }
+        Assertions.assertFalse(results.get(1).isSuccess());
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        batch(GenericParser.Backend.JAVAC);
+    }
+
+    @Test
+    public void testBatchInterpreter() throws IOException {
+        batch(GenericParser.Backend.INTERPRETER);
+    }
+
+    @Test
+    public void testReuse() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        BatchParser bp = assertDoesNotThrow(() -> gp.newBatchParser("s"));
+        Assertions.assertEquals("s", bp.getEntryPoint());
+
+        // trees of earlier items stay intact when the parser is reused
+        BatchResult first = bp.parse("PRINT a+b");
+        BatchResult second = bp.parse("PRINT c+d PRINT e+f");
+        Assertions.assertEquals(0, first.getIndex());
+        Assertions.assertEquals(1, second.getIndex());
+        Assertions.assertNotSame(first.getTree(), second.getTree());
+        Assertions.assertTrue(first.getTree().getNodes().size() < second
+                .getTree().getNodes().size());
+
+        // errors of one item do not leak into the next
+        Assertions.assertFalse(bp.parse("PRINT +").isSuccess());
+        Assertions.assertTrue(bp.parse("PRINT d+e").isSuccess());
+        Assertions.assertEquals(4, bp.getCount());
+
+        // the parser of the generic parser is not affected
+        assertDoesNotThrow(() -> gp.parse("PRINT x+y"));
+
+        // syntax check only
+        BatchParser check = assertDoesNotThrow(() -> gp.newBatchParser(null,
+                null));
+        List<BatchResult> results = check.parseAll(ITEMS);
+        Assertions.assertTrue(results.get(0).isSuccess());
+        Assertions.assertNull(results.get(0).getTree());
+        Assertions.assertFalse(results.get(1).isSuccess());
+
+        assertThrows(IllegalArgumentException.class, () -> gp.newBatchParser
+                ("nonexistent"));
+    }
+}
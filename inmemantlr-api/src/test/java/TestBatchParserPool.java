@@ -0,0 +1,106 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.batch.BatchParserPool;
+import org.snt.inmemantlr.batch.BatchResult;
+import org.snt.inmemantlr.batch.Workers;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestBatchParserPool {
+
+    private String getGrammar() throws IOException {
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            return FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    @Test
+    public void testPerTaskThreads() throws Exception {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        BatchParserPool pool = gp.newBatchParserPool("s", 2);
+        ExecutorService executor = Workers.newPerTaskExecutor();
+        try {
+            List<Future<BatchResult>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                String input = i % 4 == 1 ? "PRINT +" : "PRINT a" + i + "+b";
+                results.add(executor.submit(() -> pool.parse(input)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                BatchResult r = results.get(i).get();
+                Assertions.assertEquals(i % 4 != 1, r.isSuccess());
+                if (r.isSuccess())
+                    Assertions.assertNotNull(r.getTree());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // parsers beyond maxIdle are dropped once the burst is over
+        Assertions.assertTrue(pool.getParserCount() >= 1);
+        Assertions.assertTrue(pool.getIdleCount() <= 2);
+        Assertions.assertTrue(pool.parse("PRINT a+b").isSuccess());
+    }
+
+    @Test
+    public void testDropDefunct() throws Exception {
+        GenericParser gp = new GenericParser("grammar Nested; e : '(' e ')'" +
+                " | 'x' ;");
+        assertDoesNotThrow(gp::compile);
+
+        BatchParserPool pool = gp.newBatchParserPool("e", 2);
+        Assertions.assertTrue(pool.parse("((x))").isSuccess());
+        Assertions.assertEquals(1, pool.getIdleCount());
+
+        // the recognizer overflows the stack and is not reused
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 1000000; i++)
+            deep.append('(');
+        BatchResult r = pool.parse(deep.toString());
+        Assertions.assertFalse(r.isSuccess());
+        Assertions.assertEquals(0, pool.getIdleCount());
+
+        Assertions.assertTrue(pool.parse("(x)").isSuccess());
+        Assertions.assertEquals(2, pool.getParserCount());
+        Assertions.assertEquals(1, pool.getIdleCount());
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.ParsingCancelledException;
+import org.snt.inmemantlr.metrics.InMemoryMetrics;
+import org.snt.inmemantlr.metrics.Metrics;
+import org.snt.inmemantlr.stream.CancellationToken;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestCancellation {
+
+    private String getGrammar() throws IOException {
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            return FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    private static String input(int statements) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < statements; i++)
+            sb.append("PRINT a").append(i).append("+b ");
+        return sb.toString();
+    }
+
+    private void cancel(GenericParser.Backend backend) throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        gp.setBackend(backend);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        gp.setMetrics(metrics);
+        assertDoesNotThrow(gp::compile);
+
+        CancellationToken cancelled = new CancellationToken();
+        Assertions.assertFalse(cancelled.isCancelled());
+        cancelled.cancel();
+        Assertions.assertTrue(cancelled.isCancelled());
+
+        assertThrows(ParsingCancelledException.class, () -> gp.parse
+                ("PRINT a+b", "s", GenericParser.CaseSensitiveType.NONE,
+                        cancelled));
+        assertThrows(ParsingCancelledException.class, () -> gp.lex
+                ("PRINT a+b", cancelled));
+
+        // the deadline expires while lexing or parsing
+        String large = input(100000);
+        CancellationToken deadline = CancellationToken.withTimeout(1,
+                TimeUnit.MILLISECONDS);
+        assertThrows(ParsingCancelledException.class, () -> gp.parse(large,
+                "s", GenericParser.CaseSensitiveType.NONE, deadline));
+        Assertions.assertEquals(3, metrics.getCount(gp.getGrammarName(),
+                Metrics.Counter.CANCELLATIONS));
+
+        // cached lexer and parser are still usable
+        ParserRuleContext ctx = assertDoesNotThrow(() -> gp.parse(input(10),
+                "s", GenericParser.CaseSensitiveType.NONE,
+                CancellationToken.withTimeout(1, TimeUnit.MINUTES)));
+        Assertions.assertEquals(11, ctx.getChildCount());
+        ctx = assertDoesNotThrow(() -> gp.parse(input(3)));
+        Assertions.assertEquals(4, ctx.getChildCount());
+    }
+
+    @Test
+    public void testCancellation() throws IOException {
+        cancel(GenericParser.Backend.JAVAC);
+    }
+
+    @Test
+    public void testCancellationInterpreter() throws IOException {
+        cancel(GenericParser.Backend.INTERPRETER);
+    }
+
+    @Test
+    public void testCancellationFromOtherThread() throws IOException,
+            InterruptedException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        String large = input(200000);
+        CancellationToken token = new CancellationToken();
+        Thread t = new Thread(() -> {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                // cancel right away
+            }
+            token.cancel();
+        });
+        t.start();
+        assertThrows(ParsingCancelledException.class, () -> gp.parse(large,
+                "s", GenericParser.CaseSensitiveType.NONE, token));
+        t.join();
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.jfr.Phase;
+import org.snt.inmemantlr.metrics.CompileReport;
+import org.snt.inmemantlr.metrics.PhaseTiming;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestCompileReport {
+
+    private String getGrammar() throws IOException {
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            return FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    @Test
+    public void testCompileReport() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        CompileReport report = assertDoesNotThrow(gp::getCompileReport);
+
+        Map<Phase, Long> wall = report.getWallNanos();
+        for (Phase p : new Phase[]{Phase.GRAMMAR_PARSING, Phase.ANALYSIS,
+                Phase.CODE_GENERATION, Phase.COMPILATION, Phase
+                .CLASS_DEFINITION, Phase.INITIALIZATION}) {
+            Assertions.assertTrue(wall.containsKey(p), p.toString());
+        }
+        Assertions.assertFalse(wall.containsKey(Phase.PARSING));
+        Assertions.assertEquals(wall.keySet(), report.getCpuNanos().keySet());
+
+        // lexer, parser, listener and base listener
+        Assertions.assertEquals(4, report.getArtifacts().size());
+        // every template is rendered once
+        Assertions.assertEquals(4, report.getPhases().stream()
+                .filter(t -> t.getPhase() == Phase.CODE_GENERATION)
+                .map(PhaseTiming::getSubject).distinct().count());
+        Assertions.assertEquals(4, report.getPhases().stream()
+                .filter(t -> t.getPhase() == Phase.CODE_GENERATION).count());
+        Assertions.assertTrue(report.getClassCount() > 2);
+        Assertions.assertTrue(report.getSourceSize() > 0);
+        Assertions.assertTrue(report.getBytecodeSize() > 0);
+        Assertions.assertEquals(CompileReport.METASPACE_FACTOR * report
+                .getBytecodeSize(), report.getMetaspaceEstimate());
+
+        Assertions.assertEquals(2, report.getRecognizers().size());
+        Assertions.assertTrue(report.getRecognizers().stream()
+                .allMatch(r -> r.getStates() > 0 && r.getDecisions() > 0));
+
+        Assertions.assertFalse(report.toString().isEmpty());
+
+        File f = File.createTempFile("report", ".gp");
+        f.deleteOnExit();
+        assertDoesNotThrow(() -> gp.store(f.getAbsolutePath(), true));
+        GenericParser lgp = assertDoesNotThrow(() -> GenericParser.load(f
+                .getAbsolutePath()));
+
+        CompileReport lreport = assertDoesNotThrow(lgp::getCompileReport);
+        Assertions.assertTrue(lreport.getWallNanos().containsKey(Phase
+                .SERIALIZATION));
+        Assertions.assertFalse(lreport.getWallNanos().containsKey(Phase
+                .COMPILATION));
+        Assertions.assertEquals(report.getBytecodeSize(), lreport
+                .getBytecodeSize());
+        Assertions.assertEquals(2, lreport.getRecognizers().size());
+    }
+
+    @Test
+    public void testInterpreterReport() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        gp.setBackend(GenericParser.Backend.INTERPRETER);
+        assertDoesNotThrow(gp::compile);
+
+        CompileReport report = assertDoesNotThrow(gp::getCompileReport);
+        Assertions.assertFalse(report.getWallNanos().containsKey(Phase
+                .COMPILATION));
+        Assertions.assertTrue(report.getArtifacts().isEmpty());
+        Assertions.assertEquals(0, report.getMetaspaceEstimate());
+        Assertions.assertEquals(2, report.getRecognizers().size());
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.dfa.DFACachePolicy;
+import org.snt.inmemantlr.dfa.DFAStatistics;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestDFACache {
+
+    private static String sgrammarcontent;
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        try (InputStream sgrammar = TestDFACache.class.getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    private GenericParser interpreted(DFACachePolicy policy) {
+        // interpreted parsers predict every decision through the DFA
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        gp.setBackend(GenericParser.Backend.INTERPRETER);
+        gp.setDFACachePolicy(policy);
+        assertDoesNotThrow(gp::compile);
+        return gp;
+    }
+
+    @Test
+    public void testStatistics() {
+        GenericParser gp = interpreted(DFACachePolicy.unbounded());
+
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        DFAStatistics first = gp.getDFACache().getStatistics();
+        Assertions.assertTrue(first.getTotalStates() > 0);
+        Assertions.assertTrue(first.getApproximateBytes() > 0);
+        Assertions.assertTrue(first.getSllMisses() > 0);
+        Assertions.assertTrue(first.getLexerMisses() > 0);
+
+        // the same input is predicted from the cache
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        DFAStatistics second = gp.getDFACache().getStatistics();
+        Assertions.assertEquals(first.getTotalStates(), second.getTotalStates());
+        Assertions.assertEquals(first.getSllMisses(), second.getSllMisses());
+        Assertions.assertTrue(second.getSllHits() > first.getSllHits());
+        Assertions.assertTrue(second.getLexerHits() > first.getLexerHits());
+        Assertions.assertEquals(0, second.getEvictions());
+    }
+
+    @Test
+    public void testClear() {
+        GenericParser gp = interpreted(DFACachePolicy.clear(1));
+
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        DFAStatistics stats = gp.getDFACache().getStatistics();
+        Assertions.assertEquals(0, stats.getTotalStates());
+        Assertions.assertTrue(stats.getEvictions() > 0);
+
+        // parsing still works with cleared caches
+        assertDoesNotThrow(() -> gp.parse("PRINT \"test\""));
+    }
+
+    @Test
+    public void testTrim() {
+        GenericParser gp = interpreted(DFACachePolicy.unbounded());
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b PRINT \"test\""));
+        int states = gp.getDFACache().getStatistics().getTotalStates();
+
+        GenericParser tgp = interpreted(DFACachePolicy.trim(states - 1));
+        assertDoesNotThrow(() -> tgp.parse("PRINT a+b PRINT \"test\""));
+        DFAStatistics stats = tgp.getDFACache().getStatistics();
+        Assertions.assertTrue(stats.getEvictions() > 0);
+        Assertions.assertTrue(stats.getTotalStates() <= (states - 1) / 2);
+        Assertions.assertTrue(stats.getTotalStates() > 0);
+    }
+}
@@ -24,6 +24,8 @@
  * SOFTWARE.
  **/
 
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
 import org.junit.jupiter.api.Test;
 import org.snt.inmemantlr.GenericParser;
 import org.snt.inmemantlr.exceptions.CompilationException;
@@ -35,6 +37,8 @@ import org.snt.inmemantlr.utils.FileUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -103,4 +107,26 @@ public class TestDoubleParse {
         ParseTree out2 = l2.getParseTree();
         assertNotEquals(out1, out2);
     }
+
+    @Test
+    public void testLexerListeners() {
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        assertDoesNotThrow(gp::compile);
+
+        List<Integer> listeners = new ArrayList<>();
+        gp.setListener(new DefaultTreeListener() {
+            @Override
+            public void setParser(Parser p) {
+                super.setParser(p);
+                listeners.add(((Lexer) p.getTokenStream().getTokenSource())
+                        .getErrorListeners().size());
+            }
+        });
+
+        // the cached lexer does not keep the listeners of earlier parses
+        for (int i = 0; i < 10; i++)
+            assertDoesNotThrow(() -> gp.parse(s1));
+        assertEquals(10, listeners.size());
+        assertEquals(listeners.get(0), listeners.get(9));
+    }
 }
@@ -0,0 +1,112 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestEntryRules {
+
+    @Test
+    public void testEntryRules() throws IOException {
+
+        String sgrammarcontent;
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+        }
+
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        gp.setEntryRules("print");
+        DefaultTreeListener t = new DefaultTreeListener();
+        gp.setListener(t);
+
+        assertDoesNotThrow(gp::compile);
+
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b", "print",
+                GenericParser.CaseSensitiveType.NONE));
+        Assertions.assertEquals(5, t.getParseTree().getNodes().size());
+
+        // rules that are not reachable from print are pruned
+        assertThrows(IllegalArgumentException.class, () -> gp.parse("INTEGER " +
+                "a", "sequence", GenericParser.CaseSensitiveType.NONE));
+        assertThrows(IllegalArgumentException.class, () -> gp.parse("PRINT " +
+                "a+b", "s", GenericParser.CaseSensitiveType.NONE));
+    }
+
+    @Test
+    public void testNonCombinedGrammar() {
+        File files[] = {
+                new File(getClass().getClassLoader().getResource
+                        ("inmemantlr/MySQLLexer.g4").getFile()),
+                new File(getClass().getClassLoader().getResource
+                        ("inmemantlr/MySQLParser.g4").getFile())
+        };
+
+        for (GenericParser.Backend backend : GenericParser.Backend.values()) {
+            GenericParser gp = assertDoesNotThrow(() -> new GenericParser(files));
+            gp.setBackend(backend);
+            gp.setEntryRules("column_list_clause");
+            DefaultTreeListener t = new DefaultTreeListener();
+            gp.setListener(t);
+
+            assertDoesNotThrow(gp::compile);
+
+            assertDoesNotThrow(() -> gp.parse("a, b", "column_list_clause",
+                    GenericParser.CaseSensitiveType.NONE));
+            Assertions.assertEquals(4, t.getParseTree().getNodes().size());
+
+            assertThrows(IllegalArgumentException.class, () -> gp.parse
+                    ("select a from b;", "stat", GenericParser
+                            .CaseSensitiveType.NONE));
+        }
+    }
+
+    @Test
+    public void testUnknownEntryRule() throws IOException {
+
+        String sgrammarcontent;
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+        }
+
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        gp.setEntryRules("unknown");
+        assertThrows(CompilationException.class, gp::compile);
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.jfr.PhaseEvents;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestFlightRecorder {
+
+    @Test
+    public void testPhaseEvents() throws IOException {
+
+        Assertions.assertTrue(PhaseEvents.isSupported());
+
+        String sgrammarcontent;
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+        }
+
+        File f = File.createTempFile("recorded", ".gp");
+        f.deleteOnExit();
+        Path dump = Files.createTempFile("inmemantlr", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("org.snt.inmemantlr.GrammarParsing");
+            recording.enable("org.snt.inmemantlr.Analysis");
+            recording.enable("org.snt.inmemantlr.CodeGeneration");
+            recording.enable("org.snt.inmemantlr.Compilation");
+            recording.enable("org.snt.inmemantlr.ClassDefinition");
+            recording.enable("org.snt.inmemantlr.Lexing");
+            recording.enable("org.snt.inmemantlr.Parsing");
+            recording.enable("org.snt.inmemantlr.Walking");
+            recording.enable("org.snt.inmemantlr.Serialization");
+            recording.start();
+
+            GenericParser gp = new GenericParser(sgrammarcontent);
+            gp.setListener(new DefaultTreeListener());
+            assertDoesNotThrow(gp::compile);
+            assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+            assertDoesNotThrow(() -> gp.store(f.getAbsolutePath(), true));
+            assertDoesNotThrow(() -> GenericParser.load(f.getAbsolutePath()));
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.delete(dump);
+
+        Set<String> names = events.stream()
+                .map(e -> e.getEventType().getName())
+                .collect(Collectors.toSet());
+
+        Assertions.assertEquals(9, names.size());
+
+        RecordedEvent lexing = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.snt" +
+                        ".inmemantlr.Lexing"))
+                .findFirst().orElseThrow(IllegalStateException::new);
+
+        Assertions.assertEquals("SimpleParser", lexing.getString("grammar"));
+        Assertions.assertEquals(9, lexing.getLong("inputSize"));
+        Assertions.assertTrue(lexing.getLong("outputSize") > 0);
+
+        Assertions.assertTrue(events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.snt" +
+                        ".inmemantlr.Analysis"))
+                .allMatch(e -> e.getLong("outputSize") > 0));
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+import org.antlr.v4.runtime.Parser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.listener.DefaultListener;
+import org.snt.inmemantlr.memobjects.MemoryTuple;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestInitialization {
+
+    private static class ParserListener extends DefaultListener {
+        private Parser getParser() {
+            return parser;
+        }
+    }
+
+    private String sgrammarcontent;
+
+    private GenericParser sharedParser() throws IOException {
+        if (sgrammarcontent == null) {
+            try (InputStream sgrammar = getClass().getClassLoader()
+                    .getResourceAsStream("inmemantlr/Simple.g4")) {
+                sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+            }
+        }
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        gp.setSharedATN(true);
+        assertDoesNotThrow(gp::compile);
+        return gp;
+    }
+
+    @Test
+    public void testSharedATN() throws IOException {
+
+        GenericParser gp1 = sharedParser();
+        GenericParser gp2 = sharedParser();
+
+        for (MemoryTuple tup : gp1.getAllCompiledObjects()) {
+            if (tup.isParser() || tup.isLexer())
+                Assertions.assertTrue(tup.getSource().getCharContent(true)
+                        .toString().contains("SharedATNCache"));
+        }
+
+        ParserListener l1 = new ParserListener();
+        ParserListener l2 = new ParserListener();
+        gp1.setListener(l1);
+        gp2.setListener(l2);
+
+        assertDoesNotThrow(() -> gp1.parse("PRINT a+b"));
+        assertDoesNotThrow(() -> gp2.parse("PRINT a+b"));
+
+        // both parsers are loaded by different class loaders
+        Assertions.assertNotSame(l1.getParser().getClass(), l2.getParser()
+                .getClass());
+        Assertions.assertSame(l1.getParser().getATN(), l2.getParser().getATN());
+        Assertions.assertSame(l1.getParser().getInterpreter().decisionToDFA,
+                l2.getParser().getInterpreter().decisionToDFA);
+    }
+
+    @Test
+    public void testInitializeAsync() throws IOException {
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            GenericParser gp = sharedParser();
+            assertDoesNotThrow(() -> gp.initializeAsync(executor).get());
+            assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+
+            File f = File.createTempFile("initialize", ".gp");
+            f.deleteOnExit();
+            assertDoesNotThrow(() -> gp.store(f.getAbsolutePath(), true));
+
+            GenericParser lgp = assertDoesNotThrow(() -> GenericParser.load(f
+                    .getAbsolutePath()));
+            assertDoesNotThrow(() -> lgp.initializeAsync(executor).get());
+            assertDoesNotThrow(() -> lgp.parse("PRINT a+b"));
+
+            GenericParser igp = new GenericParser(sgrammarcontent);
+            igp.setBackend(GenericParser.Backend.INTERPRETER);
+            assertDoesNotThrow(igp::compile);
+            assertDoesNotThrow(() -> igp.initializeAsync().get());
+            assertDoesNotThrow(() -> igp.parse("PRINT a+b"));
+        } finally {
+            executor.shutdown();
+        }
+
+        // nothing has been compiled
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        Assertions.assertThrows(Exception.class, () -> gp.initializeAsync()
+                .join());
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.capture.CapturedInput;
+import org.snt.inmemantlr.capture.InputCapture;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestInputCapture {
+
+    private String getGrammar() throws IOException {
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            return FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    private InputCapture newCapture() throws IOException {
+        File dir = Files.createTempDirectory("inmemantlr").toFile();
+        dir.deleteOnExit();
+        return new InputCapture(dir);
+    }
+
+    @Test
+    public void testThresholds() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        InputCapture capture = newCapture();
+        capture.setLatencyThreshold(1, TimeUnit.HOURS);
+        gp.setInputCapture(capture);
+
+        // neither slow nor large
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        Assertions.assertEquals(0, capture.getCaptured());
+
+        capture.setTokenThreshold(6);
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        Assertions.assertEquals(0, capture.getCaptured());
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b PRINT c+d"));
+        Assertions.assertEquals(1, capture.getCaptured());
+
+        // the same input is only captured once
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b PRINT c+d"));
+        Assertions.assertEquals(1, capture.getCaptured());
+
+        capture.setTokenThreshold(Integer.MAX_VALUE);
+        capture.setLatencyThreshold(0, TimeUnit.NANOSECONDS);
+        assertDoesNotThrow(() -> gp.lex("PRINT x+y"));
+        Assertions.assertEquals(2, capture.getCaptured());
+
+        // inputs with syntax errors are captured as well
+        Assertions.assertThrows(Exception.class, () -> gp.parse("PRINT +"));
+        Assertions.assertEquals(3, capture.getCaptured());
+
+        List<CapturedInput> inputs = assertDoesNotThrow(() -> CapturedInput
+                .loadAll(capture.getDirectory()));
+        Assertions.assertEquals(3, inputs.size());
+        Assertions.assertEquals(1, inputs.stream().filter(c -> c.getRule()
+                == null).count());
+        for (CapturedInput c : inputs) {
+            Assertions.assertEquals("SimpleParser", c.getGrammar());
+            Assertions.assertEquals(64, c.getHash().length());
+            Assertions.assertTrue(c.getTokens() > 0);
+            Assertions.assertTrue(c.matches(gp));
+        }
+        Assertions.assertTrue(inputs.stream().anyMatch(c -> c.getInput()
+                .equals("PRINT a+b PRINT c+d") && "s".equals(c.getRule())));
+
+        gp.setInputCapture(null);
+        assertDoesNotThrow(() -> gp.parse("PRINT e+f"));
+        Assertions.assertEquals(3, capture.getCaptured());
+    }
+
+    @Test
+    public void testLimits() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        InputCapture capture = newCapture();
+        capture.setLatencyThreshold(0, TimeUnit.NANOSECONDS);
+        capture.setRateLimit(2);
+        gp.setInputCapture(capture);
+
+        for (String s : new String[]{"PRINT a+b", "PRINT b+c", "PRINT c+d"})
+            assertDoesNotThrow(() -> gp.parse(s));
+        Assertions.assertEquals(2, capture.getCaptured());
+        Assertions.assertEquals(1, capture.getRateLimited());
+
+        capture.setRateLimit(Integer.MAX_VALUE);
+        capture.setSizeCap(capture.getSize());
+        assertDoesNotThrow(() -> gp.parse("PRINT d+e"));
+        Assertions.assertEquals(2, capture.getCaptured());
+        Assertions.assertEquals(1, capture.getSizeLimited());
+
+        // a reopened capture directory keeps its size
+        InputCapture reopened = assertDoesNotThrow(() -> new InputCapture
+                (capture.getDirectory()));
+        Assertions.assertEquals(capture.getSize(), reopened.getSize());
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        InputCapture capture = newCapture();
+        capture.setLatencyThreshold(0, TimeUnit.NANOSECONDS);
+        gp.setInputCapture(capture);
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+
+        File stored = File.createTempFile("inmemantlr", ".parser");
+        stored.deleteOnExit();
+        assertDoesNotThrow(() -> gp.store(stored.getAbsolutePath(), true));
+        GenericParser loaded = assertDoesNotThrow(() -> GenericParser.load
+                (stored.getAbsolutePath()));
+
+        GenericParser other = new GenericParser("grammar A; a : 'a';");
+        assertDoesNotThrow(other::compile);
+
+        for (CapturedInput c : CapturedInput.loadAll(capture.getDirectory())) {
+            Assertions.assertTrue(c.matches(loaded));
+            Assertions.assertFalse(c.matches(other));
+            assertDoesNotThrow(() -> loaded.parse(c.getInput(), c.getRule(),
+                    GenericParser.CaseSensitiveType.NONE));
+        }
+    }
+}
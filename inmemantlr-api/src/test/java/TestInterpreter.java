@@ -0,0 +1,119 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.tree.ParseTree;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestInterpreter {
+
+    @Test
+    public void testInterpreter() throws IOException {
+
+        String sgrammarcontent;
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+        }
+
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        gp.setBackend(GenericParser.Backend.INTERPRETER);
+        DefaultTreeListener t = new DefaultTreeListener();
+        gp.setListener(t);
+
+        assertDoesNotThrow(gp::compile);
+
+        // nothing has been compiled
+        Assertions.assertEquals(0, gp.getAllCompiledObjects().size());
+        Assertions.assertEquals(2, gp.getAllInterpretedObjects().size());
+
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        ParseTree parseTree = t.getParseTree();
+        Assertions.assertEquals(6, parseTree.getNodes().size());
+
+        assertDoesNotThrow(() -> gp.parse("PRINT \"test\""));
+        Assertions.assertEquals(4, t.getParseTree().getNodes().size());
+
+        // interpreted parsers can be stored and loaded like compiled ones
+        File f = File.createTempFile("interpreted", ".gp");
+        f.deleteOnExit();
+        assertDoesNotThrow(() -> gp.store(f.getAbsolutePath(), true));
+
+        GenericParser lgp = assertDoesNotThrow(() -> GenericParser.load(f
+                .getAbsolutePath()));
+        Assertions.assertEquals(GenericParser.Backend.INTERPRETER, lgp.getBackend());
+
+        DefaultTreeListener lt = new DefaultTreeListener();
+        lgp.setListener(lt);
+        assertDoesNotThrow(() -> lgp.parse("PRINT a+b"));
+        Assertions.assertEquals(6, lt.getParseTree().getNodes().size());
+    }
+
+    @Test
+    public void testNonCombinedGrammar() {
+        File files[] = {
+                new File(getClass().getClassLoader().getResource
+                        ("inmemantlr/MySQLLexer.g4").getFile()),
+                new File(getClass().getClassLoader().getResource
+                        ("inmemantlr/MySQLParser.g4").getFile())
+        };
+
+        GenericParser gp = assertDoesNotThrow(() -> new GenericParser(files));
+        gp.setBackend(GenericParser.Backend.INTERPRETER);
+        DefaultTreeListener t = new DefaultTreeListener();
+        gp.setListener(t);
+
+        assertDoesNotThrow(gp::compile);
+        Assertions.assertEquals(0, gp.getAllCompiledObjects().size());
+
+        assertDoesNotThrow(() -> gp.parse("select a from b;"));
+        Assertions.assertEquals(13, t.getParseTree().getNodes().size());
+    }
+
+    @Test
+    public void testFallback() {
+        File grammar = new File(getClass().getClassLoader().getResource
+                ("inmemantlr/Java.g4").getFile());
+
+        GenericParser gp = assertDoesNotThrow(() -> new GenericParser(grammar));
+        gp.setBackend(GenericParser.Backend.INTERPRETER);
+
+        // Java.g4 contains semantic predicates
+        assertDoesNotThrow(gp::compile);
+        Assertions.assertTrue(gp.getAllCompiledObjects().size() > 0);
+        Assertions.assertTrue(gp.getAllInterpretedObjects().isEmpty());
+    }
+}
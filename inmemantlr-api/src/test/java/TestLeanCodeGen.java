@@ -0,0 +1,96 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.memobjects.MemoryTuple;
+import org.snt.inmemantlr.tool.InmemantlrTool;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestLeanCodeGen {
+
+    private String load(String name) throws IOException {
+        try (InputStream is = getClass().getClassLoader()
+                .getResourceAsStream(name)) {
+            return FileUtils.getStringFromStream(is);
+        }
+    }
+
+    @Test
+    public void testLeanCodeGen() throws IOException {
+
+        GenericParser gp = new GenericParser(load("inmemantlr/Simple.g4"));
+        gp.setLeanCodeGeneration(true);
+        DefaultTreeListener t = new DefaultTreeListener();
+        gp.setListener(t);
+
+        assertDoesNotThrow(gp::compile);
+
+        // neither listeners nor visitors are generated
+        Assertions.assertFalse(StreamSupport.stream(gp.getAllCompiledObjects().spliterator(), false)
+                .anyMatch(tup -> tup.isListener() || tup.isBaseListener()));
+
+        MemoryTuple parser = StreamSupport.stream(gp.getAllCompiledObjects().spliterator(), false)
+                .filter(MemoryTuple::isParser).findFirst().orElse(null);
+        Assertions.assertNotNull(parser);
+        String src = parser.getSource().getCharContent(true).toString();
+        Assertions.assertFalse(src.contains("enterRule(ParseTreeListener"));
+        Assertions.assertFalse(src.contains("public TerminalNode"));
+
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        Assertions.assertEquals(6, t.getParseTree().getNodes().size());
+
+        assertDoesNotThrow(() -> gp.parse("PRINT \"test\""));
+        Assertions.assertEquals(4, t.getParseTree().getNodes().size());
+    }
+
+    @Test
+    public void testToolCustomizer() throws IOException {
+
+        GenericParser gp = new GenericParser(t -> ((InmemantlrTool) t)
+                .setLeanCodeGeneration(true), load("inmemantlr/Java.g4"));
+        DefaultTreeListener t = new DefaultTreeListener();
+        gp.setListener(t);
+
+        assertDoesNotThrow(gp::compile);
+
+        // grammars with embedded code fall back to the standard templates
+        Assertions.assertTrue(StreamSupport.stream(gp.getAllCompiledObjects().spliterator(), false)
+                .anyMatch(MemoryTuple::isListener));
+
+        assertDoesNotThrow(() -> gp.parse("class Foo { }"));
+        Assertions.assertFalse(t.getParseTree().getNodes().isEmpty());
+    }
+}
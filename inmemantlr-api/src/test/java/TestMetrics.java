@@ -0,0 +1,105 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.metrics.InMemoryMetrics;
+import org.snt.inmemantlr.metrics.Metrics;
+import org.snt.inmemantlr.metrics.NoopMetrics;
+import org.snt.inmemantlr.tree.JsonProcessor;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestMetrics {
+
+    @Test
+    public void testInMemoryMetrics() throws IOException {
+
+        String sgrammarcontent;
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+        }
+
+        InMemoryMetrics metrics = new InMemoryMetrics();
+
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        gp.setMetrics(metrics);
+        DefaultTreeListener t = new DefaultTreeListener();
+        gp.setListener(t);
+
+        assertDoesNotThrow(gp::compile);
+        String g = gp.getGrammarName();
+        Assertions.assertTrue(metrics.getGrammars().contains(g));
+        Assertions.assertEquals(1, metrics.getHistogram(g, Metrics.Stage
+                .COMPILE).getCount());
+
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        assertDoesNotThrow(() -> gp.parse("PRINT \"test\""));
+        assertThrows(ParsingException.class, () -> gp.parse("PRINT +"));
+        assertDoesNotThrow(() -> gp.lex("PRINT a"));
+
+        Assertions.assertEquals(4, metrics.getHistogram(g, Metrics.Stage.LEX)
+                .getCount());
+        Assertions.assertEquals(3, metrics.getHistogram(g, Metrics.Stage.PARSE)
+                .getCount());
+        Assertions.assertEquals(2, metrics.getHistogram(g, Metrics.Stage.WALK)
+                .getCount());
+        Assertions.assertEquals(9 + 12 + 7 + 7, metrics.getCount(g, Metrics
+                .Counter.INPUT_SIZE));
+        Assertions.assertTrue(metrics.getCount(g, Metrics.Counter.TOKENS) > 0);
+        Assertions.assertTrue(metrics.getCount(g, Metrics.Counter
+                .TREE_NODES) > 0);
+        Assertions.assertTrue(metrics.getCount(g, Metrics.Counter
+                .SYNTAX_ERRORS) > 0);
+        Assertions.assertEquals(0.75, metrics.getLexerCacheHitRate(g));
+
+        Assertions.assertTrue(metrics.getHistogram(g, Metrics.Stage.PARSE)
+                .getPercentile(50) > 0);
+
+        JsonProcessor proc = new JsonProcessor(t.getParseTree());
+        proc.setMetrics(metrics, g);
+        assertDoesNotThrow(proc::process);
+        Assertions.assertEquals(1, metrics.getHistogram(g, Metrics.Stage
+                .PROCESS).getCount());
+
+        // switching metrics off
+        gp.setMetrics(null);
+        Assertions.assertSame(NoopMetrics.INSTANCE, gp.getMetrics());
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        Assertions.assertEquals(3, metrics.getHistogram(g, Metrics.Stage.PARSE)
+                .getCount());
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.batch.BatchResult;
+import org.snt.inmemantlr.batch.ParallelBatchParser;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class TestParallelBatch {
+
+    private String getGrammar() throws IOException {
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            return FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    private static List<String> items(int n) {
+        // every seventh item has a syntax error
+        return IntStream.range(0, n).mapToObj(i -> i % 7 == 3 ? "PRINT +" :
+                "PRINT a" + i + "+b").collect(Collectors.toList());
+    }
+
+    @Test
+    public void testOrdered() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        List<String> items = items(200);
+        List<BatchResult> sequential = assertDoesNotThrow(() -> gp
+                .parseBatch(items, "s"));
+        List<BatchResult> parallel = assertDoesNotThrow(() -> gp
+                .parseParallel(items.stream(), "s")).collect(Collectors
+                .toList());
+
+        Assertions.assertEquals(items.size(), parallel.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchResult r = parallel.get(i);
+            Assertions.assertEquals(i, r.getIndex());
+            Assertions.assertEquals(sequential.get(i).isSuccess(), r
+                    .isSuccess());
+            if (r.isSuccess())
+                Assertions.assertEquals(sequential.get(i).getTree()
+                        .getNodes().size(), r.getTree().getNodes().size());
+        }
+    }
+
+    @Test
+    public void testCompletionOrder() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            ParallelBatchParser pbp = assertDoesNotThrow(() -> gp
+                    .newParallelBatchParser("s", () -> null));
+            pbp.setExecutor(pool);
+            pbp.setOrdered(false);
+            pbp.setWindow(8);
+
+            List<String> items = items(100);
+            AtomicInteger consumed = new AtomicInteger();
+            Iterator<String> source = items.stream().peek(s -> consumed
+                    .incrementAndGet()).iterator();
+
+            Iterator<BatchResult> results = pbp.parse(source);
+            Set<Integer> seen = new HashSet<>();
+            int received = 0;
+            while (results.hasNext()) {
+                // inputs are consumed lazily within the window
+                Assertions.assertTrue(consumed.get() <= received + 8);
+                BatchResult r = results.next();
+                received++;
+                Assertions.assertTrue(seen.add(r.getIndex()));
+                Assertions.assertNull(r.getTree());
+                Assertions.assertEquals(r.getIndex() % 7 != 3, r.isSuccess());
+            }
+            Assertions.assertEquals(items.size(), seen.size());
+            Assertions.assertTrue(pbp.getParserCount() <= 4);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testLazyAndRejected() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        ParallelBatchParser pbp = assertDoesNotThrow(() -> gp
+                .newParallelBatchParser("s"));
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        pbp.setExecutor(pool);
+        pool.shutdown();
+
+        for (boolean ordered : new boolean[]{true, false}) {
+            pbp.setOrdered(ordered);
+            AtomicInteger consumed = new AtomicInteger();
+            Stream<BatchResult> results = pbp.parse(items(10)
+                    .stream().peek(s -> consumed.incrementAndGet()));
+
+            // nothing is submitted before the terminal operation
+            Assertions.assertEquals(0, consumed.get());
+
+            // rejected tasks yield failed results instead of blocking
+            List<BatchResult> list = results.collect(Collectors.toList());
+            Assertions.assertEquals(10, list.size());
+            Assertions.assertTrue(list.stream().noneMatch
+                    (BatchResult::isSuccess));
+            Assertions.assertEquals("parse task rejected", list.get(0)
+                    .getError().getMessage());
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        // errors other than stack overflows escape the pool
+        ParallelBatchParser pbp = new ParallelBatchParser(() -> {
+            throw new LinkageError("no parser");
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        pbp.setExecutor(pool);
+        try {
+            for (boolean ordered : new boolean[]{true, false}) {
+                pbp.setOrdered(ordered);
+                List<BatchResult> list = assertTimeoutPreemptively(Duration
+                        .ofSeconds(30), () -> pbp.parse(items(10).stream())
+                        .collect(Collectors.toList()));
+                Assertions.assertEquals(10, list.size());
+                Assertions.assertTrue(list.stream().allMatch(r -> r
+                        .getError().getCause() instanceof LinkageError));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFiles() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        Path dir = Files.createTempDirectory("inmemantlr");
+        dir.toFile().deleteOnExit();
+        List<Path> files = new ArrayList<>();
+        for (String s : new String[]{"PRINT a+b", "PRINT +", "PRINT c+d"}) {
+            Path p = Files.createTempFile(dir, "batch", ".txt");
+            p.toFile().deleteOnExit();
+            Files.write(p, s.getBytes(StandardCharsets.UTF_8));
+            files.add(p);
+        }
+        files.add(dir.resolve("missing.txt"));
+
+        List<BatchResult> results = assertDoesNotThrow(() -> gp.parseFiles
+                (files.stream(), null)).collect(Collectors.toList());
+        Assertions.assertEquals(4, results.size());
+        for (int i = 0; i < results.size(); i++)
+            Assertions.assertEquals(files.get(i).toString(), results.get(i)
+                    .getSource());
+        Assertions.assertTrue(results.get(0).isSuccess());
+        Assertions.assertFalse(results.get(1).isSuccess());
+        Assertions.assertTrue(results.get(2).isSuccess());
+        Assertions.assertFalse(results.get(3).isSuccess());
+        Assertions.assertTrue(results.get(3).getError().getMessage()
+                .startsWith("cannot read"));
+
+        assertThrows(IllegalArgumentException.class, () -> gp
+                .newParallelBatchParser("nonexistent"));
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.batch.BatchResult;
+import org.snt.inmemantlr.flow.ParseProcessor;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestParseProcessor {
+
+    /**
+     * publishes a list and records the demand it receives
+     */
+    private static class ListPublisher implements Publisher<String> {
+
+        private final List<String> items;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private int next = 0;
+        private boolean done = false;
+
+        ListPublisher(List<String> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super String> s) {
+            s.onSubscribe(new Subscription() {
+                @Override
+                public synchronized void request(long n) {
+                    requested.addAndGet(n);
+                    for (long i = 0; i < n && next < items.size() &&
+                            !cancelled.get(); i++)
+                        s.onNext(items.get(next++));
+                    if (next == items.size() && !done) {
+                        done = true;
+                        s.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+        }
+    }
+
+    /**
+     * requests one result at a time and cancels after a given number
+     */
+    private static class SlowSubscriber implements Subscriber<BatchResult> {
+
+        private final ListPublisher publisher;
+        private final int cancelAfter;
+        private final AtomicLong requested = new AtomicLong();
+        private final List<BatchResult> results = Collections
+                .synchronizedList(new ArrayList<>());
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final AtomicBoolean overrun = new AtomicBoolean();
+        private volatile Throwable error;
+        private Subscription s;
+
+        SlowSubscriber(ListPublisher publisher, int cancelAfter) {
+            this.publisher = publisher;
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.s = s;
+            requested.incrementAndGet();
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(BatchResult r) {
+            results.add(r);
+            if (publisher.requested.get() > requested.get())
+                overrun.set(true);
+            if (results.size() == cancelAfter) {
+                s.cancel();
+                finished.countDown();
+                return;
+            }
+            requested.incrementAndGet();
+            s.request(1);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            finished.countDown();
+        }
+    }
+
+    private String getGrammar() throws IOException {
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            return FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    private static List<String> items(int n) {
+        return IntStream.range(0, n).mapToObj(i -> i % 5 == 2 ? "PRINT +" :
+                "PRINT a" + i + "+b").collect(Collectors.toList());
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            ParseProcessor processor = gp.newParseProcessor("s", pool, 4);
+            ListPublisher publisher = new ListPublisher(items(100));
+            SlowSubscriber subscriber = new SlowSubscriber(publisher,
+                    Integer.MAX_VALUE);
+            processor.subscribe(subscriber);
+            publisher.subscribe(processor);
+
+            Assertions.assertTrue(subscriber.finished.await(1, TimeUnit
+                    .MINUTES));
+            Assertions.assertNull(subscriber.error);
+            // parsing never runs ahead of the demand of the subscriber
+            Assertions.assertFalse(subscriber.overrun.get());
+            Assertions.assertEquals(100, subscriber.results.size());
+            for (int i = 0; i < 100; i++) {
+                BatchResult r = subscriber.results.get(i);
+                Assertions.assertEquals(i, r.getIndex());
+                Assertions.assertEquals(i % 5 != 2, r.isSuccess());
+            }
+            Assertions.assertTrue(processor.getParserCount() <= 4);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCancellation() throws Exception {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        ParseProcessor processor = gp.newParseProcessor(null, Runnable::run,
+                2);
+        ListPublisher publisher = new ListPublisher(items(100));
+        SlowSubscriber subscriber = new SlowSubscriber(publisher, 3);
+        processor.subscribe(subscriber);
+        publisher.subscribe(processor);
+
+        Assertions.assertTrue(subscriber.finished.await(1, TimeUnit.MINUTES));
+        Assertions.assertEquals(3, subscriber.results.size());
+        Assertions.assertTrue(publisher.cancelled.get());
+        Assertions.assertTrue(publisher.requested.get() <= 3);
+
+        // a single subscriber is supported
+        SlowSubscriber second = new SlowSubscriber(publisher, 1);
+        processor.subscribe(second);
+        Assertions.assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testUpstreamError() throws Exception {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        ParseProcessor processor = gp.newParseProcessor(null, Runnable::run,
+                2);
+        SlowSubscriber subscriber = new SlowSubscriber(new ListPublisher
+                (Collections.emptyList()), Integer.MAX_VALUE);
+        processor.subscribe(subscriber);
+        processor.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                processor.onNext("PRINT a+b");
+                processor.onError(new IOException("source failed"));
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+
+        Assertions.assertTrue(subscriber.finished.await(1, TimeUnit.MINUTES));
+        Assertions.assertTrue(subscriber.error instanceof IOException);
+    }
+}
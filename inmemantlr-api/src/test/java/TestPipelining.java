@@ -0,0 +1,168 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.ParsingCancelledException;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.exceptions.TokenLimitException;
+import org.snt.inmemantlr.limits.ResourceLimits;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.metrics.InMemoryMetrics;
+import org.snt.inmemantlr.metrics.Metrics;
+import org.snt.inmemantlr.stream.CancellationToken;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestPipelining {
+
+    private String getGrammar() throws IOException {
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            return FileUtils.getStringFromStream(sgrammar);
+        }
+    }
+
+    private static String generate(int items) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < items; i++)
+            sb.append("PRINT a").append(i).append("+b").append(i).append('\n');
+        return sb.toString();
+    }
+
+    private String parse(GenericParser gp, String input) {
+        DefaultTreeListener t = new DefaultTreeListener();
+        gp.setListener(t);
+        assertDoesNotThrow(() -> gp.parse(input));
+        // node ids are unique across trees
+        return t.getParseTree().toDot().replaceAll("\\bn\\d+\\b", "n");
+    }
+
+    private String error(GenericParser gp, String input) {
+        return assertThrows(ParsingException.class, () -> gp.parse(input))
+                .getMessage();
+    }
+
+    @Test
+    public void testSameResults() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+
+        String input = generate(5000);
+        String expected = parse(gp, input);
+
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        gp.setMetrics(metrics);
+        assertDoesNotThrow(() -> gp.parse(input));
+        long tokens = metrics.getCount(gp.getGrammarName(), Metrics.Counter
+                .TOKENS);
+
+        gp.setPipelining(0);
+        Assertions.assertEquals(expected, parse(gp, input));
+        Assertions.assertEquals(expected, parse(gp, input));
+
+        // lexing is reported once the pipeline has been closed
+        metrics.reset();
+        assertDoesNotThrow(() -> gp.parse(input));
+        Assertions.assertEquals(tokens, metrics.getCount(gp.getGrammarName(),
+                Metrics.Counter.TOKENS));
+        Assertions.assertTrue(metrics.getHistogram(gp.getGrammarName(),
+                Metrics.Stage.LEX).getSum() > 0);
+        gp.setMetrics(null);
+
+        // lexer errors are reported in the order in which they occur
+        String broken = "PRINT a+b # " + input + " PRINT c+d $";
+        gp.setPipelining(Integer.MAX_VALUE);
+        String msg = error(gp, broken);
+        Assertions.assertTrue(msg.contains("'$'"));
+        gp.setPipelining(0);
+        Assertions.assertEquals(msg, error(gp, broken));
+
+        // the lexer keeps its listeners after a pipelined parse
+        gp.setPipelining(Integer.MAX_VALUE);
+        Assertions.assertEquals(msg, error(gp, broken));
+        Assertions.assertEquals(expected, parse(gp, input));
+    }
+
+    @Test
+    public void testThreshold() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            gp.setPipelining(1000, executor);
+            Assertions.assertEquals(1000, gp.getPipeliningThreshold());
+            assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+            assertDoesNotThrow(() -> gp.parse(generate(1000)));
+            Assertions.assertThrows(ParsingException.class, () -> gp.parse
+                    (generate(1000) + "PRINT +"));
+        } finally {
+            executor.shutdown();
+        }
+
+        // a rejecting executor falls back to sequential lexing
+        Assertions.assertTrue(executor.isShutdown());
+        assertDoesNotThrow(() -> gp.parse(generate(1000)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> gp
+                .setPipelining(-1));
+    }
+
+    @Test
+    public void testAbort() throws IOException {
+        GenericParser gp = new GenericParser(getGrammar());
+        assertDoesNotThrow(gp::compile);
+        gp.setPipelining(0);
+
+        String input = generate(5000);
+
+        ResourceLimits limits = new ResourceLimits();
+        limits.setMaxTokens(1000);
+        gp.setResourceLimits(limits);
+        assertThrows(TokenLimitException.class, () -> gp.parse(input));
+
+        gp.setResourceLimits(null);
+        CancellationToken cancel = CancellationToken.withTimeout(0,
+                TimeUnit.MILLISECONDS);
+        assertThrows(ParsingCancelledException.class, () -> gp.parse(input,
+                null, GenericParser.CaseSensitiveType.NONE, cancel));
+
+        // the parser remains usable after an aborted pipeline
+        assertDoesNotThrow(() -> gp.parse(input));
+        Assertions.assertTrue(error(gp, input + "#").contains("'#'"));
+    }
+}
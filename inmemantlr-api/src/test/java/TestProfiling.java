@@ -0,0 +1,142 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.profile.DecisionProfile;
+import org.snt.inmemantlr.profile.DecisionProfiler;
+import org.snt.inmemantlr.profile.RuleProfiler;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestProfiling {
+
+    @Test
+    public void testDecisionProfiling() throws IOException {
+
+        String sgrammarcontent;
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+        }
+
+        // interpreted parsers predict every decision adaptively
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        gp.setBackend(GenericParser.Backend.INTERPRETER);
+        gp.setProfiling(true);
+        assertDoesNotThrow(gp::compile);
+
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        assertDoesNotThrow(() -> gp.parse("PRINT \"test\" PRINT c-d"));
+
+        DecisionProfiler profiler = gp.getDecisionProfiler();
+        Assertions.assertEquals(2, profiler.getParses());
+
+        List<DecisionProfile> decisions = profiler.getDecisions();
+        Assertions.assertFalse(decisions.isEmpty());
+
+        for (int i = 1; i < decisions.size(); i++) {
+            Assertions.assertTrue(decisions.get(i - 1).getTimeInPrediction()
+                    >= decisions.get(i).getTimeInPrediction());
+        }
+
+        // the loop of (print | sequence)* in rule s is entered on every item
+        DecisionProfile s = decisions.stream().filter(p -> p.getRule()
+                .equals("s")).max(Comparator.comparingLong
+                (DecisionProfile::getInvocations)).orElse(null);
+        Assertions.assertNotNull(s);
+        Assertions.assertEquals(8, s.getLine());
+        Assertions.assertTrue(s.getInvocations() >= 5);
+
+        String report = profiler.getReport();
+        Assertions.assertTrue(report.startsWith(DecisionProfiler.HEADER));
+        Assertions.assertEquals(decisions.size() + 1, report.split("\n").length);
+
+        // lines are kept when the parser is stored
+        File f = File.createTempFile("profiling", ".gp");
+        f.deleteOnExit();
+        assertDoesNotThrow(() -> gp.store(f.getAbsolutePath(), true));
+        GenericParser lgp = assertDoesNotThrow(() -> GenericParser.load(f
+                .getAbsolutePath()));
+        lgp.setProfiling(true);
+        assertDoesNotThrow(() -> lgp.parse("PRINT a+b"));
+        Assertions.assertTrue(lgp.getDecisionProfiler().getDecisions().stream()
+                .allMatch(p -> p.getLine() > 0));
+    }
+
+    @Test
+    public void testRuleProfiling() throws IOException {
+
+        String sgrammarcontent;
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+        }
+
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        gp.setRuleProfiling(1.0);
+        assertDoesNotThrow(gp::compile);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++)
+            sb.append("PRINT a+b PRINT \"test\" ");
+
+        for (int i = 0; i < 3; i++)
+            assertDoesNotThrow(() -> gp.parse(sb.toString()));
+
+        RuleProfiler profiler = gp.getRuleProfiler();
+        Assertions.assertEquals(3, profiler.getSamples());
+
+        String stacks = profiler.getCollapsedStacks();
+        Assertions.assertFalse(stacks.isEmpty());
+        for (String line : stacks.split("\n")) {
+            Assertions.assertTrue(line.matches("[^ ]+;s(;[a-z]+)* [0-9]+"),
+                    line);
+        }
+        Assertions.assertTrue(profiler.getSelfTimes().containsKey("print"));
+
+        // only a fraction of the parses is sampled
+        GenericParser sgp = new GenericParser(sgrammarcontent);
+        sgp.setRuleProfiling(0.5);
+        assertDoesNotThrow(sgp::compile);
+        for (int i = 0; i < 50; i++)
+            assertDoesNotThrow(() -> sgp.parse("PRINT a+b"));
+        long samples = sgp.getRuleProfiler().getSamples();
+        Assertions.assertTrue(samples > 0 && samples < 50);
+
+        sgp.setRuleProfiling(0);
+        Assertions.assertNull(sgp.getRuleProfiler());
+    }
+}
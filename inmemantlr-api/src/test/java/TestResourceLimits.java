@@ -0,0 +1,141 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.DepthLimitException;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.exceptions.SyntaxErrorLimitException;
+import org.snt.inmemantlr.exceptions.TokenLimitException;
+import org.snt.inmemantlr.exceptions.TreeNodeLimitException;
+import org.snt.inmemantlr.limits.ResourceLimits;
+import org.snt.inmemantlr.limits.ResourceUsage;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestResourceLimits {
+
+    private static final String GRAMMAR = "grammar Nested;\n" +
+            "s : e+ EOF;\n" +
+            "e : '(' e ')' | 'x';\n" +
+            "WS : [ ]+ -> skip;";
+
+    private GenericParser compile(ResourceLimits limits) {
+        GenericParser gp = new GenericParser(GRAMMAR);
+        gp.setListener(new DefaultTreeListener());
+        gp.setResourceLimits(limits);
+        assertDoesNotThrow(gp::compile);
+        return gp;
+    }
+
+    @Test
+    public void testUsage() {
+        GenericParser gp = compile(new ResourceLimits());
+        Assertions.assertNull(gp.getResourceUsage());
+        assertDoesNotThrow(() -> gp.parse("((x)) x"));
+
+        ResourceUsage usage = gp.getResourceUsage();
+        // ( ( x ) ) x EOF
+        Assertions.assertEquals(7, usage.getTokens());
+        // s e e e
+        Assertions.assertEquals(4, usage.getDepth());
+        // 5 rule contexts and 7 terminals
+        Assertions.assertEquals(12, usage.getTreeNodes());
+        Assertions.assertEquals(0, usage.getSyntaxErrors());
+    }
+
+    @Test
+    public void testTokenLimit() {
+        ResourceLimits limits = new ResourceLimits();
+        limits.setMaxTokens(5);
+        GenericParser gp = compile(limits);
+
+        TokenLimitException e = assertThrows(TokenLimitException.class, () ->
+                gp.parse("x x x x x x x x x x"));
+        Assertions.assertEquals(5, e.getLimit());
+        Assertions.assertEquals(6, e.getUsage().getTokens());
+        // nothing has been parsed yet
+        Assertions.assertEquals(0, e.getUsage().getTreeNodes());
+
+        assertThrows(TokenLimitException.class, () -> gp.lex("x x x x x x",
+                null));
+        // lex without cancellation token is unbounded
+        Assertions.assertEquals(7, assertDoesNotThrow(() -> gp.lex("x x x " +
+                "x x x")).size());
+        assertDoesNotThrow(() -> gp.parse("x x"));
+    }
+
+    @Test
+    public void testDepthLimit() {
+        ResourceLimits limits = new ResourceLimits();
+        limits.setMaxDepth(5);
+        GenericParser gp = compile(limits);
+
+        assertDoesNotThrow(() -> gp.parse("(((x)))"));
+        DepthLimitException e = assertThrows(DepthLimitException.class, () ->
+                gp.parse("((((((((x))))))))"));
+        Assertions.assertEquals(6, e.getUsage().getDepth());
+    }
+
+    @Test
+    public void testTreeNodeLimit() {
+        ResourceLimits limits = new ResourceLimits();
+        limits.setMaxTreeNodes(20);
+        GenericParser gp = compile(limits);
+
+        assertDoesNotThrow(() -> gp.parse("x x x"));
+        TreeNodeLimitException e = assertThrows(TreeNodeLimitException
+                .class, () -> gp.parse("x x x x x x x x x x x x"));
+        Assertions.assertEquals(21, e.getUsage().getTreeNodes());
+    }
+
+    @Test
+    public void testSyntaxErrorLimit() {
+        ResourceLimits limits = new ResourceLimits();
+        limits.setMaxSyntaxErrors(2);
+        GenericParser gp = compile(limits);
+
+        // two errors are reported as usual
+        ParsingException p = assertThrows(ParsingException.class, () -> gp
+                .parse("x # #"));
+        Assertions.assertFalse(p instanceof SyntaxErrorLimitException);
+
+        SyntaxErrorLimitException e = assertThrows(SyntaxErrorLimitException
+                .class, () -> gp.parse("x # # # # #"));
+        Assertions.assertEquals(3, e.getUsage().getSyntaxErrors());
+
+        // the lexer can be used without the guard afterwards
+        gp.setResourceLimits(null);
+        assertDoesNotThrow(() -> gp.lex("x # # # # #"));
+        assertDoesNotThrow(() -> gp.parse("(x)"));
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.generator.SentenceGenerator;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestSentenceGenerator {
+
+    private GenericParser compile(String grammar) {
+        ClassLoader classLoader = getClass().getClassLoader();
+        File f = new File(classLoader.getResource("inmemantlr/" + grammar)
+                .getFile());
+        GenericParser gp = assertDoesNotThrow(() -> new GenericParser(f));
+        assertDoesNotThrow(gp::compile);
+        return gp;
+    }
+
+    private void stress(String grammar, String rule) {
+        GenericParser gp = compile(grammar);
+        SentenceGenerator gen = assertDoesNotThrow(() -> new
+                SentenceGenerator(gp, 42L));
+        for (String s : gen.generate(rule, 50)) {
+            assertDoesNotThrow(() -> gp.parse(s, rule, GenericParser
+                    .CaseSensitiveType.NONE), s);
+        }
+    }
+
+    @Test
+    public void testSimple() {
+        stress("Simple.g4", "s");
+    }
+
+    @Test
+    public void testLogic() {
+        stress("Logic.g4", "rule_set");
+    }
+
+    @Test
+    public void testDeepOcl() {
+        stress("DeepOcl.g4", "contextDeclCS");
+    }
+
+    @Test
+    public void testDeterminism() {
+        GenericParser gp = compile("Simple.g4");
+        List<String> a = assertDoesNotThrow(() -> new SentenceGenerator(gp,
+                7L).generate("s", 10));
+        List<String> b = assertDoesNotThrow(() -> new SentenceGenerator(gp,
+                7L).generate("s", 10));
+        List<String> c = assertDoesNotThrow(() -> new SentenceGenerator(gp,
+                8L).generate("s", 10));
+        Assertions.assertEquals(a, b);
+        Assertions.assertNotEquals(a, c);
+    }
+
+    @Test
+    public void testKnobs() {
+        GenericParser gp = compile("Simple.g4");
+        SentenceGenerator small = assertDoesNotThrow(() -> new
+                SentenceGenerator(gp, 1L));
+        small.setTargetLength(0);
+        SentenceGenerator large = assertDoesNotThrow(() -> new
+                SentenceGenerator(gp, 1L));
+        large.setTargetLength(2000);
+
+        int s = String.join("", small.generate("s", 10)).length();
+        int l = String.join("", large.generate("s", 10)).length();
+        Assertions.assertTrue(s < l, s + " " + l);
+
+        // only print strings
+        large.setRuleWeight("expression", 0.0);
+        large.setSeparator("\n");
+        String[] tokens = large.generate("s").split("\n");
+        for (int i = 0; i < tokens.length - 1; i++) {
+            if (tokens[i].equals("PRINT"))
+                Assertions.assertTrue(tokens[i + 1].matches("^[\"'].*"));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> large.generate
+                ("unknown"));
+    }
+
+    @Test
+    public void testNotCompiled() {
+        GenericParser gp = assertDoesNotThrow(() -> new GenericParser
+                ("grammar A; a : 'a';"));
+        assertThrows(Exception.class, () -> new SentenceGenerator(gp, 0L));
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.tree.ParseTree;
+import org.snt.inmemantlr.utils.FileUtils;
+import org.snt.inmemantlr.validation.ValidationResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestValidation {
+
+    private String getResource(String name) throws IOException {
+        try (InputStream is = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/" + name)) {
+            return FileUtils.getStringFromStream(is);
+        }
+    }
+
+    private void validate(GenericParser.Backend backend) throws IOException {
+        GenericParser gp = new GenericParser(getResource("Simple.g4"));
+        gp.setBackend(backend);
+        DefaultTreeListener listener = new DefaultTreeListener();
+        gp.setListener(listener);
+        assertDoesNotThrow(gp::compile);
+
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        ParseTree tree = listener.getParseTree();
+
+        ValidationResult valid = assertDoesNotThrow(() -> gp.validate
+                ("PRINT a+b PRINT 'c'"));
+        Assertions.assertTrue(valid.isValid());
+        Assertions.assertEquals("valid", valid.toString());
+
+        // neither reset nor walked
+        Assertions.assertSame(tree, listener.getParseTree());
+
+        ValidationResult invalid = assertDoesNotThrow(() -> gp.validate
+                ("PRINT a+\nPRINT b", "s"));
+        Assertions.assertFalse(invalid.isValid());
+        Assertions.assertEquals(2, invalid.getLine());
+        Assertions.assertEquals(0, invalid.getCharPositionInLine());
+        Assertions.assertEquals(9, invalid.getOffset());
+        Assertions.assertEquals("PRINT", invalid.getOffendingText());
+        Assertions.assertTrue(invalid.getExpected().contains("Opname"));
+
+        ValidationResult lexerError = assertDoesNotThrow(() -> gp.validate
+                ("PRINT a+b #"));
+        Assertions.assertFalse(lexerError.isValid());
+        Assertions.assertEquals(10, lexerError.getCharPositionInLine());
+        Assertions.assertTrue(lexerError.getExpected().isEmpty());
+
+        // the cached lexer still reports errors to parse
+        assertThrows(Exception.class, () -> gp.parse("PRINT a+b #"));
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+
+        assertThrows(IllegalArgumentException.class, () -> gp.validate("",
+                "unknown"));
+    }
+
+    @Test
+    public void testValidation() throws IOException {
+        validate(GenericParser.Backend.JAVAC);
+    }
+
+    @Test
+    public void testValidationInterpreter() throws IOException {
+        validate(GenericParser.Backend.INTERPRETER);
+    }
+
+    @Test
+    public void testJava() throws IOException {
+        ClassLoader classLoader = getClass().getClassLoader();
+        GenericParser gp = new GenericParser(new File(classLoader.getResource
+                ("inmemantlr/Java.g4").getFile()));
+        assertDoesNotThrow(gp::compile);
+
+        String hello = getResource("HelloWorld.java");
+        Assertions.assertTrue(assertDoesNotThrow(() -> gp.validate(hello,
+                "compilationUnit")).isValid());
+        Assertions.assertFalse(assertDoesNotThrow(() -> gp.validate(hello
+                .replace(";", ""), "compilationUnit")).isValid());
+    }
+
+    @Test
+    public void testNotCompiled() {
+        GenericParser gp = new GenericParser("grammar A; a : 'a';");
+        assertThrows(Exception.class, () -> gp.validate("a"));
+    }
+}
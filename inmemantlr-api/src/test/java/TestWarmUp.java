@@ -0,0 +1,94 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.listener.DefaultListener;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+public class TestWarmUp {
+
+    private static class DFAListener extends DefaultListener {
+        private int states = 0;
+
+        @Override
+        public void setParser(Parser p) {
+            super.setParser(p);
+            states = Arrays.stream(p.getInterpreter().decisionToDFA)
+                    .mapToInt(d -> d.states.size()).sum();
+        }
+    }
+
+    @Test
+    public void testWarmUp() throws IOException {
+
+        String sgrammarcontent;
+        try (InputStream sgrammar = getClass().getClassLoader()
+                .getResourceAsStream("inmemantlr/Simple.g4")) {
+            sgrammarcontent = FileUtils.getStringFromStream(sgrammar);
+        }
+
+        // interpreted parsers predict every decision through the DFA
+        GenericParser gp = new GenericParser(sgrammarcontent);
+        gp.setBackend(GenericParser.Backend.INTERPRETER);
+        assertDoesNotThrow(gp::compile);
+
+        int ok = assertDoesNotThrow(() -> gp.warmUp(Arrays.asList("PRINT a+b",
+                "PRINT b-c", "PRINT \"test\"", "PRINT +")));
+        Assertions.assertEquals(3, ok);
+        Assertions.assertEquals(4, gp.getWarmUp().size());
+
+        // the DFA is already warm before the first parse
+        DFAListener l = new DFAListener();
+        gp.setListener(l);
+        assertDoesNotThrow(() -> gp.parse("PRINT a+b"));
+        Assertions.assertTrue(l.states > 0);
+
+        File f = File.createTempFile("warmup", ".gp");
+        f.deleteOnExit();
+        assertDoesNotThrow(() -> gp.store(f.getAbsolutePath(), true));
+
+        // the loaded parser is restored with the same DFA states
+        GenericParser lgp = assertDoesNotThrow(() -> GenericParser.load(f
+                .getAbsolutePath()));
+        Assertions.assertEquals(4, lgp.getWarmUp().size());
+        DFAListener ll = new DFAListener();
+        lgp.setListener(ll);
+        assertDoesNotThrow(() -> lgp.parse("PRINT a+b"));
+        Assertions.assertEquals(l.states, ll.states);
+    }
+}
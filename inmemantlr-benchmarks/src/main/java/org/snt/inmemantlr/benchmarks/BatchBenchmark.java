@@ -0,0 +1,148 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.batch.BatchParser;
+import org.snt.inmemantlr.batch.BatchResult;
+import org.snt.inmemantlr.batch.ParallelBatchParser;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.generator.SentenceGenerator;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.tree.ParseTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * parsing of many tiny generated inputs -- one parse call per input
+ * compared to a batch parser that reuses its recognizers, sequentially and
+ * in the common pool; the scores are per input
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    @Param({"JAVA", "MYSQL", "PHP", "DEEPOCL"})
+    public Workload workload;
+
+    @Param({"10"})
+    public int tokens;
+
+    @Param({"42"})
+    public long seed;
+
+    private GenericParser gp;
+    private DefaultTreeListener listener;
+    private BatchParser bp;
+    private ParallelBatchParser pbp;
+    private List<String> inputs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws CompilationException,
+            IllegalWorkflowException {
+        gp = workload.newParser();
+        listener = new DefaultTreeListener();
+        gp.setListener(listener);
+        gp.compile();
+
+        inputs = generate(gp, workload, tokens, seed, ITEMS);
+
+        bp = gp.newBatchParser(workload.getEntryRule());
+        pbp = gp.newParallelBatchParser(workload.getEntryRule());
+    }
+
+    /**
+     * generate inputs that are accepted by the parser
+     *
+     * @param gp       compiled parser
+     * @param workload workload
+     * @param tokens   target length of an input in tokens
+     * @param seed     seed of the generator
+     * @param items    number of inputs
+     * @return inputs
+     * @throws IllegalWorkflowException if the parser is not compiled
+     */
+    static List<String> generate(GenericParser gp, Workload workload, int
+            tokens, long seed, int items) throws IllegalWorkflowException {
+        SentenceGenerator gen = new SentenceGenerator(gp, seed);
+        gen.setTargetLength(tokens);
+        List<String> inputs = new ArrayList<>();
+        // only sentences that are accepted by the parser are used
+        for (int i = 0; i < 20 * items && inputs.size() < items; i++) {
+            String s = gen.generate(workload.getEntryRule());
+            try {
+                gp.parse(s, workload.getEntryRule(), GenericParser
+                        .CaseSensitiveType.NONE);
+                inputs.add(s);
+            } catch (ParsingException e) {
+                // try the next one
+            }
+        }
+        if (inputs.size() < items)
+            throw new IllegalStateException("not enough valid inputs " +
+                    "generated for " + workload);
+        return inputs;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public ParseTree parse() throws IllegalWorkflowException,
+            ParsingException {
+        ParseTree last = null;
+        for (String s : inputs) {
+            gp.parse(s, workload.getEntryRule(), GenericParser
+                    .CaseSensitiveType.NONE);
+            last = listener.getParseTree();
+        }
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public List<BatchResult> batch() {
+        return bp.parseAll(inputs);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public List<BatchResult> parallel() {
+        return pbp.parse(inputs.stream()).collect(Collectors.toList());
+    }
+}
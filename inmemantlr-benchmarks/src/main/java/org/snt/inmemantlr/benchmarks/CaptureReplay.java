@@ -0,0 +1,165 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.capture.CapturedInput;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.exceptions.DeserializationException;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * replays inputs that have been saved by an input capture against a stored
+ * parser or the grammar files -- the captures are only replayed if they have
+ * been taken with the same lexer and parser, which is checked by means of the
+ * ATN fingerprint. Every input is parsed a number of times after a warm-up,
+ * and the minimum, median and maximum latency are printed next to the
+ * latency at capture time. Inputs with syntax errors are timed as well.
+ *
+ * usage: CaptureReplay --captures dir (--parser file | grammar ...)
+ * [--warmup n] [--iterations n] [--force]
+ */
+public final class CaptureReplay {
+
+    private CaptureReplay() {
+    }
+
+    public static void main(String[] args) throws IOException,
+            CompilationException, DeserializationException {
+        File captures = null;
+        String stored = null;
+        List<File> grammars = new ArrayList<>();
+        int warmup = 3;
+        int iterations = 10;
+        boolean force = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--captures":
+                    captures = new File(args[++i]);
+                    break;
+                case "--parser":
+                    stored = args[++i];
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--force":
+                    force = true;
+                    break;
+                default:
+                    grammars.add(new File(args[i]));
+            }
+        }
+
+        if (captures == null || (stored == null && grammars.isEmpty()))
+            throw new IllegalArgumentException("usage: CaptureReplay " +
+                    "--captures dir (--parser file | grammar ...) [--warmup " +
+                    "n] [--iterations n] [--force]");
+
+        GenericParser gp;
+        if (stored != null) {
+            gp = GenericParser.load(stored);
+        } else {
+            gp = new GenericParser(grammars.toArray(new File[0]));
+            gp.compile();
+        }
+        gp.setListener(new DefaultTreeListener());
+
+        List<CapturedInput> inputs = CapturedInput.loadAll(captures);
+        System.out.println(String.format(Locale.ROOT, "%-40s %8s %10s %10s " +
+                        "%10s %10s %s", "capture", "tokens", "captured", "min",
+                "median", "max", "status"));
+        int failed = 0;
+        for (CapturedInput c : inputs) {
+            String status = "ok";
+            double[] ms = new double[0];
+            if (!force && !c.matches(gp)) {
+                status = "skipped (different grammar artifact)";
+            } else {
+                try {
+                    ms = replay(gp, c, warmup, iterations);
+                } catch (IllegalWorkflowException | RuntimeException e) {
+                    status = "error: " + e.getMessage();
+                    failed++;
+                }
+            }
+            System.out.println(String.format(Locale.ROOT, "%-40s %8d %10.3f " +
+                            "%10.3f %10.3f %10.3f %s", c.getFile().getName(), c
+                            .getTokens(), c.getNanos() / 1e6, ms.length > 0 ?
+                            ms[0] : Double.NaN, ms.length > 0 ? ms[ms.length /
+                            2] : Double.NaN, ms.length > 0 ? ms[ms.length -
+                            1] : Double.NaN, status));
+        }
+        if (failed > 0)
+            System.exit(1);
+    }
+
+    /**
+     * replay a captured input
+     *
+     * @param gp         generic parser
+     * @param c          captured input
+     * @param warmup     number of untimed runs
+     * @param iterations number of timed runs
+     * @return sorted latencies in milliseconds
+     * @throws IllegalWorkflowException if the parser is not compiled
+     */
+    public static double[] replay(GenericParser gp, CapturedInput c, int
+            warmup, int iterations) throws IllegalWorkflowException {
+        double[] ms = new double[iterations];
+        for (int i = 0; i < warmup + iterations; i++) {
+            long start = System.nanoTime();
+            try {
+                if (c.getRule() == null)
+                    gp.lex(c.getInput());
+                else
+                    gp.parse(c.getInput(), c.getRule(), GenericParser
+                            .CaseSensitiveType.NONE);
+            } catch (ParsingException e) {
+                // slow inputs are often invalid ones
+            }
+            if (i >= warmup)
+                ms[i - warmup] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(ms);
+        return ms;
+    }
+}
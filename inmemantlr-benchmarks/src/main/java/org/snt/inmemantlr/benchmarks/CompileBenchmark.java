@@ -0,0 +1,101 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.exceptions.DeserializationException;
+import org.snt.inmemantlr.exceptions.SerializationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * grammar compilation and loading of stored artifacts -- cold runs measure
+ * the first compilation in a fresh JVM
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CompileBenchmark {
+
+    @Param({"JAVA", "MYSQL", "PHP", "DEEPOCL"})
+    public Workload workload;
+
+    private String[] grammars;
+    private File stored;
+
+    @Setup(Level.Trial)
+    public void setUp() throws CompilationException, IOException,
+            SerializationException {
+        grammars = workload.getGrammars();
+        GenericParser gp = new GenericParser(grammars);
+        gp.compile();
+        stored = File.createTempFile("benchmark", ".gp");
+        stored.deleteOnExit();
+        gp.store(stored.getAbsolutePath(), true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (stored != null && !stored.delete())
+            stored.deleteOnExit();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Fork(5)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public GenericParser compileCold() throws CompilationException {
+        GenericParser gp = new GenericParser(grammars);
+        gp.compile();
+        return gp;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Fork(1)
+    @Warmup(iterations = 3, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    public GenericParser compileWarm() throws CompilationException {
+        GenericParser gp = new GenericParser(grammars);
+        gp.compile();
+        return gp;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Fork(1)
+    @Warmup(iterations = 3, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    public GenericParser load() throws DeserializationException {
+        return GenericParser.load(stored.getAbsolutePath());
+    }
+}
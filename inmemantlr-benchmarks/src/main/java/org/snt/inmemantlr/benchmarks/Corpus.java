@@ -0,0 +1,160 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.apache.commons.io.FilenameUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * grammars of a corpus with the layout of grammars-v4 -- one directory per
+ * grammar with the .g4 files, an optional pom.xml declaring the entryPoint
+ * and an examples directory; examples with an .errors file are negative
+ * examples and are ignored (same discovery as TestExternalGrammars)
+ */
+public class Corpus {
+
+    /**
+     * a grammar of the corpus
+     */
+    public static class Subject {
+        private final String name;
+        private final List<File> grammars;
+        private final List<File> examples;
+        private final String entryPoint;
+
+        Subject(String name, List<File> grammars, List<File> examples,
+                String entryPoint) {
+            this.name = name;
+            this.grammars = grammars;
+            this.examples = examples;
+            this.entryPoint = entryPoint;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<File> getGrammars() {
+            return grammars;
+        }
+
+        public List<File> getExamples() {
+            return examples;
+        }
+
+        /**
+         * get the entry rule
+         *
+         * @return entry rule or null if the first rule is used
+         */
+        public String getEntryPoint() {
+            return entryPoint;
+        }
+    }
+
+    private Corpus() {
+    }
+
+    /**
+     * discover the grammars of a corpus
+     *
+     * @param dir corpus directory
+     * @return grammars with at least one positive example sorted by name
+     * @throws IOException if a pom.xml cannot be read
+     */
+    public static List<Subject> discover(File dir) throws IOException {
+        File[] dirs = dir.listFiles(File::isDirectory);
+        if (dirs == null)
+            return Collections.emptyList();
+
+        Arrays.sort(dirs, Comparator.comparing(File::getName));
+
+        List<Subject> ret = new ArrayList<>();
+        for (File f : dirs) {
+            File[] gs = f.listFiles(p -> p.getName().endsWith(".g4"));
+            File[] xs = new File(f, "examples").listFiles(p -> !p
+                    .isDirectory() && !FilenameUtils.getExtension(p.getName())
+                    .equals("tree") && !FilenameUtils.getExtension(p.getName())
+                    .equals("errors"));
+            if (gs == null || gs.length == 0 || xs == null || xs.length == 0)
+                continue;
+
+            Set<String> negative = new TreeSet<>();
+            File[] es = new File(f, "examples").listFiles(p -> FilenameUtils
+                    .getExtension(p.getName()).equals("errors"));
+            if (es != null)
+                Arrays.stream(es).forEach(e -> negative.add(FilenameUtils
+                        .getBaseName(e.getName())));
+
+            List<File> examples = new ArrayList<>();
+            for (File x : xs) {
+                if (!negative.contains(x.getName()))
+                    examples.add(x);
+            }
+            if (examples.isEmpty())
+                continue;
+
+            examples.sort(Comparator.comparing(File::getName));
+            List<File> grammars = new ArrayList<>(Arrays.asList(gs));
+            grammars.sort(Comparator.comparing(File::getName));
+
+            ret.add(new Subject(f.getName(), grammars, examples, entryPoint
+                    (new File(f, "pom.xml"))));
+        }
+        return ret;
+    }
+
+    private static String entryPoint(File pom) throws IOException {
+        if (!pom.exists())
+            return null;
+        try {
+            Document doc = DocumentBuilderFactory.newInstance()
+                    .newDocumentBuilder().parse(pom);
+            NodeList nl = doc.getElementsByTagName("entryPoint");
+            if (nl.getLength() == 1)
+                return nl.item(0).getTextContent().trim();
+            return null;
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("cannot read " + pom, e);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.exceptions.SerializationException;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.metrics.CompileReport;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * macro benchmark over a grammars-v4 style corpus -- for every grammar the
+ * compile time, the size of the generated code and of the artifact stored
+ * by GenericParser.store, the latency of the first parse attempt, the
+ * steady-state throughput and the peak heap usage are written as JSON or
+ * CSV (depending on the extension of the output file) so that the results
+ * of two versions can be compared
+ *
+ * usage: CorpusBenchmark [--corpus dir] [--output file.json|file.csv]
+ * [--warmup seconds] [--measure seconds] [grammar ...]
+ */
+public final class CorpusBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CorpusBenchmark.class);
+
+    /** the grammars-v4 submodule of the test resources */
+    public static final String DEFAULT_CORPUS =
+            "inmemantlr-api/src/test/resources/grammars-v4";
+
+    private static final String[] COLUMNS = {"grammar", "status", "message",
+            "compileMillis", "sourceSize", "classes", "bytecodeSize",
+            "artifactBytes", "examples", "failedExamples", "inputBytes", "tokens",
+            "firstParseMillis", "bytesPerSecond", "tokensPerSecond",
+            "peakHeapBytes"};
+
+    private CorpusBenchmark() {
+    }
+
+    /**
+     * measurements of a single grammar
+     */
+    public static class Result {
+        String grammar;
+        String status = "ok";
+        String message = "";
+        double compileMillis;
+        long sourceSize;
+        int classes;
+        long bytecodeSize;
+        long artifactBytes;
+        int examples;
+        int failedExamples;
+        long inputBytes;
+        long tokens;
+        double firstParseMillis;
+        double bytesPerSecond;
+        double tokensPerSecond;
+        long peakHeapBytes;
+
+        Object[] values() {
+            return new Object[]{grammar, status, message, compileMillis,
+                    sourceSize, classes, bytecodeSize, artifactBytes, examples,
+                    failedExamples, inputBytes, tokens, firstParseMillis,
+                    bytesPerSecond, tokensPerSecond, peakHeapBytes};
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        File corpus = new File(DEFAULT_CORPUS);
+        File output = new File("corpus-benchmark.json");
+        long warmup = 2;
+        long measure = 5;
+        Set<String> only = new HashSet<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--corpus":
+                    corpus = new File(args[++i]);
+                    break;
+                case "--output":
+                    output = new File(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Long.parseLong(args[++i]);
+                    break;
+                case "--measure":
+                    measure = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    only.add(args[i]);
+            }
+        }
+
+        List<Corpus.Subject> subjects = Corpus.discover(corpus);
+        if (subjects.isEmpty())
+            throw new IllegalArgumentException("no grammars with examples " +
+                    "found in " + corpus.getAbsolutePath() + " -- run git " +
+                    "submodule update --init for grammars-v4");
+
+        List<Result> results = new ArrayList<>();
+        for (Corpus.Subject s : subjects) {
+            if (!only.isEmpty() && !only.contains(s.getName()))
+                continue;
+            LOGGER.info("benchmark {}", s.getName());
+            results.add(run(s, TimeUnit.SECONDS.toNanos(warmup), TimeUnit
+                    .SECONDS.toNanos(measure)));
+        }
+
+        write(results, output);
+        LOGGER.info("wrote {}", output.getAbsolutePath());
+    }
+
+    /**
+     * benchmark a single grammar
+     *
+     * @param s          grammar
+     * @param warmupNs   duration of the warm-up phase
+     * @param measureNs  duration of the measurement phase
+     * @return result
+     */
+    public static Result run(Corpus.Subject s, long warmupNs, long
+            measureNs) {
+        Result r = new Result();
+        r.grammar = s.getName();
+        r.examples = s.getExamples().size();
+
+        System.gc();
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                heap.add(pool);
+            }
+        }
+
+        GenericParser gp;
+        try {
+            long start = System.nanoTime();
+            gp = new GenericParser(s.getGrammars().toArray(new File[0]));
+            gp.compile();
+            r.compileMillis = (System.nanoTime() - start) / 1e6;
+        } catch (CompilationException | FileNotFoundException |
+                RuntimeException e) {
+            r.status = "compile-error";
+            r.message = String.valueOf(e.getMessage());
+            return r;
+        }
+
+        DefaultTreeListener listener = new DefaultTreeListener();
+        gp.setListener(listener);
+
+        List<String> inputs = new ArrayList<>();
+        List<Integer> tokens = new ArrayList<>();
+        boolean first = true;
+        for (File f : s.getExamples()) {
+            String input;
+            try {
+                input = new String(Files.readAllBytes(f.toPath()),
+                        StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                r.failedExamples++;
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                gp.parse(input, s.getEntryPoint(), GenericParser
+                        .CaseSensitiveType.NONE);
+            } catch (IllegalWorkflowException | ParsingException |
+                    RuntimeException e) {
+                r.failedExamples++;
+                continue;
+            } finally {
+                // the first attempt initializes lexer and parser, whether
+                // it succeeds or not
+                if (first)
+                    r.firstParseMillis = (System.nanoTime() - start) / 1e6;
+                first = false;
+            }
+            try {
+                tokens.add(gp.lex(input).size());
+            } catch (IllegalWorkflowException | RuntimeException e) {
+                r.failedExamples++;
+                continue;
+            }
+            inputs.add(input);
+        }
+
+        // the report is created after the first parse which should include
+        // the initialization of lexer and parser
+        try {
+            CompileReport report = gp.getCompileReport();
+            r.sourceSize = report.getSourceSize();
+            r.classes = report.getClassCount();
+            r.bytecodeSize = report.getBytecodeSize();
+        } catch (IllegalWorkflowException e) {
+            r.message = String.valueOf(e.getMessage());
+        }
+        try {
+            r.artifactBytes = storedSize(gp);
+        } catch (IOException | SerializationException e) {
+            r.message = String.valueOf(e.getMessage());
+        }
+
+        if (inputs.isEmpty()) {
+            r.status = "parse-error";
+            r.message = "none of the examples could be parsed";
+            r.peakHeapBytes = peak(heap);
+            return r;
+        }
+
+        r.inputBytes = inputs.stream().mapToLong(i -> i.getBytes
+                (StandardCharsets.UTF_8).length).sum();
+        r.tokens = tokens.stream().mapToLong(Integer::longValue).sum();
+
+        try {
+            loop(gp, s, inputs, warmupNs);
+            long start = System.nanoTime();
+            long rounds = loop(gp, s, inputs, measureNs);
+            double secs = (System.nanoTime() - start) / 1e9;
+            r.bytesPerSecond = rounds * r.inputBytes / secs;
+            r.tokensPerSecond = rounds * r.tokens / secs;
+        } catch (IllegalWorkflowException | ParsingException e) {
+            r.status = "parse-error";
+            r.message = String.valueOf(e.getMessage());
+        }
+
+        r.peakHeapBytes = peak(heap);
+        return r;
+    }
+
+    private static long loop(GenericParser gp, Corpus.Subject s, List<String>
+            inputs, long durationNs) throws IllegalWorkflowException,
+            ParsingException {
+        long end = System.nanoTime() + durationNs;
+        long rounds = 0;
+        do {
+            for (String input : inputs)
+                gp.parse(input, s.getEntryPoint(), GenericParser
+                        .CaseSensitiveType.NONE);
+            rounds++;
+        } while (System.nanoTime() < end);
+        return rounds;
+    }
+
+    private static long storedSize(GenericParser gp) throws IOException,
+            SerializationException {
+        File stored = File.createTempFile("corpus", ".parser");
+        try {
+            gp.store(stored.getAbsolutePath(), true);
+            return stored.length();
+        } finally {
+            Files.deleteIfExists(stored.toPath());
+        }
+    }
+
+    private static long peak(List<MemoryPoolMXBean> heap) {
+        return heap.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+    }
+
+    /**
+     * write the results as csv or json
+     *
+     * @param results results
+     * @param output  output file -- csv is written for a .csv extension,
+     *                json otherwise
+     * @throws IOException output file cannot be written
+     */
+    public static void write(List<Result> results, File output) throws
+            IOException {
+        boolean csv = output.getName().endsWith(".csv");
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(output
+                .toPath(), StandardCharsets.UTF_8))) {
+            if (csv) {
+                pw.println(String.join(",", COLUMNS));
+                for (Result r : results) {
+                    List<String> row = new ArrayList<>();
+                    for (Object v : r.values())
+                        row.add(v instanceof String ? csv((String) v) :
+                                format(v));
+                    pw.println(String.join(",", row));
+                }
+                return;
+            }
+
+            pw.println("{");
+            pw.println("  \"java\": " + json(System.getProperty("java" +
+                    ".version")) + ",");
+            pw.println("  \"grammars\": [");
+            for (int i = 0; i < results.size(); i++) {
+                Object[] values = results.get(i).values();
+                List<String> fields = new ArrayList<>();
+                for (int c = 0; c < COLUMNS.length; c++)
+                    fields.add(json(COLUMNS[c]) + ": " + (values[c] instanceof
+                            String ? json((String) values[c]) : format
+                            (values[c])));
+                pw.print("    {" + String.join(", ", fields) + "}");
+                pw.println(i < results.size() - 1 ? "," : "");
+            }
+            pw.println("  ]");
+            pw.println("}");
+        }
+    }
+
+    private static String format(Object v) {
+        if (v instanceof Double)
+            return String.format(Locale.ROOT, "%.3f", (Double) v);
+        return String.valueOf(v);
+    }
+
+    private static String csv(String s) {
+        return "\"" + s.replace("\"", "\"\"").replaceAll("[\r\n]+", " ") +
+                "\"";
+    }
+
+    private static String json(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        return sb.append("\"").toString();
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.generator.SentenceGenerator;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.tree.ParseTree;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * parsing of inputs that are generated from the grammar -- the input size
+ * is controlled by the target length in tokens
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GeneratedBenchmark {
+
+    private static final int ATTEMPTS = 50;
+
+    @Param({"JAVA", "MYSQL", "PHP", "DEEPOCL"})
+    public Workload workload;
+
+    @Param({"100", "1000"})
+    public int tokens;
+
+    @Param({"42"})
+    public long seed;
+
+    private GenericParser gp;
+    private DefaultTreeListener listener;
+    private String input;
+
+    @Setup(Level.Trial)
+    public void setUp() throws CompilationException,
+            IllegalWorkflowException {
+        gp = workload.newParser();
+        listener = new DefaultTreeListener();
+        gp.setListener(listener);
+        gp.compile();
+
+        SentenceGenerator gen = new SentenceGenerator(gp, seed);
+        gen.setTargetLength(tokens);
+        // the generator ignores semantic predicates and lexer modes, so only
+        // sentences that are accepted by the parser are used
+        for (int i = 0; i < ATTEMPTS && input == null; i++) {
+            String s = gen.generate(workload.getEntryRule());
+            try {
+                gp.parse(s, workload.getEntryRule(), GenericParser
+                        .CaseSensitiveType.NONE);
+                input = s;
+            } catch (ParsingException e) {
+                // try the next one
+            }
+        }
+        if (input == null)
+            throw new IllegalStateException("no valid input generated for " +
+                    workload);
+    }
+
+    @Benchmark
+    public ParseTree parse() throws IllegalWorkflowException,
+            ParsingException {
+        gp.parse(input, workload.getEntryRule(), GenericParser
+                .CaseSensitiveType.NONE);
+        return listener.getParseTree();
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.*;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+import org.snt.inmemantlr.exceptions.ParseTreeProcessorException;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.tree.JsonProcessor;
+import org.snt.inmemantlr.tree.ParseTree;
+import org.snt.inmemantlr.validation.ValidationResult;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lexing, parsing, validation and parse tree processing of inputs of
+ * different sizes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ParseBenchmark {
+
+    @Param({"JAVA", "MYSQL", "PHP", "DEEPOCL"})
+    public Workload workload;
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Workload.Size size;
+
+    private GenericParser gp;
+    private DefaultTreeListener listener;
+    private String input;
+    private ParseTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws CompilationException,
+            IllegalWorkflowException, ParsingException {
+        gp = workload.newParser();
+        listener = new DefaultTreeListener();
+        gp.setListener(listener);
+        gp.compile();
+        input = workload.getInput(size);
+        // fails early for inputs that do not match the grammar
+        gp.parse(input, workload.getEntryRule(), GenericParser
+                .CaseSensitiveType.NONE);
+        tree = listener.getParseTree();
+    }
+
+    @Benchmark
+    public List<Token> lex() throws IllegalWorkflowException {
+        return gp.lex(input);
+    }
+
+    @Benchmark
+    public ParseTree parse() throws IllegalWorkflowException,
+            ParsingException {
+        gp.parse(input, workload.getEntryRule(), GenericParser
+                .CaseSensitiveType.NONE);
+        return listener.getParseTree();
+    }
+
+    @Benchmark
+    public ValidationResult validate() throws IllegalWorkflowException {
+        return gp.validate(input, workload.getEntryRule());
+    }
+
+    @Benchmark
+    public StringBuilder process() throws ParseTreeProcessorException {
+        return new JsonProcessor(tree).process();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return tree.toJson();
+    }
+
+    @Benchmark
+    public String toXml() {
+        return tree.toXml();
+    }
+}
@@ -0,0 +1,399 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * compares JMH results (json) with a baseline and fails if a metric
+ * regressed -- a change is only a regression if it exceeds the relative
+ * tolerance of the metric and if the 99.9% confidence intervals of baseline
+ * and current result do not overlap, so that noisy benchmarks do not fail the
+ * build; the primary metric (time or throughput) and the normalized
+ * allocation rate are compared; a benchmark or metric of the baseline that
+ * is missing from the results fails the gate as well, and so does a baseline
+ * metric whose error exceeds its tolerance since the gate could not detect
+ * a regression of that metric
+ *
+ * usage: RegressionGate --baseline file [--results file] [--tolerances
+ * file] [--run regex] [--update]
+ */
+public final class RegressionGate {
+
+    /** metric name of the primary score */
+    public static final String PRIMARY = "primary";
+
+    /** secondary metric of the gc profiler in bytes per operation */
+    public static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    /** tolerance that is used if none is configured */
+    public static final double DEFAULT_TOLERANCE = 0.10;
+
+    /** forks per benchmark of a gate run */
+    public static final int FORKS = 3;
+
+    /**
+     * warm-up iterations of 2s per fork -- parsers only reach a steady state
+     * once the JIT compiler and the DFA caches have warmed up
+     */
+    public static final int WARMUP_ITERATIONS = 10;
+
+    /** measurement iterations of 3s per fork */
+    public static final int MEASUREMENT_ITERATIONS = 5;
+
+    /** run properties that are kept in the baseline */
+    private static final String[] RUN_FIELDS = {"benchmark", "mode",
+            "threads", "forks", "jdkVersion", "vmName", "warmupIterations",
+            "warmupTime", "measurementIterations", "measurementTime",
+            "params"};
+
+    /** metric properties that are kept in the baseline */
+    private static final String[] METRIC_FIELDS = {"score", "scoreError",
+            "scoreConfidence", "scoreUnit"};
+
+    private RegressionGate() {
+    }
+
+    /**
+     * a single metric of a benchmark
+     */
+    static class Score {
+        final double score;
+        final double error;
+        final String unit;
+        final boolean higherIsBetter;
+
+        Score(double score, double error, String unit, boolean
+                higherIsBetter) {
+            this.score = score;
+            this.error = Double.isNaN(error) ? 0 : error;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.3f +- %.3f %s", score, error,
+                    unit);
+        }
+    }
+
+    public static void main(String[] args) throws IOException,
+            RunnerException {
+        File baseline = null;
+        File results = new File("target/jmh-result.json");
+        File tolerances = null;
+        String run = null;
+        boolean update = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--baseline":
+                    baseline = new File(args[++i]);
+                    break;
+                case "--results":
+                    results = new File(args[++i]);
+                    break;
+                case "--tolerances":
+                    tolerances = new File(args[++i]);
+                    break;
+                case "--run":
+                    run = args[++i];
+                    break;
+                case "--update":
+                    update = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " +
+                            args[i]);
+            }
+        }
+
+        if (baseline == null)
+            throw new IllegalArgumentException("--baseline is missing");
+
+        if (run != null)
+            runBenchmarks(run, results);
+
+        if (update) {
+            writeBaseline(results, baseline);
+            System.out.println("updated baseline " + baseline);
+            return;
+        }
+
+        Properties tol = new Properties();
+        if (tolerances != null) {
+            try (Reader r = Files.newBufferedReader(tolerances.toPath(),
+                    StandardCharsets.UTF_8)) {
+                tol.load(r);
+            }
+        }
+
+        List<String> regressions = new ArrayList<>();
+        String report = compare(read(baseline), read(results), tol,
+                regressions);
+        System.out.println(report);
+
+        if (!regressions.isEmpty())
+            throw new IllegalStateException(regressions.size() + " " +
+                    "metric(s) failed the regression gate:\n" + String.join
+                    ("\n", regressions));
+    }
+
+    /**
+     * run the benchmarks with the gate settings -- several forks with the gc
+     * profiler so that the confidence intervals are narrow enough to detect
+     * regressions; large inputs are left out to keep the gate fast
+     *
+     * @param regex   benchmarks to run
+     * @param results json output file
+     * @throws RunnerException benchmarks failed
+     */
+    public static void runBenchmarks(String regex, File results) throws
+            RunnerException {
+        File parent = results.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+            throw new IllegalArgumentException("cannot create " + parent);
+
+        Options opts = new OptionsBuilder()
+                .include(regex)
+                .param("size", "SMALL", "MEDIUM")
+                .forks(FORKS)
+                .warmupIterations(WARMUP_ITERATIONS)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(MEASUREMENT_ITERATIONS)
+                .measurementTime(TimeValue.seconds(3))
+                .jvmArgsAppend("-Xms1g", "-Xmx1g")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.getAbsolutePath())
+                .build();
+        new Runner(opts).run();
+    }
+
+    /**
+     * read JMH json results
+     *
+     * @param file json file
+     * @return metrics per benchmark and parameters
+     * @throws IOException file cannot be read
+     */
+    static Map<String, Map<String, Score>> read(File file) throws
+            IOException {
+        Map<String, Map<String, Score>> ret = new TreeMap<>();
+        JsonArray arr;
+        try (Reader r = Files.newBufferedReader(file.toPath(),
+                StandardCharsets.UTF_8)) {
+            arr = JsonParser.parseReader(r).getAsJsonArray();
+        }
+        for (JsonElement e : arr) {
+            JsonObject o = e.getAsJsonObject();
+            String name = o.get("benchmark").getAsString();
+            name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.')
+                    - 1) + 1);
+            Map<String, String> params = new TreeMap<>();
+            if (o.has("params")) {
+                o.getAsJsonObject("params").entrySet().forEach(p -> params
+                        .put(p.getKey(), p.getValue().getAsString()));
+            }
+            String key = params.isEmpty() ? name : name + " " + params;
+
+            Map<String, Score> metrics = new LinkedHashMap<>();
+            boolean thrpt = o.get("mode").getAsString().equals("thrpt");
+            metrics.put(PRIMARY, score(o.getAsJsonObject("primaryMetric"),
+                    thrpt));
+            if (o.has("secondaryMetrics")) {
+                for (Map.Entry<String, JsonElement> s : o.getAsJsonObject
+                        ("secondaryMetrics").entrySet()) {
+                    if (s.getKey().endsWith(ALLOCATION))
+                        metrics.put(ALLOCATION, score(s.getValue()
+                                .getAsJsonObject(), false));
+                }
+            }
+            ret.put(key, metrics);
+        }
+        return ret;
+    }
+
+    /**
+     * write JMH json results as a baseline -- raw data, percentiles, the
+     * secondary metrics that are not compared and machine specific
+     * properties such as the JVM path are left out
+     *
+     * @param results  JMH json results
+     * @param baseline baseline file
+     * @throws IOException a file cannot be read or written
+     */
+    static void writeBaseline(File results, File baseline) throws
+            IOException {
+        JsonArray arr;
+        try (Reader r = Files.newBufferedReader(results.toPath(),
+                StandardCharsets.UTF_8)) {
+            arr = JsonParser.parseReader(r).getAsJsonArray();
+        }
+        JsonArray ret = new JsonArray();
+        for (JsonElement e : arr) {
+            JsonObject o = e.getAsJsonObject();
+            JsonObject b = copy(o, RUN_FIELDS);
+            b.add("primaryMetric", copy(o.getAsJsonObject("primaryMetric"),
+                    METRIC_FIELDS));
+            JsonObject secondary = new JsonObject();
+            if (o.has("secondaryMetrics")) {
+                for (Map.Entry<String, JsonElement> s : o.getAsJsonObject
+                        ("secondaryMetrics").entrySet()) {
+                    if (s.getKey().endsWith(ALLOCATION))
+                        secondary.add(s.getKey(), copy(s.getValue()
+                                .getAsJsonObject(), METRIC_FIELDS));
+                }
+            }
+            b.add("secondaryMetrics", secondary);
+            ret.add(b);
+        }
+        try (Writer w = Files.newBufferedWriter(baseline.toPath(),
+                StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(ret, w);
+            w.write("\n");
+        }
+    }
+
+    private static JsonObject copy(JsonObject o, String[] fields) {
+        JsonObject ret = new JsonObject();
+        for (String f : fields) {
+            if (o.has(f))
+                ret.add(f, o.get(f));
+        }
+        return ret;
+    }
+
+    private static Score score(JsonObject m, boolean higherIsBetter) {
+        return new Score(m.get("score").getAsDouble(), m.get("scoreError")
+                .getAsDouble(), m.get("scoreUnit").getAsString(),
+                higherIsBetter);
+    }
+
+    /**
+     * compare results with the baseline
+     *
+     * @param baseline    baseline metrics
+     * @param current     current metrics
+     * @param tolerances  relative tolerances by "Class.method.metric" or
+     *                    "metric"
+     * @param regressions receives a line per regression, missing metric or
+     *                    baseline metric that is too noisy to be compared
+     * @return a readable report of all differences
+     */
+    static String compare(Map<String, Map<String, Score>> baseline, Map<String,
+            Map<String, Score>> current, Properties tolerances, List<String>
+                                  regressions) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Map<String, Score>> b : baseline.entrySet()) {
+            Map<String, Score> c = current.get(b.getKey());
+            if (c == null) {
+                String line = "MISSING    " + b.getKey();
+                sb.append(line).append("\n");
+                regressions.add(line);
+                continue;
+            }
+            String name = b.getKey().split(" ")[0];
+            for (Map.Entry<String, Score> m : b.getValue().entrySet()) {
+                Score base = m.getValue();
+                Score cur = c.get(m.getKey());
+                if (cur == null) {
+                    String line = "MISSING    " + b.getKey() + " " + m.getKey();
+                    sb.append(line).append("\n");
+                    regressions.add(line);
+                    continue;
+                }
+
+                double tol = tolerance(tolerances, name, m.getKey());
+                double noise = base.score == 0 ? 0 : base.error / Math.abs
+                        (base.score);
+                double change = base.score == 0 ? 0 : (cur.score - base
+                        .score) / base.score;
+                double worse = base.higherIsBetter ? -change : change;
+                boolean overlap = base.higherIsBetter ?
+                        cur.score + cur.error >= base.score - base.error :
+                        cur.score - cur.error <= base.score + base.error;
+
+                String verdict;
+                if (worse > tol && !overlap)
+                    verdict = "REGRESSION";
+                else if (noise > tol)
+                    verdict = "NOISY     ";
+                else if (-worse > tol && !overlap)
+                    verdict = "improved  ";
+                else
+                    verdict = "ok        ";
+
+                String line = String.format(Locale.ROOT, "%s %s %s: %s -> %s" +
+                                " (%+.1f%%, tolerance %.0f%%, baseline error " +
+                                "%.0f%%)", verdict, b.getKey(), m.getKey(),
+                        base, cur, change * 100, tol * 100, noise * 100);
+                sb.append(line).append("\n");
+                if (verdict.equals("REGRESSION") || verdict.startsWith("NOISY"))
+                    regressions.add(line);
+            }
+        }
+        current.keySet().stream()
+                .filter(k -> !baseline.containsKey(k))
+                .forEach(k -> sb.append("new        ").append(k).append("\n"));
+        return sb.toString();
+    }
+
+    private static double tolerance(Properties tolerances, String name,
+                                    String metric) {
+        String t = tolerances.getProperty(name + "." + metric, tolerances
+                .getProperty(metric));
+        return t != null ? Double.parseDouble(t.trim()) : DEFAULT_TOLERANCE;
+    }
+}
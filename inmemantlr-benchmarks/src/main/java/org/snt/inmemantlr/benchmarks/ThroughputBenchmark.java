@@ -0,0 +1,134 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.exceptions.DeserializationException;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+import org.snt.inmemantlr.exceptions.ParsingException;
+import org.snt.inmemantlr.exceptions.SerializationException;
+import org.snt.inmemantlr.listener.DefaultTreeListener;
+import org.snt.inmemantlr.tree.ParseTree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * parse throughput for an increasing number of threads -- a generic parser
+ * is not thread-safe, hence every thread loads its own instance from the
+ * same stored artifact
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ThroughputBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Artifact {
+
+        @Param({"JAVA", "MYSQL", "PHP", "DEEPOCL"})
+        public Workload workload;
+
+        @Param({"MEDIUM"})
+        public Workload.Size size;
+
+        private File stored;
+        private String input;
+
+        @Setup(Level.Trial)
+        public void setUp() throws CompilationException, IOException,
+                SerializationException {
+            GenericParser gp = workload.newParser();
+            gp.compile();
+            stored = File.createTempFile("throughput", ".gp");
+            stored.deleteOnExit();
+            gp.store(stored.getAbsolutePath(), true);
+            input = workload.getInput(size);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (stored != null && !stored.delete())
+                stored.deleteOnExit();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+
+        private GenericParser gp;
+        private DefaultTreeListener listener;
+
+        @Setup(Level.Trial)
+        public void setUp(Artifact artifact) throws DeserializationException {
+            gp = GenericParser.load(artifact.stored.getAbsolutePath());
+            listener = new DefaultTreeListener();
+            gp.setListener(listener);
+        }
+
+        ParseTree parse(Artifact artifact) throws IllegalWorkflowException,
+                ParsingException {
+            gp.parse(artifact.input, artifact.workload.getEntryRule(),
+                    GenericParser.CaseSensitiveType.NONE);
+            return listener.getParseTree();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ParseTree oneThread(Artifact artifact, Worker worker) throws
+            IllegalWorkflowException, ParsingException {
+        return worker.parse(artifact);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public ParseTree twoThreads(Artifact artifact, Worker worker) throws
+            IllegalWorkflowException, ParsingException {
+        return worker.parse(artifact);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ParseTree fourThreads(Artifact artifact, Worker worker) throws
+            IllegalWorkflowException, ParsingException {
+        return worker.parse(artifact);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ParseTree allThreads(Artifact artifact, Worker worker) throws
+            IllegalWorkflowException, ParsingException {
+        return worker.parse(artifact);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.batch.BatchParserPool;
+import org.snt.inmemantlr.batch.BatchResult;
+import org.snt.inmemantlr.batch.Workers;
+import org.snt.inmemantlr.exceptions.CompilationException;
+import org.snt.inmemantlr.exceptions.IllegalWorkflowException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * one task per request that parses a tiny generated input with a pooled
+ * batch parser -- a fixed pool of platform threads compared to one thread
+ * per task, which is a virtual thread when running the multi-release jar on
+ * JDK 21+; the scores are per request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VirtualThreadBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger
+            (VirtualThreadBenchmark.class);
+
+    private static final int ITEMS = 1000;
+
+    public enum Threads {
+        PLATFORM,
+        PER_TASK
+    }
+
+    @Param({"JAVA", "MYSQL"})
+    public Workload workload;
+
+    @Param({"PLATFORM", "PER_TASK"})
+    public Threads threads;
+
+    @Param({"10"})
+    public int tokens;
+
+    @Param({"42"})
+    public long seed;
+
+    private ExecutorService executor;
+    private BatchParserPool pool;
+    private List<String> inputs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws CompilationException,
+            IllegalWorkflowException {
+        GenericParser gp = workload.newParser();
+        gp.compile();
+        inputs = BatchBenchmark.generate(gp, workload, tokens, seed, ITEMS);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        pool = gp.newBatchParserPool(workload.getEntryRule(), cores);
+        executor = threads == Threads.PLATFORM ? Executors
+                .newFixedThreadPool(cores) : Workers.newPerTaskExecutor();
+        LOGGER.info("virtual threads: {}", threads == Threads.PER_TASK &&
+                Workers.isVirtual());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public int requests() throws InterruptedException, ExecutionException {
+        List<Future<BatchResult>> results = new ArrayList<>(ITEMS);
+        for (String s : inputs)
+            results.add(executor.submit(() -> pool.parse(s)));
+        int ok = 0;
+        for (Future<BatchResult> f : results)
+            ok += f.get().isSuccess() ? 1 : 0;
+        return ok;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.snt.inmemantlr.GenericParser;
+import org.snt.inmemantlr.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * grammars of the test suite together with inputs of different sizes
+ */
+public enum Workload {
+
+    JAVA("compilationUnit", "class C%1$d { int f%1$d(int a) { if (a > 0) " +
+            "{ return a * 2 + f%1$d(a - 1); } return 0; } }%n",
+            "Java.g4"),
+    MYSQL("stat", "select a, b.c, d from t%1$d where a = %1$d%n",
+            "MySQLLexer.g4", "MySQLParser.g4"),
+    PHP("htmlDocument", null, "PhpLexer.g4", "PhpParser.g4"),
+    DEEPOCL("contextDeclCS", "context Dependent inv inv%1$d: (self" +
+            ".birthyear >=2012 and self.allowances->size()=1) or (self" +
+            ".birthyear < 2012 and self.birthyear >= 1996)%n", "DeepOcl.g4");
+
+    private final String entryRule;
+    private final String snippet;
+    private final String[] grammars;
+
+    Workload(String entryRule, String snippet, String... grammars) {
+        this.entryRule = entryRule;
+        this.snippet = snippet;
+        this.grammars = grammars;
+    }
+
+    /**
+     * input sizes as number of repetitions of a snippet
+     */
+    public enum Size {
+        SMALL(1), MEDIUM(16), LARGE(256);
+
+        private final int repetitions;
+
+        Size(int repetitions) {
+            this.repetitions = repetitions;
+        }
+
+        public int getRepetitions() {
+            return repetitions;
+        }
+    }
+
+    public String getEntryRule() {
+        return entryRule;
+    }
+
+    /**
+     * get the contents of the grammar files
+     *
+     * @return lexer and parser grammar or a combined grammar
+     */
+    public String[] getGrammars() {
+        String[] ret = new String[grammars.length];
+        for (int i = 0; i < grammars.length; i++)
+            ret[i] = resource(grammars[i]);
+        return ret;
+    }
+
+    /**
+     * create a generic parser that is not compiled yet
+     *
+     * @return generic parser
+     */
+    public GenericParser newParser() {
+        return new GenericParser(getGrammars());
+    }
+
+    /**
+     * create an input by repeating the snippet of the workload
+     *
+     * @param size input size
+     * @return input string
+     */
+    public String getInput(Size size) {
+        // the php snippet is a complete document that is repeated verbatim
+        String php = snippet == null ? resource("test.php") : null;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size.getRepetitions(); i++)
+            sb.append(php != null ? php : String.format(Locale.ROOT, snippet,
+                    i));
+        return sb.toString();
+    }
+
+    private static String resource(String name) {
+        try (InputStream is = Workload.class.getClassLoader()
+                .getResourceAsStream("inmemantlr/" + name)) {
+            if (is == null)
+                throw new IllegalStateException("cannot find " + name);
+            return FileUtils.getStringFromStream(is);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Inmemantlr - In memory compiler for Antlr 4
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Julian Thome <julian.thome.de@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ **/
+
+
+package org.snt.inmemantlr.benchmarks;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.snt.inmemantlr.benchmarks.RegressionGate.Score;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+public class TestRegressionGate {
+
+    private static final String PARSE = "ParseBenchmark.parse {size=SMALL}";
+
+    private static Map<String, Map<String, Score>> run(Score time, Score
+            alloc) {
+        Map<String, Score> metrics = new LinkedHashMap<>();
+        metrics.put(RegressionGate.PRIMARY, time);
+        if (alloc != null)
+            metrics.put(RegressionGate.ALLOCATION, alloc);
+        Map<String, Map<String, Score>> ret = new TreeMap<>();
+        ret.put(PARSE, metrics);
+        return ret;
+    }
+
+    private static Score time(double score, double error) {
+        return new Score(score, error, "us/op", false);
+    }
+
+    private static Score bytes(double score) {
+        return new Score(score, 100, "B/op", false);
+    }
+
+    private static List<String> compare(Map<String, Map<String, Score>>
+            baseline, Map<String, Map<String, Score>> current) {
+        Properties tol = new Properties();
+        tol.setProperty(RegressionGate.PRIMARY, "0.10");
+        tol.setProperty(RegressionGate.ALLOCATION, "0.05");
+        List<String> regressions = new ArrayList<>();
+        RegressionGate.compare(baseline, current, tol, regressions);
+        return regressions;
+    }
+
+    @Test
+    public void testRegression() {
+        List<String> r = compare(run(time(100, 2), bytes(10000)), run(time
+                (130, 3), bytes(10000)));
+        Assertions.assertEquals(1, r.size());
+        Assertions.assertTrue(r.get(0).startsWith("REGRESSION"));
+        Assertions.assertTrue(r.get(0).contains(RegressionGate.PRIMARY));
+
+        // throughput regresses when it drops
+        Map<String, Map<String, Score>> base = run(new Score(1000, 20,
+                "ops/s", true), null);
+        Map<String, Map<String, Score>> cur = run(new Score(800, 20,
+                "ops/s", true), null);
+        Assertions.assertEquals(1, compare(base, cur).size());
+        Assertions.assertTrue(compare(cur, base).isEmpty());
+    }
+
+    @Test
+    public void testImprovement() {
+        Assertions.assertTrue(compare(run(time(100, 2), bytes(10000)), run
+                (time(70, 2), bytes(8000))).isEmpty());
+    }
+
+    @Test
+    public void testNoisyOverlap() {
+        // overlapping confidence intervals are not a regression
+        Assertions.assertTrue(compare(run(time(100, 8), bytes(10000)), run
+                (time(115, 10), bytes(10000))).isEmpty());
+
+        // a baseline error beyond the tolerance hides regressions
+        List<String> r = compare(run(time(100, 40), bytes(10000)), run(time
+                (130, 3), bytes(10000)));
+        Assertions.assertEquals(1, r.size());
+        Assertions.assertTrue(r.get(0).startsWith("NOISY"));
+    }
+
+    @Test
+    public void testMissing() {
+        List<String> r = compare(run(time(100, 2), bytes(10000)), run(time
+                (100, 2), null));
+        Assertions.assertEquals(1, r.size());
+        Assertions.assertTrue(r.get(0).startsWith("MISSING"));
+        Assertions.assertTrue(r.get(0).endsWith(RegressionGate.ALLOCATION));
+
+        r = compare(run(time(100, 2), null), new TreeMap<>());
+        Assertions.assertEquals(1, r.size());
+        Assertions.assertEquals("MISSING    " + PARSE, r.get(0));
+    }
+}